@@ -1,8 +1,13 @@
 package com.jsamkt.learn.collections;
 
+import com.jsamkt.learn.collections.bitmap.RoaringBitmap;
 import com.jsamkt.learn.collections.common.CommonOperationsDemo;
+import com.jsamkt.learn.collections.list.ChunkedArrayList;
 import com.jsamkt.learn.collections.list.ListDemo;
 import com.jsamkt.learn.collections.map.MapDemo;
+import com.jsamkt.learn.collections.memory.MemoryFootprint;
+import com.jsamkt.learn.collections.primitive.IntHashSet;
+import com.jsamkt.learn.collections.primitive.IntIntMap;
 import com.jsamkt.learn.collections.set.SetDemo;
 import com.jsamkt.learn.collections.special.SpecialCollectionDemo;
 
@@ -24,6 +29,55 @@ public class CollectionsDemo {
         MapDemo.demo();
         CommonOperationsDemo.demo();
         SpecialCollectionDemo.demo();
+        demonstrateFootprints();
+    }
+
+    private static void demonstrateFootprints() {
+        System.out.println("\n--- Memory Footprint per Element ---");
+        System.out.println("Layout: " + MemoryFootprint.describeLayout());
+
+        // Same 100k int elements in every structure; boxes count towards the structure that holds them
+        int n = 100_000;
+        List<Integer> arrayList = new ArrayList<>();
+        List<Integer> linkedList = new LinkedList<>();
+        List<Integer> chunkedList = new ChunkedArrayList<>();
+        Set<Integer> hashSet = new HashSet<>();
+        Set<Integer> treeSet = new TreeSet<>();
+        IntHashSet intHashSet = new IntHashSet();
+        BitSet bitSet = new BitSet();
+        RoaringBitmap roaringBitmap = new RoaringBitmap();
+        Map<Integer, Integer> hashMap = new HashMap<>();
+        Map<Integer, Integer> treeMap = new TreeMap<>();
+        Map<Integer, Integer> concurrentMap = new ConcurrentHashMap<>();
+        IntIntMap intIntMap = new IntIntMap();
+        for (int i = 0; i < n; i++) {
+            int value = i * 3; // Spread out a little so bitmaps are not trivially dense
+            arrayList.add(value);
+            linkedList.add(value);
+            chunkedList.add(value);
+            hashSet.add(value);
+            treeSet.add(value);
+            intHashSet.add(value);
+            bitSet.set(value);
+            roaringBitmap.add(value);
+            hashMap.put(value, i);
+            treeMap.put(value, i);
+            concurrentMap.put(value, i);
+            intIntMap.put(value, i);
+        }
+
+        MemoryFootprint.print("ArrayList<Integer>", arrayList, n);
+        MemoryFootprint.print("LinkedList<Integer>", linkedList, n);
+        MemoryFootprint.print("ChunkedArrayList<Integer>", chunkedList, n);
+        MemoryFootprint.print("HashSet<Integer>", hashSet, n);
+        MemoryFootprint.print("TreeSet<Integer>", treeSet, n);
+        MemoryFootprint.print("IntHashSet", intHashSet, n);
+        MemoryFootprint.print("BitSet", bitSet, n);
+        MemoryFootprint.print("RoaringBitmap", roaringBitmap, n);
+        MemoryFootprint.print("HashMap<Integer, Integer>", hashMap, n);
+        MemoryFootprint.print("TreeMap<Integer, Integer>", treeMap, n);
+        MemoryFootprint.print("ConcurrentHashMap<Integer, Integer>", concurrentMap, n);
+        MemoryFootprint.print("IntIntMap", intIntMap, n);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Sparse container: a sorted {@code char[]} of up to 4096 low-order values (8 KB at most,
+ * the same as a bitmap container).
+ */
+final class ArrayContainer extends Container {
+    static final int MAX_SIZE = 4096;
+
+    private char[] values;
+    private int size;
+
+    ArrayContainer() {
+        this(new char[4], 0);
+    }
+
+    ArrayContainer(char[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    static int sizeInBytes(int cardinality) {
+        return 2 + 2 * cardinality;
+    }
+
+    static ArrayContainer fromWords(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(values, count);
+    }
+
+    static ArrayContainer union(ArrayContainer left, ArrayContainer right) {
+        char[] result = new char[left.size + right.size];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.size && j < right.size) {
+            char a = left.values[i];
+            char b = right.values[j];
+            if (a < b) {
+                result[count++] = a;
+                i++;
+            } else if (a > b) {
+                result[count++] = b;
+                j++;
+            } else {
+                result[count++] = a;
+                i++;
+                j++;
+            }
+        }
+        while (i < left.size) {
+            result[count++] = left.values[i++];
+        }
+        while (j < right.size) {
+            result[count++] = right.values[j++];
+        }
+        return new ArrayContainer(result, count);
+    }
+
+    /**
+     * Keeps the values for which {@code other.contains(value) == keep}.
+     */
+    ArrayContainer filter(Container other, boolean keep) {
+        char[] result = new char[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            char value = values[i];
+            if (other.contains(value) == keep) {
+                result[count++] = value;
+            }
+        }
+        return new ArrayContainer(result, count);
+    }
+
+    @Override
+    Container add(char value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return this;
+        }
+        if (size == MAX_SIZE) {
+            return toBitmap().add(value);
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_SIZE, size * 2));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    @Override
+    int cardinality() {
+        return size;
+    }
+
+    int countContainedIn(Container other) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (other.contains(values[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    int numberOfRuns() {
+        int runs = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || values[i] != values[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(high | values[i]);
+        }
+    }
+
+    @Override
+    Container copy() {
+        return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+    }
+
+    BitmapContainer toBitmap() {
+        return new BitmapContainer(words(), size);
+    }
+
+    @Override
+    long[] words() {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < size; i++) {
+            char value = values[i];
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    @Override
+    byte type() {
+        return ARRAY;
+    }
+
+    @Override
+    int payloadSizeInBytes() {
+        return sizeInBytes(size);
+    }
+
+    @Override
+    void writePayload(DataOutput out) throws IOException {
+        out.writeChar(size - 1);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(values[i]);
+        }
+    }
+
+    static ArrayContainer read(DataInput in) throws IOException {
+        int size = in.readChar() + 1;
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Array container with " + size + " values, at most "
+                    + MAX_SIZE + " allowed");
+        }
+        char[] values = new char[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = in.readChar();
+            // Binary search needs strictly ascending values
+            if (i > 0 && values[i] <= values[i - 1]) {
+                throw new IllegalArgumentException("Array container values not ascending at index " + i);
+            }
+        }
+        return new ArrayContainer(values, size);
+    }
+}
@@ -0,0 +1,151 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntConsumer;
+
+/**
+ * Dense container: a fixed 2^16-bit bitmap stored in 1024 {@code long} words.
+ */
+final class BitmapContainer extends Container {
+    static final int SIZE_IN_BYTES = WORDS * 8;
+
+    private final long[] words;
+    private int cardinality;
+
+    BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    Container add(char value) {
+        long bit = 1L << value;
+        int index = value >>> 6;
+        if ((words[index] & bit) == 0) {
+            words[index] |= bit;
+            cardinality++;
+        }
+        return this;
+    }
+
+    @Override
+    Container remove(char value) {
+        long bit = 1L << value;
+        int index = value >>> 6;
+        if ((words[index] & bit) != 0) {
+            words[index] &= ~bit;
+            cardinality--;
+            if (cardinality <= ArrayContainer.MAX_SIZE) {
+                return ArrayContainer.fromWords(words, cardinality);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    int numberOfRuns() {
+        // A run starts at every set bit whose predecessor is clear
+        int runs = 0;
+        long previousTopBit = 0;
+        for (long word : words) {
+            long starts = word & ~((word << 1) | previousTopBit);
+            runs += Long.bitCount(starts);
+            previousTopBit = word >>> 63;
+        }
+        return runs;
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                action.accept(high | ((i << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+    }
+
+    @Override
+    Container copy() {
+        return new BitmapContainer(words.clone(), cardinality);
+    }
+
+    @Override
+    long[] words() {
+        return words;
+    }
+
+    @Override
+    byte type() {
+        return BITMAP;
+    }
+
+    @Override
+    int payloadSizeInBytes() {
+        return SIZE_IN_BYTES;
+    }
+
+    @Override
+    void writePayload(DataOutput out) throws IOException {
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BitmapContainer read(DataInput in) throws IOException {
+        long[] words = new long[WORDS];
+        int cardinality = 0;
+        for (int i = 0; i < WORDS; i++) {
+            words[i] = in.readLong();
+            cardinality += Long.bitCount(words[i]);
+        }
+        if (cardinality == 0) {
+            throw new IllegalArgumentException("Empty bitmap container");
+        }
+        return new BitmapContainer(words, cardinality);
+    }
+
+    static int cardinalityInRange(long[] words, int start, int endInclusive) {
+        int firstWord = start >>> 6;
+        int lastWord = endInclusive >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> (63 - (endInclusive & 63));
+        if (firstWord == lastWord) {
+            return Long.bitCount(words[firstWord] & firstMask & lastMask);
+        }
+        int cardinality = Long.bitCount(words[firstWord] & firstMask);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            cardinality += Long.bitCount(words[i]);
+        }
+        return cardinality + Long.bitCount(words[lastWord] & lastMask);
+    }
+
+    static void setRange(long[] words, int start, int endInclusive) {
+        int firstWord = start >>> 6;
+        int lastWord = endInclusive >>> 6;
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> (63 - (endInclusive & 63));
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        words[firstWord] |= firstMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = -1L;
+        }
+        words[lastWord] |= lastMask;
+    }
+}
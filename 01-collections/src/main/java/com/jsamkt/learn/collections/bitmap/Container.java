@@ -0,0 +1,146 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.IntConsumer;
+
+/**
+ * Holds the low 16 bits of every value that shares one high 16-bit key in a {@link RoaringBitmap}.
+ * Mutating operations return the container to keep using, which may be a different type
+ * (for example an array container turns into a bitmap container once it grows past 4096 values).
+ */
+abstract class Container {
+    static final byte ARRAY = 0;
+    static final byte BITMAP = 1;
+    static final byte RUN = 2;
+
+    static final int WORDS = 1024;
+
+    abstract Container add(char value);
+
+    abstract Container remove(char value);
+
+    abstract boolean contains(char value);
+
+    abstract int cardinality();
+
+    abstract int numberOfRuns();
+
+    abstract void forEach(int high, IntConsumer action);
+
+    abstract Container copy();
+
+    /**
+     * Bitmap words for read-only use; bitmap containers return their own array.
+     */
+    abstract long[] words();
+
+    abstract byte type();
+
+    abstract int payloadSizeInBytes();
+
+    abstract void writePayload(DataOutput out) throws IOException;
+
+    static Container readPayload(byte type, DataInput in) throws IOException {
+        return switch (type) {
+            case ARRAY -> ArrayContainer.read(in);
+            case BITMAP -> BitmapContainer.read(in);
+            case RUN -> RunContainer.read(in);
+            default -> throw new IOException("Unknown container type: " + type);
+        };
+    }
+
+    Container and(Container other) {
+        // Probing the smaller side keeps array intersections proportional to the array size
+        if (this instanceof ArrayContainer array) {
+            return array.filter(other, true);
+        }
+        if (other instanceof ArrayContainer array) {
+            return array.filter(this, true);
+        }
+        long[] result = words().clone();
+        long[] right = other.words();
+        for (int i = 0; i < WORDS; i++) {
+            result[i] &= right[i];
+        }
+        return fromWords(result, this instanceof RunContainer && other instanceof RunContainer);
+    }
+
+    /**
+     * Cardinality of {@code and(other)}, counted without building the intersection.
+     */
+    int andCardinality(Container other) {
+        if (this instanceof ArrayContainer array) {
+            return array.countContainedIn(other);
+        }
+        if (other instanceof ArrayContainer array) {
+            return array.countContainedIn(this);
+        }
+        if (other instanceof RunContainer runs) {
+            return runs.andCardinality(this);
+        }
+        // Two bitmap containers: words() returns their own arrays
+        long[] left = words();
+        long[] right = other.words();
+        int cardinality = 0;
+        for (int i = 0; i < WORDS; i++) {
+            cardinality += Long.bitCount(left[i] & right[i]);
+        }
+        return cardinality;
+    }
+
+    Container or(Container other) {
+        if (this instanceof ArrayContainer left && other instanceof ArrayContainer right
+                && left.cardinality() + right.cardinality() <= ArrayContainer.MAX_SIZE) {
+            return ArrayContainer.union(left, right);
+        }
+        long[] result = words().clone();
+        long[] right = other.words();
+        for (int i = 0; i < WORDS; i++) {
+            result[i] |= right[i];
+        }
+        return fromWords(result, this instanceof RunContainer && other instanceof RunContainer);
+    }
+
+    Container andNot(Container other) {
+        if (this instanceof ArrayContainer array) {
+            return array.filter(other, false);
+        }
+        long[] result = words().clone();
+        long[] right = other.words();
+        for (int i = 0; i < WORDS; i++) {
+            result[i] &= ~right[i];
+        }
+        return fromWords(result, this instanceof RunContainer);
+    }
+
+    /**
+     * Converts to whichever of the three representations serializes smallest.
+     */
+    Container runOptimize() {
+        int cardinality = cardinality();
+        int runBytes = RunContainer.sizeInBytes(numberOfRuns());
+        int otherBytes = cardinality <= ArrayContainer.MAX_SIZE
+                ? ArrayContainer.sizeInBytes(cardinality)
+                : BitmapContainer.SIZE_IN_BYTES;
+        if (runBytes < otherBytes) {
+            return this instanceof RunContainer ? this : RunContainer.fromWords(words());
+        }
+        if (this instanceof RunContainer) {
+            return fromWords(words(), false);
+        }
+        return this;
+    }
+
+    static Container fromWords(long[] words, boolean preferRuns) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        Container result = cardinality <= ArrayContainer.MAX_SIZE
+                ? ArrayContainer.fromWords(words, cardinality)
+                : new BitmapContainer(words, cardinality);
+        return preferRuns ? result.runOptimize() : result;
+    }
+}
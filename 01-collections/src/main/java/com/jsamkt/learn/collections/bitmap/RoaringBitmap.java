@@ -0,0 +1,300 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap over the full unsigned 32-bit range, following the Roaring layout.
+ * <p>
+ * Values are split into a high 16-bit key and a low 16-bit part. Keys are kept in a sorted
+ * {@code char[]}; each key owns a container for its low parts, chosen by density:
+ * <ul>
+ *     <li>array container - sorted {@code char[]} for up to 4096 values</li>
+ *     <li>bitmap container - 1024 {@code long} words for denser chunks</li>
+ *     <li>run container - (start, length) pairs, picked by {@link #runOptimize()} for consecutive ids</li>
+ * </ul>
+ * Unlike {@link java.util.BitSet}, memory is proportional to the number (and clustering) of values,
+ * not to the largest value, so a few ids near 4 billion cost a few bytes.
+ * Values are treated as unsigned: {@code -1} is 4294967295 and iterates last. Not thread-safe.
+ */
+public class RoaringBitmap {
+    private static final int SERIAL_COOKIE = 0x524F4152;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RoaringBitmap() {
+        this(4);
+    }
+
+    private RoaringBitmap(int capacity) {
+        keys = new char[capacity];
+        containers = new Container[capacity];
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static char highBits(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char lowBits(int value) {
+        return (char) value;
+    }
+
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    public void add(int value) {
+        char key = highBits(value);
+        int index = indexOf(key);
+        if (index >= 0) {
+            containers[index] = containers[index].add(lowBits(value));
+        } else {
+            insertContainer(-index - 1, key, new ArrayContainer().add(lowBits(value)));
+        }
+    }
+
+    public void remove(int value) {
+        int index = indexOf(highBits(value));
+        if (index < 0) {
+            return;
+        }
+        Container container = containers[index].remove(lowBits(value));
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+            containers[--size] = null;
+        } else {
+            containers[index] = container;
+        }
+    }
+
+    public boolean contains(int value) {
+        int index = indexOf(highBits(value));
+        return index >= 0 && containers[index].contains(lowBits(value));
+    }
+
+    /**
+     * @return the number of values; a {@code long} because a full bitmap holds 2^32 of them
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Converts containers that hold long runs of consecutive values to run containers,
+     * and run containers that no longer pay off back to array or bitmap form.
+     */
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].runOptimize();
+        }
+    }
+
+    /**
+     * Calls {@code action} for every value in unsigned ascending order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        long cardinality = cardinality();
+        if (cardinality > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many values for an array: " + cardinality);
+        }
+        int[] result = new int[(int) cardinality];
+        int[] position = {0};
+        forEach(value -> result[position[0]++] = value);
+        return result;
+    }
+
+    public static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(left.size, right.size)));
+        int i = 0;
+        int j = 0;
+        // Only keys present on both sides can contribute, everything else is skipped without touching containers
+        while (i < left.size && j < right.size) {
+            char a = left.keys[i];
+            char b = right.keys[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                Container container = left.containers[i].and(right.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.appendContainer(a, container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap left, RoaringBitmap right) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, left.size + right.size));
+        int i = 0;
+        int j = 0;
+        while (i < left.size || j < right.size) {
+            if (j == right.size || (i < left.size && left.keys[i] < right.keys[j])) {
+                result.appendContainer(left.keys[i], left.containers[i].copy());
+                i++;
+            } else if (i == left.size || right.keys[j] < left.keys[i]) {
+                result.appendContainer(right.keys[j], right.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(left.keys[i], left.containers[i].or(right.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static RoaringBitmap andNot(RoaringBitmap left, RoaringBitmap right) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, left.size));
+        int j = 0;
+        for (int i = 0; i < left.size; i++) {
+            char key = left.keys[i];
+            while (j < right.size && right.keys[j] < key) {
+                j++;
+            }
+            Container container = j < right.size && right.keys[j] == key
+                    ? left.containers[i].andNot(right.containers[j])
+                    : left.containers[i].copy();
+            if (container.cardinality() > 0) {
+                result.appendContainer(key, container);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Size of the intersection, counted container by container without building any of it,
+     * so nothing is allocated.
+     */
+    public static long andCardinality(RoaringBitmap left, RoaringBitmap right) {
+        long cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.size && j < right.size) {
+            char a = left.keys[i];
+            char b = right.keys[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                cardinality += left.containers[i].andCardinality(right.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Writes the bitmap as: cookie, container count, then for every container its key,
+     * type and payload. Run containers are written as runs, so call {@link #runOptimize()} first
+     * for the most compact form.
+     */
+    public void serialize(DataOutput out) throws IOException {
+        out.writeInt(SERIAL_COOKIE);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            out.writeByte(containers[i].type());
+            containers[i].writePayload(out);
+        }
+    }
+
+    /**
+     * Reads a bitmap written by {@link #serialize}.
+     *
+     * @throws IOException              if the input is not a serialized bitmap or ends early
+     * @throws IllegalArgumentException if the containers break the bitmap's invariants: keys out of order,
+     *                                  an empty container, an array container over 4096 values or out of
+     *                                  order, or runs that overlap or overflow
+     */
+    public static RoaringBitmap deserialize(DataInput in) throws IOException {
+        if (in.readInt() != SERIAL_COOKIE) {
+            throw new IOException("Not a serialized RoaringBitmap");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > 1 << 16) {
+            throw new IOException("Invalid container count: " + count);
+        }
+        RoaringBitmap bitmap = new RoaringBitmap(Math.max(1, count));
+        for (int i = 0; i < count; i++) {
+            char key = in.readChar();
+            // Lookups binary-search the keys, so they must be strictly ascending
+            if (i > 0 && key <= bitmap.keys[i - 1]) {
+                throw new IllegalArgumentException("Container keys not ascending at container " + i);
+            }
+            byte type = in.readByte();
+            bitmap.appendContainer(key, Container.readPayload(type, in));
+        }
+        return bitmap;
+    }
+
+    public int serializedSizeInBytes() {
+        int bytes = 8;
+        for (int i = 0; i < size; i++) {
+            bytes += 3 + containers[i].payloadSizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            int newCapacity = Math.min(1 << 16, size * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach(value -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(Integer.toUnsignedString(value));
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,218 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Run-length container: sorted, non-overlapping {@code (start, length - 1)} pairs.
+ * Ideal for long stretches of consecutive ids. Produced by {@link RoaringBitmap#runOptimize()}.
+ */
+final class RunContainer extends Container {
+    private final char[] starts;
+    private final char[] lengths;
+    private final int runCount;
+
+    private RunContainer(char[] starts, char[] lengths, int runCount) {
+        this.starts = starts;
+        this.lengths = lengths;
+        this.runCount = runCount;
+    }
+
+    static int sizeInBytes(int runCount) {
+        return 2 + 4 * runCount;
+    }
+
+    static RunContainer fromWords(long[] words) {
+        int maxRuns = Container.WORDS * 32;
+        char[] starts = new char[maxRuns];
+        char[] lengths = new char[maxRuns];
+        int runs = 0;
+        int value = 0;
+        int limit = Container.WORDS * 64;
+        while (value < limit) {
+            int start = nextSetBit(words, value);
+            if (start < 0) {
+                break;
+            }
+            int end = nextClearBit(words, start);
+            starts[runs] = (char) start;
+            lengths[runs] = (char) (end - start - 1);
+            runs++;
+            value = end;
+        }
+        return new RunContainer(Arrays.copyOf(starts, runs), Arrays.copyOf(lengths, runs), runs);
+    }
+
+    private static int nextSetBit(long[] words, int from) {
+        int index = from >>> 6;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] words, int from) {
+        int index = from >>> 6;
+        long word = ~words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == words.length) {
+                return words.length << 6;
+            }
+            word = ~words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private Container toEfficientContainer() {
+        return Container.fromWords(words(), false);
+    }
+
+    @Override
+    Container add(char value) {
+        return contains(value) ? this : toEfficientContainer().add(value);
+    }
+
+    @Override
+    Container remove(char value) {
+        return contains(value) ? toEfficientContainer().remove(value) : this;
+    }
+
+    @Override
+    boolean contains(char value) {
+        // Last run whose start is <= value
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 && value - starts[high] <= lengths[high];
+    }
+
+    @Override
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < runCount; i++) {
+            cardinality += lengths[i] + 1;
+        }
+        return cardinality;
+    }
+
+    @Override
+    int numberOfRuns() {
+        return runCount;
+    }
+
+    @Override
+    int andCardinality(Container other) {
+        if (other instanceof ArrayContainer array) {
+            return array.countContainedIn(this);
+        }
+        if (!(other instanceof RunContainer runs)) {
+            // A bitmap container: count each run's range of its words
+            long[] words = other.words();
+            int cardinality = 0;
+            for (int i = 0; i < runCount; i++) {
+                cardinality += BitmapContainer.cardinalityInRange(words, starts[i], starts[i] + lengths[i]);
+            }
+            return cardinality;
+        }
+        // Both run lists are sorted: advance whichever run ends first
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < runCount && j < runs.runCount) {
+            int end = starts[i] + lengths[i];
+            int otherEnd = runs.starts[j] + runs.lengths[j];
+            int overlap = Math.min(end, otherEnd) - Math.max(starts[i], runs.starts[j]) + 1;
+            if (overlap > 0) {
+                cardinality += overlap;
+            }
+            if (end < otherEnd) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return cardinality;
+    }
+
+    @Override
+    void forEach(int high, IntConsumer action) {
+        for (int i = 0; i < runCount; i++) {
+            int end = starts[i] + lengths[i];
+            for (int value = starts[i]; value <= end; value++) {
+                action.accept(high | value);
+            }
+        }
+    }
+
+    @Override
+    Container copy() {
+        // Runs are never mutated in place
+        return this;
+    }
+
+    @Override
+    long[] words() {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < runCount; i++) {
+            BitmapContainer.setRange(words, starts[i], starts[i] + lengths[i]);
+        }
+        return words;
+    }
+
+    @Override
+    byte type() {
+        return RUN;
+    }
+
+    @Override
+    int payloadSizeInBytes() {
+        return sizeInBytes(runCount);
+    }
+
+    @Override
+    void writePayload(DataOutput out) throws IOException {
+        out.writeChar(runCount);
+        for (int i = 0; i < runCount; i++) {
+            out.writeChar(starts[i]);
+            out.writeChar(lengths[i]);
+        }
+    }
+
+    static RunContainer read(DataInput in) throws IOException {
+        int runCount = in.readChar();
+        if (runCount == 0) {
+            throw new IllegalArgumentException("Run container without runs");
+        }
+        char[] starts = new char[runCount];
+        char[] lengths = new char[runCount];
+        for (int i = 0; i < runCount; i++) {
+            starts[i] = in.readChar();
+            lengths[i] = in.readChar();
+            if (starts[i] + lengths[i] > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Run " + i + " extends past the container");
+            }
+            // Runs must be sorted and separated by at least one absent value
+            if (i > 0 && starts[i] <= starts[i - 1] + lengths[i - 1] + 1) {
+                throw new IllegalArgumentException("Run " + i + " overlaps or touches the previous run");
+            }
+        }
+        return new RunContainer(starts, lengths, runCount);
+    }
+}
@@ -0,0 +1,486 @@
+package com.jsamkt.learn.collections.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache bounded by entry count, with optional expire-after-write and W-TinyLFU eviction.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so lookups are lock-free. The eviction policy
+ * (LRU order, frequency sketch, expiry order) is only updated under a single lock, but reads never
+ * wait for it: a hit is recorded into a small per-thread-stripe ring buffer and the buffers are
+ * drained in batches by whichever thread manages to {@code tryLock()} the policy. Buffer slots that
+ * are full are simply dropped - losing a few access records only makes the LRU order slightly
+ * less precise.
+ * <p>
+ * Eviction follows W-TinyLFU: new entries go into a small LRU window (1% of capacity). Entries pushed
+ * out of the window compete with the main LRU's victim, and the one with the higher estimated
+ * access frequency (see {@link FrequencySketch}) stays. This protects frequently used entries from
+ * being flushed by a burst of one-off keys, which is the weak spot of plain
+ * {@code LinkedHashMap}-style LRU.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> {
+    private static final int BUFFER_SIZE = 16;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+    private static final int NO_QUEUE = 0;
+    private static final int WINDOW = 1;
+    private static final int MAIN = 2;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final int readBufferMask;
+    private final LongSupplier ticker;
+    private final long expireAfterWriteNanos;
+
+    // Policy state, guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> main = new AccessOrderDeque<>();
+    private final WriteOrderDeque<K, V> writeOrder = new WriteOrderDeque<>();
+    private final long maximumWindowSize;
+    private final long maximumMainSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public BoundedCache(long maximumSize) {
+        this(maximumSize, null);
+    }
+
+    /**
+     * @param maximumSize      upper bound on the number of entries
+     * @param expireAfterWrite how long an entry stays valid after it was written, or {@code null} for no expiry
+     */
+    public BoundedCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, System::nanoTime);
+    }
+
+    BoundedCache(long maximumSize, Duration expireAfterWrite, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        if (expireAfterWrite != null && (expireAfterWrite.isNegative() || expireAfterWrite.isZero())) {
+            throw new IllegalArgumentException("Expiry must be positive: " + expireAfterWrite);
+        }
+        this.maximumWindowSize = Math.max(1, maximumSize / 100);
+        this.maximumMainSize = maximumSize - maximumWindowSize;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? Long.MAX_VALUE : expireAfterWrite.toNanos();
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch(maximumSize);
+
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ReadBuffer<K, V>[] buffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+        this.readBufferMask = stripes - 1;
+    }
+
+    /**
+     * @return the cached value, or {@code null} if absent or expired
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null || node.isExpired(ticker.getAsLong(), expireAfterWriteNanos)) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        afterRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value, computing and caching it on a miss. Concurrent callers for the same
+     * absent key wait for a single computation.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        Node<K, V>[] created = newNodeHolder();
+        Node<K, V>[] replaced = newNodeHolder();
+        long now = ticker.getAsLong();
+        Node<K, V> node = data.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isExpired(now, expireAfterWriteNanos)) {
+                return existing;
+            }
+            V value = Objects.requireNonNull(loader.apply(k), "loader returned null");
+            if (existing != null) {
+                existing.retired = true;
+                replaced[0] = existing;
+            }
+            created[0] = new Node<>(k, value, now);
+            return created[0];
+        });
+        if (created[0] != null) {
+            afterWrite(created[0], true, replaced[0]);
+        }
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(value, "value");
+        Node<K, V>[] created = newNodeHolder();
+        long now = ticker.getAsLong();
+        Node<K, V> node = data.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.value = value;
+                existing.writeTime = now;
+                return existing;
+            }
+            created[0] = new Node<>(k, value, now);
+            return created[0];
+        });
+        afterWrite(node, created[0] != null, null);
+    }
+
+    public void invalidate(K key) {
+        Node<K, V>[] removed = newNodeHolder();
+        data.computeIfPresent(key, (k, existing) -> {
+            existing.retired = true;
+            removed[0] = existing;
+            return null;
+        });
+        if (removed[0] != null) {
+            evictionLock.lock();
+            try {
+                unlink(removed[0]);
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Approximate number of entries; may briefly exceed the maximum until pending maintenance runs.
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Drains pending read records and evicts expired or excess entries now.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[] newNodeHolder() {
+        return new Node[1];
+    }
+
+    private void afterRead(Node<K, V> node) {
+        int stripe = (int) mixThreadId(Thread.currentThread().threadId()) & readBufferMask;
+        boolean shouldDrain = readBuffers[stripe].offer(node);
+        if (shouldDrain && evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @param replaced the expired node that {@code node} took the place of in the map, or {@code null}
+     */
+    private void afterWrite(Node<K, V> node, boolean isNew, Node<K, V> replaced) {
+        evictionLock.lock();
+        try {
+            if (replaced != null) {
+                // Out of the map already, but still linked and counted against its queue's size
+                unlink(replaced);
+                evictionCount.increment();
+            }
+            if (!node.retired) {
+                sketch.increment(node.key);
+                if (isNew) {
+                    node.queue = WINDOW;
+                    window.addLast(node);
+                    writeOrder.addLast(node);
+                } else if (node.queue != NO_QUEUE) {
+                    onAccess(node);
+                    writeOrder.moveToEnd(node);
+                }
+            }
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Must hold evictionLock
+    private void maintenance() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+        expireEntries();
+        evictFromWindow();
+    }
+
+    // Must hold evictionLock
+    private void onAccess(Node<K, V> node) {
+        if (node.retired) {
+            return;
+        }
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToEnd(node);
+        } else if (node.queue == MAIN) {
+            main.moveToEnd(node);
+        }
+    }
+
+    private void expireEntries() {
+        if (expireAfterWriteNanos == Long.MAX_VALUE) {
+            return;
+        }
+        long now = ticker.getAsLong();
+        Node<K, V> node;
+        while ((node = writeOrder.first()) != null && node.isExpired(now, expireAfterWriteNanos)) {
+            evict(node);
+        }
+    }
+
+    private void evictFromWindow() {
+        while (window.size() > maximumWindowSize) {
+            Node<K, V> candidate = window.first();
+            window.remove(candidate);
+            if (main.size() < maximumMainSize) {
+                candidate.queue = MAIN;
+                main.addLast(candidate);
+                continue;
+            }
+            Node<K, V> victim = main.first();
+            // TinyLFU admission: the candidate only gets in if it has been used more often than the victim
+            if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+                candidate.queue = MAIN;
+                main.addLast(candidate);
+            } else {
+                candidate.queue = NO_QUEUE;
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        data.computeIfPresent(node.key, (k, existing) -> {
+            if (existing == node) {
+                node.retired = true;
+                return null;
+            }
+            return existing;
+        });
+        unlink(node);
+        evictionCount.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+        } else if (node.queue == MAIN) {
+            main.remove(node);
+        }
+        node.queue = NO_QUEUE;
+        writeOrder.remove(node);
+    }
+
+    private static long mixThreadId(long id) {
+        id *= 0x9E3779B97F4A7C15L;
+        return id ^ (id >>> 32);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        volatile boolean retired;
+
+        // Guarded by evictionLock
+        int queue;
+        Node<K, V> accessPrev;
+        Node<K, V> accessNext;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+        boolean inWriteOrder;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        boolean isExpired(long now, long expireAfterWriteNanos) {
+            return now - writeTime >= expireAfterWriteNanos;
+        }
+    }
+
+    /**
+     * Lossy ring buffer of recent hits for one stripe of threads. Producers claim a slot with a CAS
+     * on the write counter; only the thread holding the eviction lock consumes.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        /**
+         * @return {@code true} if the buffer is full enough that it should be drained
+         */
+        boolean offer(Node<K, V> node) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            long pending = tail - head;
+            if (pending >= BUFFER_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & BUFFER_MASK), node);
+                return pending + 1 >= DRAIN_THRESHOLD;
+            }
+            // Lost the race with another reader of this stripe; dropping the record is fine
+            return false;
+        }
+
+        void drainTo(BoundedCache<K, V> cache) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & BUFFER_MASK);
+                Node<K, V> node = slots.get(index);
+                if (node == null) {
+                    // Slot claimed but not yet published
+                    break;
+                }
+                slots.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            readCounter = head;
+        }
+    }
+
+    private static final class AccessOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private long size;
+
+        long size() {
+            return size;
+        }
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.accessPrev = tail;
+            node.accessNext = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.accessNext = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.accessPrev == null) {
+                head = node.accessNext;
+            } else {
+                node.accessPrev.accessNext = node.accessNext;
+            }
+            if (node.accessNext == null) {
+                tail = node.accessPrev;
+            } else {
+                node.accessNext.accessPrev = node.accessPrev;
+            }
+            node.accessPrev = null;
+            node.accessNext = null;
+            size--;
+        }
+
+        void moveToEnd(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    private static final class WriteOrderDeque<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.writePrev = tail;
+            node.writeNext = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.writeNext = node;
+            }
+            tail = node;
+            node.inWriteOrder = true;
+        }
+
+        void remove(Node<K, V> node) {
+            if (!node.inWriteOrder) {
+                return;
+            }
+            if (node.writePrev == null) {
+                head = node.writeNext;
+            } else {
+                node.writePrev.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                tail = node.writePrev;
+            } else {
+                node.writeNext.writePrev = node.writePrev;
+            }
+            node.writePrev = null;
+            node.writeNext = null;
+            node.inWriteOrder = false;
+        }
+
+        void moveToEnd(Node<K, V> node) {
+            if (node.inWriteOrder && node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.jsamkt.learn.collections.cache;
+
+/**
+ * Point-in-time snapshot of a cache's counters.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Entries removed because the cache was full or the entry expired (explicit invalidations are not counted).
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, hitRate=%.2f}",
+                hitCount, missCount, evictionCount, hitRate());
+    }
+}
@@ -0,0 +1,345 @@
+package com.jsamkt.learn.collections.cache;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Concurrent, memory-sensitive map with weak or soft keys and/or values.
+ * <p>
+ * {@link java.util.WeakHashMap} is not thread-safe and wrapping it in {@code synchronizedMap}
+ * serializes every access. This cache stores reference wrappers in a {@link ConcurrentHashMap}
+ * instead. Every wrapper is registered with a {@link ReferenceQueue}, so when the collector clears
+ * a key or value the queue tells us exactly which entry went stale. Writes drain the queue, and the
+ * optional background mode blocks on it in a daemon thread. Neither mode scans the table.
+ * <p>
+ * Weak and soft keys are compared with {@code equals}, like {@code WeakHashMap}. Lookups go through a
+ * short-lived holder, so reads do not create {@link Reference} objects.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ReferenceCache<K, V> implements AutoCloseable {
+    private static final int MAX_DRAIN_PER_WRITE = 1_000;
+
+    private final ConcurrentHashMap<Object, Object> map = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private final ReferenceStrength keyStrength;
+    private final ReferenceStrength valueStrength;
+    private final Thread cleaner;
+
+    public ReferenceCache(ReferenceStrength keyStrength, ReferenceStrength valueStrength) {
+        this(keyStrength, valueStrength, false);
+    }
+
+    /**
+     * @param backgroundCleanup if {@code true}, a daemon thread removes stale entries as soon as the
+     *                          collector enqueues them; otherwise they are removed on the next write
+     *                          or {@link #cleanUp()}
+     */
+    public ReferenceCache(ReferenceStrength keyStrength, ReferenceStrength valueStrength, boolean backgroundCleanup) {
+        this.keyStrength = Objects.requireNonNull(keyStrength, "keyStrength");
+        this.valueStrength = Objects.requireNonNull(valueStrength, "valueStrength");
+        if (backgroundCleanup) {
+            cleaner = new Thread(this::cleanUpLoop, "reference-cache-cleaner");
+            cleaner.setDaemon(true);
+            cleaner.start();
+        } else {
+            cleaner = null;
+        }
+    }
+
+    public static <K, V> ReferenceCache<K, V> weakKeys() {
+        return new ReferenceCache<>(ReferenceStrength.WEAK, ReferenceStrength.STRONG);
+    }
+
+    public static <K, V> ReferenceCache<K, V> softValues() {
+        return new ReferenceCache<>(ReferenceStrength.STRONG, ReferenceStrength.SOFT);
+    }
+
+    public V get(K key) {
+        Object stored = map.get(lookupKey(key));
+        return stored == null ? null : unwrapValue(stored);
+    }
+
+    /**
+     * @return the previous live value, or {@code null}
+     */
+    public V put(K key, V value) {
+        Objects.requireNonNull(value, "value");
+        drainQueue(MAX_DRAIN_PER_WRITE);
+        Object storedKey = wrapKey(key);
+        Object previous = map.put(storedKey, wrapValue(storedKey, value));
+        return previous == null ? null : unwrapValue(previous);
+    }
+
+    /**
+     * Returns the live value for {@code key}, computing it atomically if absent or already collected.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        drainQueue(MAX_DRAIN_PER_WRITE);
+        Object storedKey = wrapKey(key);
+        @SuppressWarnings("unchecked")
+        V[] result = (V[]) new Object[1];
+        map.compute(storedKey, (k, current) -> {
+            V live = current == null ? null : unwrapValue(current);
+            if (live != null) {
+                result[0] = live;
+                return current;
+            }
+            V created = mappingFunction.apply(key);
+            result[0] = created;
+            return created == null ? null : wrapValue(storedKey, created);
+        });
+        return result[0];
+    }
+
+    /**
+     * @return the removed live value, or {@code null}
+     */
+    public V remove(K key) {
+        drainQueue(MAX_DRAIN_PER_WRITE);
+        Object removed = map.remove(lookupKey(key));
+        return removed == null ? null : unwrapValue(removed);
+    }
+
+    /**
+     * Number of mappings, including entries whose referent was collected but not yet drained.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * Removes every entry whose key or value has been collected and enqueued so far.
+     */
+    public void cleanUp() {
+        drainQueue(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Stops the background cleaner, if any. The cache itself stays usable.
+     */
+    @Override
+    public void close() {
+        if (cleaner != null) {
+            cleaner.interrupt();
+        }
+    }
+
+    private void drainQueue(int limit) {
+        Reference<?> reference;
+        for (int i = 0; i < limit && (reference = queue.poll()) != null; i++) {
+            removeStale(reference);
+        }
+    }
+
+    private void cleanUpLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                removeStale(queue.remove());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void removeStale(Reference<?> reference) {
+        if (reference instanceof ValueReference<?> valueReference) {
+            // Only remove if the entry still holds this exact value reference
+            map.remove(valueReference.storedKey(), valueReference);
+        } else {
+            // A cleared key reference is only equal to itself, so this removes exactly its entry
+            map.remove(reference);
+        }
+    }
+
+    private Object lookupKey(K key) {
+        Objects.requireNonNull(key, "key");
+        return keyStrength == ReferenceStrength.STRONG ? key : new LookupKey(key);
+    }
+
+    private Object wrapKey(K key) {
+        Objects.requireNonNull(key, "key");
+        return switch (keyStrength) {
+            case STRONG -> key;
+            case WEAK -> new WeakKeyReference(key, queue);
+            case SOFT -> new SoftKeyReference(key, queue);
+        };
+    }
+
+    private Object wrapValue(Object storedKey, V value) {
+        return switch (valueStrength) {
+            case STRONG -> value;
+            case WEAK -> new WeakValueReference<>(storedKey, value, queue);
+            case SOFT -> new SoftValueReference<>(storedKey, value, queue);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrapValue(Object stored) {
+        return stored instanceof ValueReference<?> reference ? (V) reference.value() : (V) stored;
+    }
+
+    /**
+     * Common view of the three key holders so that they compare equal to each other by referent.
+     */
+    private interface KeyHolder {
+        Object referent();
+
+        int storedHash();
+
+        static boolean equal(KeyHolder self, Object other) {
+            if (self == other) {
+                return true;
+            }
+            if (!(other instanceof KeyHolder holder) || self.storedHash() != holder.storedHash()) {
+                return false;
+            }
+            Object referent = self.referent();
+            return referent != null && referent.equals(holder.referent());
+        }
+    }
+
+    private static final class LookupKey implements KeyHolder {
+        private final Object key;
+        private final int hash;
+
+        LookupKey(Object key) {
+            this.key = key;
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public Object referent() {
+            return key;
+        }
+
+        @Override
+        public int storedHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return KeyHolder.equal(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class WeakKeyReference extends WeakReference<Object> implements KeyHolder {
+        private final int hash;
+
+        WeakKeyReference(Object key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int storedHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return KeyHolder.equal(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class SoftKeyReference extends SoftReference<Object> implements KeyHolder {
+        private final int hash;
+
+        SoftKeyReference(Object key, ReferenceQueue<Object> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int storedHash() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return KeyHolder.equal(this, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private interface ValueReference<V> {
+        V value();
+
+        Object storedKey();
+    }
+
+    private static final class WeakValueReference<V> extends WeakReference<Object> implements ValueReference<V> {
+        private final Object storedKey;
+
+        WeakValueReference(Object storedKey, V value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.storedKey = storedKey;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V value() {
+            return (V) get();
+        }
+
+        @Override
+        public Object storedKey() {
+            return storedKey;
+        }
+    }
+
+    private static final class SoftValueReference<V> extends SoftReference<Object> implements ValueReference<V> {
+        private final Object storedKey;
+
+        SoftValueReference(Object storedKey, V value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.storedKey = storedKey;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V value() {
+            return (V) get();
+        }
+
+        @Override
+        public Object storedKey() {
+            return storedKey;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.jsamkt.learn.collections.cache;
+
+/**
+ * How strongly a {@link ReferenceCache} holds its keys or values.
+ */
+public enum ReferenceStrength {
+    /** Ordinary reference, never collected while cached. */
+    STRONG,
+    /** Collected as soon as nothing else references it (like {@link java.util.WeakHashMap} keys). */
+    WEAK,
+    /** Collected only when the heap runs low, so the cache shrinks under memory pressure. */
+    SOFT
+}
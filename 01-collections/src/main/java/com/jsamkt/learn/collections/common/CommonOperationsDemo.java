@@ -1,12 +1,18 @@
 package com.jsamkt.learn.collections.common;
 
+import com.jsamkt.learn.collections.sketch.BloomFilter;
+import com.jsamkt.learn.collections.sketch.HyperLogLog;
+
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 public class CommonOperationsDemo {
 
     public static void demo(){
         demonstrateCommonOperations();
+        demonstrateColumnarOperations();
+        demonstrateApproximateOperations();
     }
 
     private static void demonstrateCommonOperations() {
@@ -50,6 +56,12 @@ public class CommonOperationsDemo {
                 .collect(Collectors.toSet());
         System.out.println("Unique names: " + uniqueNames);
 
+        // Approximate distinct count: fixed-size registers instead of a set holding every name
+        HyperLogLog nameSketch = people.stream()
+                .map(p -> p.name)
+                .collect(HyperLogLog.toHyperLogLog(12));
+        System.out.println("Unique names (estimated): " + nameSketch.cardinality());
+
         // Joining
         String namesJoined = people.stream()
                 .map(p -> p.name)
@@ -74,6 +86,95 @@ public class CommonOperationsDemo {
         System.out.println("Oldest person: " + oldest.orElse(null));
     }
 
+    private static void demonstrateColumnarOperations() {
+        System.out.println("\n--- Columnar Operations (PersonTable) ---");
+
+        // Same queries as above, over int columns and selection vectors instead of Person objects
+        PersonTable table = PersonTable.from(Arrays.asList(
+                new Person("Alice", 28),
+                new Person("Bob", 35),
+                new Person("Charlie", 22),
+                new Person("Alice", 40)
+        ));
+        int[] all = table.selectAll();
+
+        // Filtering
+        int[] young = table.filterAgeLessThan(all, 30);
+        System.out.println("Young people (age < 30): " + table.format(young));
+
+        // Finding
+        int[] alices = table.filterByName(all, "Alice");
+        System.out.println("First person named Alice: " + (alices.length > 0 ? table.formatRow(alices[0]) : null));
+
+        // Grouping
+        int[][] groups = table.groupByName(all);
+        StringBuilder grouped = new StringBuilder("{");
+        for (int code = 0; code < groups.length; code++) {
+            if (code > 0) {
+                grouped.append(", ");
+            }
+            grouped.append(table.nameOf(code)).append('=').append(table.format(groups[code]));
+        }
+        System.out.println("People grouped by name: " + grouped.append('}'));
+
+        // Distinct names come from the dictionary codes, no string hashing per row
+        List<String> uniqueNames = new ArrayList<>();
+        for (int row : table.distinctNames(all)) {
+            uniqueNames.add(table.name(row));
+        }
+        System.out.println("Unique names: " + uniqueNames);
+
+        // Sorting
+        System.out.println("People sorted by age: " + table.format(table.sortByAge(all)));
+
+        // Reducing
+        System.out.println("Total age of all people: " + table.sumAge(all));
+
+        // Finding max
+        int oldest = table.maxAgeRow(all);
+        System.out.println("Oldest person: " + (oldest >= 0 ? table.formatRow(oldest) : null));
+    }
+
+    private static void demonstrateApproximateOperations() {
+        System.out.println("\n--- Approximate Operations (Sketches) ---");
+
+        // Distinct ids with repeats: an exact set keeps every id, the sketch keeps 16 KB of registers
+        long ids = 5_000_000;
+        long distinct = 2_000_000;
+
+        long start = System.nanoTime();
+        Set<Long> exact = LongStream.range(0, ids)
+                .map(i -> i * 7919 % distinct)
+                .boxed()
+                .collect(Collectors.toSet());
+        long exactTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        HyperLogLog sketch = LongStream.range(0, ids)
+                .parallel()
+                .map(i -> i * 7919 % distinct)
+                .boxed()
+                .collect(HyperLogLog.toHyperLogLog(14)); // Per-thread sketches are merged by the collector
+        long sketchTime = System.nanoTime() - start;
+
+        System.out.printf("Exact distinct ids: %d (%.2f ms, HashSet of %d boxed ids)%n",
+                exact.size(), exactTime / 1_000_000.0, exact.size());
+        System.out.printf("HyperLogLog estimate: %d (%.2f ms, %d bytes, error %.2f%%)%n",
+                sketch.cardinality(), sketchTime / 1_000_000.0, sketch.sizeInBytes(),
+                100.0 * (sketch.cardinality() - exact.size()) / exact.size());
+
+        // Membership pre-check: no false negatives, about 1% false positives at ~1.3 MB per million ids
+        BloomFilter seen = LongStream.range(0, distinct)
+                .boxed()
+                .collect(BloomFilter.toBloomFilter(distinct, 0.01));
+        long falsePositives = LongStream.range(distinct, 2 * distinct)
+                .filter(seen::mightContain)
+                .count();
+        System.out.println(seen);
+        System.out.printf("Measured false-positive rate: %.4f (%d bytes)%n",
+                (double) falsePositives / distinct, seen.bitSize() / 8);
+    }
+
     // Simple class for demonstration
     static class Person {
         String name;
@@ -0,0 +1,256 @@
+package com.jsamkt.learn.collections.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Column-oriented (struct-of-arrays) storage for the {@code Person} rows used in {@link CommonOperationsDemo}.
+ * <p>
+ * Names are dictionary-encoded: each distinct name gets an int code and the name column is an {@code int[]}
+ * of codes. Ages are a plain {@code int[]}. Query operators work on <em>selection vectors</em> - {@code int[]}
+ * arrays of row indices - so a filter produces a smaller selection without copying any row, and later
+ * operators (sort, group, sum, max) run over primitive arrays instead of chasing {@code Person} pointers.
+ * Not thread-safe while rows are being added.
+ */
+public class PersonTable {
+    private final Map<String, Integer> codesByName = new HashMap<>();
+    private String[] dictionary = new String[16];
+    private int dictionarySize;
+
+    private int[] nameCodes;
+    private int[] ages;
+    private int rowCount;
+
+    public PersonTable() {
+        this(16);
+    }
+
+    public PersonTable(int expectedRows) {
+        int capacity = Math.max(expectedRows, 1);
+        nameCodes = new int[capacity];
+        ages = new int[capacity];
+    }
+
+    static PersonTable from(List<CommonOperationsDemo.Person> people) {
+        PersonTable table = new PersonTable(people.size());
+        for (CommonOperationsDemo.Person person : people) {
+            table.add(person.name, person.age);
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row and returns its index.
+     */
+    public int add(String name, int age) {
+        if (rowCount == ages.length) {
+            int newCapacity = rowCount + (rowCount >> 1) + 1;
+            nameCodes = Arrays.copyOf(nameCodes, newCapacity);
+            ages = Arrays.copyOf(ages, newCapacity);
+        }
+        nameCodes[rowCount] = encode(name);
+        ages[rowCount] = age;
+        return rowCount++;
+    }
+
+    private int encode(String name) {
+        Integer code = codesByName.get(name);
+        if (code != null) {
+            return code;
+        }
+        if (dictionarySize == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+        dictionary[dictionarySize] = name;
+        codesByName.put(name, dictionarySize);
+        return dictionarySize++;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public int dictionarySize() {
+        return dictionarySize;
+    }
+
+    public String name(int row) {
+        return dictionary[nameCodes[row]];
+    }
+
+    public int age(int row) {
+        return ages[row];
+    }
+
+    public String nameOf(int code) {
+        return dictionary[code];
+    }
+
+    /**
+     * @return the dictionary code of {@code name}, or {@code -1} if no row has that name
+     */
+    public int codeOf(String name) {
+        Integer code = codesByName.get(name);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * A selection vector covering every row.
+     */
+    public int[] selectAll() {
+        int[] selection = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            selection[i] = i;
+        }
+        return selection;
+    }
+
+    public int[] filterByAge(int[] selection, IntPredicate predicate) {
+        int[] result = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            if (predicate.test(ages[row])) {
+                result[count++] = row;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public int[] filterAgeLessThan(int[] selection, int bound) {
+        // Specialized loop without the predicate call, simple enough for the JIT to unroll
+        int[] result = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            result[count] = row;
+            count += ages[row] < bound ? 1 : 0;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Keeps the rows whose name equals {@code name}. The string is resolved to its code once,
+     * after which the scan only compares ints.
+     */
+    public int[] filterByName(int[] selection, String name) {
+        int code = codeOf(name);
+        if (code < 0) {
+            return new int[0];
+        }
+        int[] result = new int[selection.length];
+        int count = 0;
+        for (int row : selection) {
+            result[count] = row;
+            count += nameCodes[row] == code ? 1 : 0;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the selection ordered by ascending age. Ties keep their original order.
+     */
+    public int[] sortByAge(int[] selection) {
+        // Pack (age, position) into one long so a primitive sort does the work and stays stable;
+        // the age in the high half keeps its sign, so signed long order is age order
+        long[] packed = new long[selection.length];
+        for (int i = 0; i < selection.length; i++) {
+            packed[i] = ((long) ages[selection[i]] << 32) | i;
+        }
+        Arrays.sort(packed);
+        int[] result = new int[selection.length];
+        for (int i = 0; i < packed.length; i++) {
+            result[i] = selection[(int) packed[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Groups the selection by name with a counting sort over dictionary codes.
+     *
+     * @return one selection vector per dictionary code; codes with no selected rows map to an empty array
+     */
+    public int[][] groupByName(int[] selection) {
+        int[] counts = countByName(selection);
+        int[][] groups = new int[dictionarySize][];
+        for (int code = 0; code < dictionarySize; code++) {
+            groups[code] = new int[counts[code]];
+        }
+        int[] fill = new int[dictionarySize];
+        for (int row : selection) {
+            int code = nameCodes[row];
+            groups[code][fill[code]++] = row;
+        }
+        return groups;
+    }
+
+    /**
+     * @return row counts indexed by dictionary code
+     */
+    public int[] countByName(int[] selection) {
+        int[] counts = new int[dictionarySize];
+        for (int row : selection) {
+            counts[nameCodes[row]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * @return a selection vector with one row per distinct name (the first occurrence)
+     */
+    public int[] distinctNames(int[] selection) {
+        boolean[] seen = new boolean[dictionarySize];
+        int[] result = new int[Math.min(selection.length, dictionarySize)];
+        int count = 0;
+        for (int row : selection) {
+            int code = nameCodes[row];
+            if (!seen[code]) {
+                seen[code] = true;
+                result[count++] = row;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    public long sumAge(int[] selection) {
+        long sum = 0;
+        for (int row : selection) {
+            sum += ages[row];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the row with the greatest age (the first one on ties), or {@code -1} for an empty selection
+     */
+    public int maxAgeRow(int[] selection) {
+        int best = -1;
+        int bestAge = Integer.MIN_VALUE;
+        for (int row : selection) {
+            if (best < 0 || ages[row] > bestAge) {
+                best = row;
+                bestAge = ages[row];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Renders the selected rows the same way {@code Person.toString()} does, e.g. {@code [Alice(28), Bob(35)]}.
+     */
+    public String format(int[] selection) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < selection.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(formatRow(selection[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    public String formatRow(int row) {
+        return name(row) + "(" + ages[row] + ")";
+    }
+}
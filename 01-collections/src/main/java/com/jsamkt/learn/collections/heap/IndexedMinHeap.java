@@ -0,0 +1,161 @@
+package com.jsamkt.learn.collections.heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * d-ary min-heap of element ids {@code 0..capacity-1}, each with a {@code long} priority,
+ * supporting {@link #decreaseKey(int, long)} in O(log n).
+ * <p>
+ * A position index maps every id to its slot in the heap array, so an element can be found and
+ * sifted up without searching. {@code PriorityQueue} has no such operation; the usual workaround is
+ * inserting duplicates and skipping stale ones on poll, which grows the queue.
+ * Not thread-safe.
+ */
+public class IndexedMinHeap {
+    private final int arityShift;
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        this(capacity, 4);
+    }
+
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            throw new IllegalArgumentException("Arity must be a power of two >= 2: " + arity);
+        }
+        this.arityShift = Integer.numberOfTrailingZeros(arity);
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    public long keyOf(int id) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("Id not in heap: " + id);
+        }
+        return keys[id];
+    }
+
+    public void insert(int id, long key) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Id already in heap: " + id);
+        }
+        keys[id] = key;
+        siftUp(size++, id);
+    }
+
+    public void decreaseKey(int id, long key) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("Id not in heap: " + id);
+        }
+        if (key > keys[id]) {
+            throw new IllegalArgumentException("New key " + key + " is greater than current key " + keys[id]);
+        }
+        keys[id] = key;
+        siftUp(positions[id], id);
+    }
+
+    /**
+     * Inserts {@code id} or lowers its key, whichever applies; does nothing if the current key is already smaller.
+     *
+     * @return {@code true} if the heap changed
+     */
+    public boolean insertOrDecrease(int id, long key) {
+        if (!contains(id)) {
+            insert(id, key);
+            return true;
+        }
+        if (key < keys[id]) {
+            decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    public int peekId() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    public long peekKey() {
+        return keys[peekId()];
+    }
+
+    /**
+     * Removes the element with the smallest key and returns its id.
+     */
+    public int poll() {
+        int min = peekId();
+        positions[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return min;
+    }
+
+    private void siftUp(int index, int id) {
+        long key = keys[id];
+        while (index > 0) {
+            int parent = (index - 1) >>> arityShift;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[index] = parentId;
+            positions[parentId] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+
+    private void siftDown(int index, int id) {
+        long key = keys[id];
+        int n = size;
+        while (true) {
+            int firstChild = (index << arityShift) + 1;
+            if (firstChild >= n) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + (1 << arityShift), n);
+            int minChild = firstChild;
+            long minKey = keys[heap[firstChild]];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                long childKey = keys[heap[child]];
+                if (childKey < minKey) {
+                    minKey = childKey;
+                    minChild = child;
+                }
+            }
+            if (key <= minKey) {
+                break;
+            }
+            int childId = heap[minChild];
+            heap[index] = childId;
+            positions[childId] = index;
+            index = minChild;
+        }
+        heap[index] = id;
+        positions[id] = index;
+    }
+}
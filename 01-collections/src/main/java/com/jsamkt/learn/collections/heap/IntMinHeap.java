@@ -0,0 +1,110 @@
+package com.jsamkt.learn.collections.heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Min-heap of primitive {@code int} values with a configurable, power-of-two arity.
+ * <p>
+ * A 4- or 8-ary heap is shallower than a binary heap and the children of a node sit next to each
+ * other in the array, so a sift-down touches fewer cache lines. Compared to
+ * {@code PriorityQueue<Integer>} there is no boxing and no comparator call per comparison.
+ * Not thread-safe.
+ */
+public class IntMinHeap {
+    private final int arityShift;
+    private int[] heap;
+    private int size;
+
+    public IntMinHeap() {
+        this(4);
+    }
+
+    public IntMinHeap(int arity) {
+        this(arity, 16);
+    }
+
+    public IntMinHeap(int arity, int initialCapacity) {
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            throw new IllegalArgumentException("Arity must be a power of two >= 2: " + arity);
+        }
+        this.arityShift = Integer.numberOfTrailingZeros(arity);
+        this.heap = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void add(int value) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size + (size >> 1) + 1);
+        }
+        siftUp(size++, value);
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int min = heap[0];
+        int last = heap[--size];
+        if (size > 0) {
+            siftDown(0, last);
+        }
+        return min;
+    }
+
+    private void siftUp(int index, int value) {
+        while (index > 0) {
+            int parent = (index - 1) >>> arityShift;
+            int parentValue = heap[parent];
+            if (parentValue <= value) {
+                break;
+            }
+            heap[index] = parentValue;
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private void siftDown(int index, int value) {
+        int n = size;
+        while (true) {
+            int firstChild = (index << arityShift) + 1;
+            if (firstChild >= n) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + (1 << arityShift), n);
+            int minChild = firstChild;
+            int minValue = heap[firstChild];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (heap[child] < minValue) {
+                    minValue = heap[child];
+                    minChild = child;
+                }
+            }
+            if (value <= minValue) {
+                break;
+            }
+            heap[index] = minValue;
+            index = minChild;
+        }
+        heap[index] = value;
+    }
+}
@@ -0,0 +1,105 @@
+package com.jsamkt.learn.collections.heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone priority queue for non-negative {@code long} keys with an {@code int} payload,
+ * as used by Dijkstra's algorithm where extracted distances never decrease.
+ * <p>
+ * Entries are kept in 65 buckets; bucket {@code i} holds keys whose highest bit differing from the
+ * last extracted minimum is bit {@code i - 1}. Pushing is O(1), and each entry is moved to a lower
+ * bucket at most 64 times over its lifetime, so there is no per-operation log n comparison chain.
+ * Keys smaller than the last extracted minimum are rejected. Not thread-safe.
+ */
+public class RadixHeap {
+    private static final int BUCKETS = 65;
+
+    private final long[][] bucketKeys = new long[BUCKETS][];
+    private final int[][] bucketValues = new int[BUCKETS][];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private long last;
+    private int size;
+
+    public RadixHeap() {
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketKeys[i] = new long[4];
+            bucketValues[i] = new int[4];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void push(long key, int value) {
+        if (key < last) {
+            throw new IllegalArgumentException("Key " + key + " is below the last extracted minimum " + last);
+        }
+        append(bucketOf(key), key, value);
+        size++;
+    }
+
+    /**
+     * @return the smallest key currently in the heap
+     */
+    public long peekKey() {
+        refillBucketZero();
+        return last;
+    }
+
+    /**
+     * Removes an entry with the smallest key and returns its payload; use {@link #peekKey()} first to get the key.
+     */
+    public int poll() {
+        refillBucketZero();
+        size--;
+        return bucketValues[0][--bucketSizes[0]];
+    }
+
+    private void refillBucketZero() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        if (bucketSizes[0] > 0) {
+            return;
+        }
+        int bucket = 1;
+        while (bucketSizes[bucket] == 0) {
+            bucket++;
+        }
+        long[] keys = bucketKeys[bucket];
+        int[] values = bucketValues[bucket];
+        int count = bucketSizes[bucket];
+        long min = keys[0];
+        for (int i = 1; i < count; i++) {
+            min = Math.min(min, keys[i]);
+        }
+        last = min;
+        // Relative to the new minimum every entry of this bucket lands in a strictly lower bucket
+        bucketSizes[bucket] = 0;
+        for (int i = 0; i < count; i++) {
+            append(bucketOf(keys[i]), keys[i], values[i]);
+        }
+    }
+
+    private int bucketOf(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void append(int bucket, long key, int value) {
+        int count = bucketSizes[bucket];
+        if (count == bucketKeys[bucket].length) {
+            int newLength = count * 2;
+            bucketKeys[bucket] = Arrays.copyOf(bucketKeys[bucket], newLength);
+            bucketValues[bucket] = Arrays.copyOf(bucketValues[bucket], newLength);
+        }
+        bucketKeys[bucket][count] = key;
+        bucketValues[bucket][count] = value;
+        bucketSizes[bucket] = count + 1;
+    }
+}
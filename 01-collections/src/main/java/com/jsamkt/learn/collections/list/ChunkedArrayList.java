@@ -0,0 +1,243 @@
+package com.jsamkt.learn.collections.list;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A {@link java.util.List} stored as a sequence of small array blocks (a tiered vector).
+ * <p>
+ * Inserting or removing in the middle only shifts elements inside one block and then
+ * updates the start offsets of the blocks after it, so with block capacity B the cost is
+ * O(B + n/B). That is O(√n) while B is close to √n: the default of 512 suits lists up to a
+ * few hundred thousand elements, and larger lists should pass a bigger capacity. The block
+ * size is fixed, so for much larger n the offset update is still linear, only with a
+ * 1/B constant factor compared to {@link java.util.ArrayList} shifting.
+ * Removal merges a block that falls below half capacity into a neighbour when both fit
+ * in three quarters of a block, so the block count stays O(n/B) after heavy removal.
+ * Random access finds the block with a binary search over the start offsets and caches
+ * the last block used, so sequential and nearby access is effectively O(1).
+ * Not thread-safe.
+ *
+ * @param <E> the element type
+ */
+public class ChunkedArrayList<E> extends AbstractList<E> implements RandomAccess {
+    private static final int DEFAULT_BLOCK_CAPACITY = 512;
+
+    private final int blockCapacity;
+    private Object[][] blocks;
+    private int[] blockSizes;
+    private int[] blockStarts;
+    private int blockCount;
+    private int size;
+    private int lastBlock;
+
+    public ChunkedArrayList() {
+        this(DEFAULT_BLOCK_CAPACITY);
+    }
+
+    public ChunkedArrayList(int blockCapacity) {
+        if (blockCapacity < 2) {
+            throw new IllegalArgumentException("Block capacity must be at least 2: " + blockCapacity);
+        }
+        this.blockCapacity = blockCapacity;
+        this.blocks = new Object[8][];
+        this.blockSizes = new int[8];
+        this.blockStarts = new int[8];
+    }
+
+    public ChunkedArrayList(Collection<? extends E> source) {
+        this();
+        for (E element : source) {
+            append(element);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        int block = blockOf(index);
+        return (E) blocks[block][index - blockStarts[block]];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index, size);
+        int block = blockOf(index);
+        Object[] data = blocks[block];
+        int offset = index - blockStarts[block];
+        E previous = (E) data[offset];
+        data[offset] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(E element) {
+        append(element);
+        return true;
+    }
+
+    // Fast path for appends: fill the last block, then open a new one. Private, so the constructor can use it
+    private void append(E element) {
+        if (blockCount == 0 || blockSizes[blockCount - 1] == blockCapacity) {
+            insertBlock(blockCount, new Object[blockCapacity], size);
+        }
+        int last = blockCount - 1;
+        blocks[last][blockSizes[last]++] = element;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size + 1);
+        if (index == size) {
+            append(element);
+            return;
+        }
+        int block = blockOf(index);
+        if (blockSizes[block] == blockCapacity) {
+            splitBlock(block);
+            if (index - blockStarts[block] > blockSizes[block]) {
+                block++;
+            }
+        }
+        Object[] data = blocks[block];
+        int offset = index - blockStarts[block];
+        System.arraycopy(data, offset, data, offset + 1, blockSizes[block] - offset);
+        data[offset] = element;
+        blockSizes[block]++;
+        shiftStarts(block + 1, 1);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index, size);
+        int block = blockOf(index);
+        Object[] data = blocks[block];
+        int offset = index - blockStarts[block];
+        E removed = (E) data[offset];
+        int moved = blockSizes[block] - offset - 1;
+        System.arraycopy(data, offset + 1, data, offset, moved);
+        data[--blockSizes[block]] = null;
+        shiftStarts(block + 1, -1);
+        if (blockSizes[block] == 0) {
+            removeBlock(block);
+        } else if (blockSizes[block] < blockCapacity / 2) {
+            mergeWithNeighbour(block);
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(blocks, 0, blockCount, null);
+        blockCount = 0;
+        size = 0;
+        lastBlock = 0;
+        modCount++;
+    }
+
+    private int blockOf(int index) {
+        // Sequential access usually stays in the same block
+        int cached = lastBlock;
+        if (cached < blockCount && index >= blockStarts[cached] && index < blockStarts[cached] + blockSizes[cached]) {
+            return cached;
+        }
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (blockStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        lastBlock = low;
+        return low;
+    }
+
+    private void splitBlock(int block) {
+        Object[] data = blocks[block];
+        int half = blockSizes[block] >>> 1;
+        int moved = blockSizes[block] - half;
+        Object[] upper = new Object[blockCapacity];
+        System.arraycopy(data, half, upper, 0, moved);
+        Arrays.fill(data, half, blockSizes[block], null);
+        blockSizes[block] = half;
+        insertBlock(block + 1, upper, blockStarts[block] + half);
+        blockSizes[block + 1] = moved;
+    }
+
+    private void insertBlock(int position, Object[] data, int start) {
+        if (blockCount == blocks.length) {
+            int newLength = blocks.length * 2;
+            blocks = Arrays.copyOf(blocks, newLength);
+            blockSizes = Arrays.copyOf(blockSizes, newLength);
+            blockStarts = Arrays.copyOf(blockStarts, newLength);
+        }
+        int moved = blockCount - position;
+        System.arraycopy(blocks, position, blocks, position + 1, moved);
+        System.arraycopy(blockSizes, position, blockSizes, position + 1, moved);
+        System.arraycopy(blockStarts, position, blockStarts, position + 1, moved);
+        blocks[position] = data;
+        blockSizes[position] = 0;
+        blockStarts[position] = start;
+        blockCount++;
+    }
+
+    // Merging only below three quarters leaves room, so a split right after a merge cannot undo it
+    private void mergeWithNeighbour(int block) {
+        int limit = blockCapacity * 3 / 4;
+        int left;
+        if (block > 0 && blockSizes[block - 1] + blockSizes[block] <= limit) {
+            left = block - 1;
+        } else if (block + 1 < blockCount && blockSizes[block] + blockSizes[block + 1] <= limit) {
+            left = block;
+        } else {
+            return;
+        }
+        int right = left + 1;
+        System.arraycopy(blocks[right], 0, blocks[left], blockSizes[left], blockSizes[right]);
+        blockSizes[left] += blockSizes[right];
+        blockSizes[right] = 0;
+        removeBlock(right);
+    }
+
+    // Only for empty blocks, so the start offsets of the blocks after it stay the same
+    private void removeBlock(int block) {
+        int moved = blockCount - block - 1;
+        System.arraycopy(blocks, block + 1, blocks, block, moved);
+        System.arraycopy(blockSizes, block + 1, blockSizes, block, moved);
+        System.arraycopy(blockStarts, block + 1, blockStarts, block, moved);
+        blocks[--blockCount] = null;
+        lastBlock = 0;
+    }
+
+    private void shiftStarts(int fromBlock, int delta) {
+        int[] starts = blockStarts;
+        for (int i = fromBlock; i < blockCount; i++) {
+            starts[i] += delta;
+        }
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -14,6 +14,9 @@ public class ListDemo {
     private static void demonstrateListTypes() {
         System.out.println("\n--- List Implementations ---");
 
+        // Single-pass timings without warmup, good for a rough feel only.
+        // See the collections-benchmarks module (JMH) for stable numbers across sizes.
+
         // ArrayList - Fast access by index, slow for insertions/deletions in the middle
         List<String> arrayList = new ArrayList<>();
         long startTime = System.nanoTime();
@@ -30,6 +33,14 @@ public class ListDemo {
         }
         System.out.printf("LinkedList add time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
 
+        // ChunkedArrayList - Small array blocks, cheap middle insertion with near-constant random access
+        List<String> chunkedList = new ChunkedArrayList<>();
+        startTime = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            chunkedList.add("Item " + i);
+        }
+        System.out.printf("ChunkedArrayList add time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+
         // Random access performance
         startTime = System.nanoTime();
         for (int i = 0; i < 10_000; i++) {
@@ -43,6 +54,12 @@ public class ListDemo {
         }
         System.out.printf("LinkedList random access time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
 
+        startTime = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            chunkedList.get(i * 10);
+        }
+        System.out.printf("ChunkedArrayList random access time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+
         // Insertion in the middle
         startTime = System.nanoTime();
         for (int i = 0; i < 1000; i++) {
@@ -56,6 +73,12 @@ public class ListDemo {
         }
         System.out.printf("LinkedList middle insertion time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
 
+        startTime = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            chunkedList.add(chunkedList.size() / 2, "New Item " + i);
+        }
+        System.out.printf("ChunkedArrayList middle insertion time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+
         // Thread-safe list
         List<String> synchronizedList = Collections.synchronizedList(new ArrayList<>());
         List<String> concurrentList = new CopyOnWriteArrayList<>();
@@ -1,5 +1,13 @@
 package com.jsamkt.learn.collections.map;
 
+import com.jsamkt.learn.collections.cache.BoundedCache;
+import com.jsamkt.learn.collections.primitive.IntIntMap;
+import com.jsamkt.learn.collections.primitive.LongObjectMap;
+import com.jsamkt.learn.collections.primitive.OffHeapLongLongMap;
+import com.jsamkt.learn.collections.tree.BPlusTreeMap;
+import com.jsamkt.learn.collections.tree.LongBPlusTreeMap;
+
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -7,6 +15,10 @@ public class MapDemo {
 
     public static void demo() {
         demonstrateMapTypes();
+        demonstratePrimitiveMaps();
+        demonstrateBoundedCache();
+        demonstrateOffHeapMap();
+        demonstrateSortedMaps();
     }
 
     private static void demonstrateMapTypes() {
@@ -54,4 +66,187 @@ public class MapDemo {
         identityMap.put(b, 2);
         System.out.println("IdentityHashMap size (uses == instead of .equals()): " + identityMap.size());
     }
+
+    private static void demonstratePrimitiveMaps() {
+        System.out.println("\n--- Primitive-Specialized Maps ---");
+
+        // IntIntMap - int keys and values in parallel arrays, no Integer boxing
+        IntIntMap wordLengthCounts = new IntIntMap();
+        for (String word : List.of("map", "set", "list", "queue", "deque", "tree")) {
+            wordLengthCounts.addTo(word.length(), 1);
+        }
+        System.out.println("IntIntMap (word length -> count): " + wordLengthCounts);
+
+        // LongObjectMap - long keys without Long boxing
+        LongObjectMap<String> usersById = new LongObjectMap<>();
+        usersById.put(10_000_000_001L, "alice");
+        usersById.put(10_000_000_002L, "bob");
+        System.out.println("LongObjectMap get(10000000002): " + usersById.get(10_000_000_002L));
+
+        // Rough timing against HashMap<Integer, Integer>
+        int n = 1_000_000;
+        long startTime = System.nanoTime();
+        Map<Integer, Integer> boxed = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            boxed.merge(i & 0xFFFF, 1, Integer::sum);
+        }
+        System.out.printf("HashMap<Integer, Integer> count time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+
+        startTime = System.nanoTime();
+        IntIntMap primitive = new IntIntMap();
+        for (int i = 0; i < n; i++) {
+            primitive.addTo(i & 0xFFFF, 1);
+        }
+        System.out.printf("IntIntMap count time: %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+    }
+
+    private static void demonstrateBoundedCache() {
+        System.out.println("\n--- Bounded Cache ---");
+
+        // The classic LRU cache: LinkedHashMap in access order, wrapped for thread safety.
+        // Every get() reorders the list, so the synchronized wrapper serializes all readers.
+        Map<Integer, String> lruMap = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > 100;
+            }
+        });
+
+        // BoundedCache: lock-free reads on ConcurrentHashMap, LRU updates buffered and applied in batches
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, Duration.ofMinutes(5));
+
+        // 50 hot keys interleaved with a scan of one-off keys (three per hot access)
+        int lruHits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int hotKey = i % 50;
+            if (lruMap.get(hotKey) != null) {
+                lruHits++;
+            } else {
+                lruMap.put(hotKey, "hot");
+            }
+            for (int s = 0; s < 3; s++) {
+                lruMap.put(1_000 + i * 3 + s, "scan");
+            }
+
+            if (cache.getIfPresent(hotKey) == null) {
+                cache.put(hotKey, "hot");
+            }
+            for (int s = 0; s < 3; s++) {
+                cache.put(1_000 + i * 3 + s, "scan");
+            }
+        }
+        System.out.println("LinkedHashMap LRU hot-key hits: " + lruHits);
+        System.out.println("BoundedCache (W-TinyLFU) stats: " + cache.stats());
+    }
+
+    private static void demonstrateOffHeapMap() {
+        System.out.println("\n--- Off-Heap Map ---");
+
+        int n = 1_000_000;
+
+        // HashMap<Long, Long> - every entry is a Node plus two Long objects, all traced by the GC
+        long heapBefore = usedHeap();
+        Map<Long, Long> onHeap = new HashMap<>();
+        for (long i = 1; i <= n; i++) {
+            onHeap.put(i * 31, i);
+        }
+        long onHeapBytes = usedHeap() - heapBefore;
+        System.out.printf("HashMap<Long, Long> with %d entries: ~%d MB of heap%n", onHeap.size(), onHeapBytes >> 20);
+        onHeap = null;
+
+        // OffHeapLongLongMap - 16 bytes per slot in direct memory, invisible to the GC
+        heapBefore = usedHeap();
+        try (OffHeapLongLongMap offHeap = new OffHeapLongLongMap(n)) {
+            for (long i = 1; i <= n; i++) {
+                offHeap.put(i * 31, i);
+            }
+            System.out.printf("OffHeapLongLongMap with %d entries: %d MB off-heap, ~%d MB of heap%n",
+                    offHeap.size(), offHeap.offHeapBytes() >> 20, Math.max(0, usedHeap() - heapBefore) >> 20);
+            System.out.println("OffHeapLongLongMap get(31000): " + offHeap.get(31_000));
+        }
+    }
+
+    private static void demonstrateSortedMaps() {
+        System.out.println("\n--- Sorted Maps: TreeMap vs B+tree ---");
+
+        NavigableMap<String, Integer> small = new BPlusTreeMap<>();
+        small.put("banana", 2);
+        small.put("apple", 1);
+        small.put("cherry", 3);
+        small.put("date", 4);
+        System.out.println("BPlusTreeMap (sorted by keys): " + small);
+        System.out.println("subMap(\"b\", \"d\"): " + small.subMap("b", "d") + ", descending: " + small.descendingMap());
+
+        // Same sorted key set in all three maps; range scans walk n / 1000 consecutive keys each
+        int n = 2_000_000;
+        TreeMap<Long, Long> treeMap = new TreeMap<>();
+        BPlusTreeMap<Long, Long> bPlusTree = new BPlusTreeMap<>();
+        LongBPlusTreeMap<Long> longTree = new LongBPlusTreeMap<>();
+        for (long i = 0; i < n; i++) {
+            Long key = i * 2;
+            treeMap.put(key, i);
+            bPlusTree.put(key, i);
+            longTree.put(key, i);
+        }
+
+        Random random = new Random(42);
+        int scans = 2_000;
+        long[] starts = new long[scans];
+        for (int i = 0; i < scans; i++) {
+            starts[i] = random.nextInt(n) * 2L;
+        }
+        long width = 2L * n / 1000;
+
+        long start = System.nanoTime();
+        long treeSum = 0;
+        for (long from : starts) {
+            for (long value : treeMap.subMap(from, from + width).values()) {
+                treeSum += value;
+            }
+        }
+        long treeTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long bPlusSum = 0;
+        for (long from : starts) {
+            for (long value : bPlusTree.subMap(from, from + width).values()) {
+                bPlusSum += value;
+            }
+        }
+        long bPlusTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long[] longSum = {0};
+        for (long from : starts) {
+            longTree.forEachInRange(from, from + width, (key, value) -> longSum[0] += value);
+        }
+        long longTime = System.nanoTime() - start;
+
+        System.out.printf("%d range scans of %d keys over %d entries:%n", scans, width / 2, n);
+        System.out.printf("TreeMap<Long, Long>:         %.2f ms%n", treeTime / 1_000_000.0);
+        System.out.printf("BPlusTreeMap<Long, Long>:    %.2f ms%n", bPlusTime / 1_000_000.0);
+        System.out.printf("LongBPlusTreeMap<Long>:      %.2f ms%n", longTime / 1_000_000.0);
+        System.out.println("Same sums: " + (treeSum == bPlusSum && bPlusSum == longSum[0]));
+
+        int lookups = 1_000_000;
+        start = System.nanoTime();
+        long found = 0;
+        for (int i = 0; i < lookups; i++) {
+            found += treeMap.floorKey(random.nextInt(2 * n) + 0L);
+        }
+        treeTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            found += longTree.floorKey(random.nextInt(2 * n)).orElse(0);
+        }
+        longTime = System.nanoTime() - start;
+        System.out.printf("%d floorKey lookups - TreeMap: %.2f ms, LongBPlusTreeMap: %.2f ms (checksum %d)%n",
+                lookups, treeTime / 1_000_000.0, longTime / 1_000_000.0, found);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 }
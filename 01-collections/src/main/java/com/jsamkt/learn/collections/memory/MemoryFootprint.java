@@ -0,0 +1,275 @@
+package com.jsamkt.learn.collections.memory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures how many heap bytes an object graph retains, for comparing collection footprints.
+ * <p>
+ * The walker follows every non-static reference field and array element from a root and adds up the
+ * shallow size of each object it reaches once. Shallow sizes come from the running JVM's real layout:
+ * field offsets and array base/scale are read through {@code sun.misc.Unsafe}, looked up reflectively,
+ * so object header size, compressed oops (4- vs 8-byte references) and field packing are whatever this
+ * JVM actually uses.
+ * References are read the same way, so JDK internals such as {@code HashMap.table} can be walked
+ * without {@code --add-opens}.
+ * <p>
+ * Not counted: {@link Class} objects and everything behind them, off-heap memory (direct buffers),
+ * and the contents of records and hidden classes such as lambdas, which {@code Unsafe} refuses to
+ * inspect - those get a shallow estimate only. Objects shared with the rest of the program (for
+ * example cached small {@code Integer}s) are counted as if the structure owned them.
+ */
+public final class MemoryFootprint {
+    // Unsafe methods bound to the instance, resolved once: long objectFieldOffset(Field),
+    // Object getObject(Object, long), int arrayBaseOffset(Class), int arrayIndexScale(Class)
+    private static final MethodHandle OBJECT_FIELD_OFFSET;
+    private static final MethodHandle GET_OBJECT;
+    private static final MethodHandle ARRAY_BASE_OFFSET;
+    private static final MethodHandle ARRAY_INDEX_SCALE;
+
+    static {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            OBJECT_FIELD_OFFSET = lookup.findVirtual(unsafeClass, "objectFieldOffset",
+                    MethodType.methodType(long.class, Field.class)).bindTo(unsafe);
+            GET_OBJECT = lookup.findVirtual(unsafeClass, "getObject",
+                    MethodType.methodType(Object.class, Object.class, long.class)).bindTo(unsafe);
+            ARRAY_BASE_OFFSET = lookup.findVirtual(unsafeClass, "arrayBaseOffset",
+                    MethodType.methodType(int.class, Class.class)).bindTo(unsafe);
+            ARRAY_INDEX_SCALE = lookup.findVirtual(unsafeClass, "arrayIndexScale",
+                    MethodType.methodType(int.class, Class.class)).bindTo(unsafe);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int REFERENCE_SIZE = arrayIndexScale(Object[].class);
+    private static final int OBJECT_ALIGNMENT = objectAlignment();
+    private static final int OBJECT_HEADER_SIZE = objectHeaderSize();
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    private MemoryFootprint() {
+    }
+
+    /**
+     * @return bytes retained by {@code root} and everything reachable from it
+     */
+    public static long deepSizeOf(Object root) {
+        if (root == null) {
+            return 0;
+        }
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        long total = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (current instanceof Class<?> || !visited.add(current)) {
+                continue;
+            }
+            Class<?> type = current.getClass();
+            if (type.isArray()) {
+                total += arraySize(type, Array.getLength(current));
+                if (!type.getComponentType().isPrimitive()) {
+                    for (Object element : (Object[]) current) {
+                        if (element != null) {
+                            pending.push(element);
+                        }
+                    }
+                }
+            } else {
+                Layout layout = LAYOUTS.get(type);
+                total += layout.shallowSize;
+                for (long offset : layout.referenceOffsets) {
+                    Object referenced = getObject(current, offset);
+                    if (referenced != null) {
+                        pending.push(referenced);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    public static long shallowSizeOf(Object object) {
+        Class<?> type = object.getClass();
+        return type.isArray() ? arraySize(type, Array.getLength(object)) : LAYOUTS.get(type).shallowSize;
+    }
+
+    /**
+     * Prints one line of the form {@code label: N bytes total, X bytes/element}.
+     */
+    public static void print(String label, Object structure, long elements) {
+        long bytes = deepSizeOf(structure);
+        System.out.printf("%-36s %,12d bytes total, %7.1f bytes/element%n",
+                label + ":", bytes, elements == 0 ? 0.0 : (double) bytes / elements);
+    }
+
+    /**
+     * Describes the layout parameters the measurements are based on.
+     */
+    public static String describeLayout() {
+        return "object header " + OBJECT_HEADER_SIZE + " B, reference " + REFERENCE_SIZE
+                + " B (compressed oops " + (REFERENCE_SIZE == 4 ? "on" : "off") + "), alignment "
+                + OBJECT_ALIGNMENT + " B";
+    }
+
+    private static long arraySize(Class<?> arrayType, int length) {
+        long base = arrayBaseOffset(arrayType);
+        long scale = arrayIndexScale(arrayType);
+        return align(base + scale * length);
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE_SIZE;
+        }
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Shallow size and reference field offsets of one class, including inherited fields.
+     */
+    private static final class Layout {
+        final long shallowSize;
+        final long[] referenceOffsets;
+
+        private Layout(long shallowSize, long[] referenceOffsets) {
+            this.shallowSize = shallowSize;
+            this.referenceOffsets = referenceOffsets;
+        }
+
+        static Layout of(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+            long end = OBJECT_HEADER_SIZE;
+            List<Long> references = new ArrayList<>();
+            try {
+                for (Field field : fields) {
+                    long offset = objectFieldOffset(field);
+                    end = Math.max(end, offset + fieldSize(field.getType()));
+                    if (!field.getType().isPrimitive()) {
+                        references.add(offset);
+                    }
+                }
+            } catch (UnsupportedOperationException e) {
+                // Records and hidden classes: estimate from field sizes, do not follow references
+                long estimate = OBJECT_HEADER_SIZE;
+                for (Field field : fields) {
+                    estimate += fieldSize(field.getType());
+                }
+                return new Layout(align(estimate), new long[0]);
+            }
+            long[] offsets = new long[references.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = references.get(i);
+            }
+            return new Layout(align(end), offsets);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static final class HeaderProbe {
+        byte probe;
+    }
+
+    private static int objectHeaderSize() {
+        try {
+            return (int) objectFieldOffset(HeaderProbe.class.getDeclaredField("probe"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int objectAlignment() {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean hotSpot =
+                    ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            return Integer.parseInt(hotSpot.getVMOption("ObjectAlignmentInBytes").getValue());
+        } catch (RuntimeException | LinkageError e) {
+            return 8;
+        }
+    }
+
+    // Unsafe throws UnsupportedOperationException for records and hidden classes; that passes through
+    private static long objectFieldOffset(Field field) {
+        try {
+            return (long) OBJECT_FIELD_OFFSET.invokeExact(field);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object getObject(Object object, long offset) {
+        try {
+            return (Object) GET_OBJECT.invokeExact(object, offset);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int arrayBaseOffset(Class<?> arrayType) {
+        try {
+            return (int) ARRAY_BASE_OFFSET.invokeExact(arrayType);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int arrayIndexScale(Class<?> arrayType) {
+        try {
+            return (int) ARRAY_INDEX_SCALE.invokeExact(arrayType);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.jsamkt.learn.collections.primitive;
+
+/**
+ * Hash mixing and table sizing helpers shared by the open-addressing primitive collections.
+ */
+final class Hashing {
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Hashing() {
+    }
+
+    // Fibonacci hashing spreads sequential keys so linear probing does not cluster
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        return (int) (h ^ (h >>> 16));
+    }
+
+    static long mix64(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    static int capacityFor(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be non-negative: " + expectedSize);
+        }
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be in (0, 1): " + loadFactor);
+        }
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many elements for a single table: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    static int maxFill(int capacity, float loadFactor) {
+        return Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    static int growCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Table cannot grow beyond " + MAX_CAPACITY + " slots");
+        }
+        return capacity << 1;
+    }
+}
@@ -0,0 +1,315 @@
+package com.jsamkt.learn.collections.primitive;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing set of {@code int} values with linear probing.
+ * Compared to {@code HashSet<Integer>} it stores one {@code int} per slot instead of an
+ * {@code Integer} box plus a {@code HashMap.Node}.
+ * The bulk operations {@link #addAll}, {@link #retainAll} and {@link #removeAll} work directly
+ * on the backing arrays and never allocate per element.
+ * Not thread-safe.
+ */
+public class IntHashSet {
+
+    private final float loadFactor;
+    private int[] keys;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private boolean containsZero;
+
+    public IntHashSet() {
+        this(Hashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    public IntHashSet(int expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntHashSet(int expectedSize, float loadFactor) {
+        int capacity = Hashing.capacityFor(expectedSize, loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacity);
+    }
+
+    public static IntHashSet of(int... values) {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    public IntHashSet copy() {
+        IntHashSet copy = new IntHashSet(0, loadFactor);
+        copy.keys = keys.clone();
+        copy.mask = mask;
+        copy.maxFill = maxFill;
+        copy.size = size;
+        copy.containsZero = containsZero;
+        return copy;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        mask = capacity - 1;
+        maxFill = Hashing.maxFill(capacity, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int pos = Hashing.mix(value) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == value) {
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int pos = Hashing.mix(value) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == value) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = value;
+        if (++size > maxFill) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int pos = Hashing.mix(value) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == value) {
+                shiftKeys(pos);
+                size--;
+                return true;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Union in place: adds every element of {@code other}.
+     *
+     * @return {@code true} if this set changed
+     */
+    public boolean addAll(IntHashSet other) {
+        int before = size;
+        // Grow once up front instead of doubling repeatedly while inserting
+        int needed = size + other.size;
+        if (needed > maxFill) {
+            rehash(Hashing.capacityFor(needed, loadFactor));
+        }
+        if (other.containsZero) {
+            add(0);
+        }
+        int[] otherKeys = other.keys;
+        for (int key : otherKeys) {
+            if (key != 0) {
+                add(key);
+            }
+        }
+        return size != before;
+    }
+
+    /**
+     * Intersection in place: keeps only the elements also present in {@code other}.
+     * Survivors are compacted into a fresh table of the current capacity, which is the only allocation.
+     *
+     * @return {@code true} if this set changed
+     */
+    public boolean retainAll(IntHashSet other) {
+        int before = size;
+        int[] oldKeys = keys;
+        int[] newKeys = new int[oldKeys.length];
+        int kept = 0;
+        for (int key : oldKeys) {
+            if (key != 0 && other.contains(key)) {
+                int pos = Hashing.mix(key) & mask;
+                while (newKeys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                newKeys[pos] = key;
+                kept++;
+            }
+        }
+        keys = newKeys;
+        containsZero = containsZero && other.containsZero;
+        size = kept + (containsZero ? 1 : 0);
+        return size != before;
+    }
+
+    /**
+     * Difference in place: removes every element that is present in {@code other}.
+     *
+     * @return {@code true} if this set changed
+     */
+    public boolean removeAll(IntHashSet other) {
+        if (other == this) {
+            boolean changed = size > 0;
+            clear();
+            return changed;
+        }
+        int before = size;
+        if (other.containsZero) {
+            remove(0);
+        }
+        if (other.size <= size) {
+            for (int key : other.keys) {
+                if (key != 0) {
+                    remove(key);
+                }
+            }
+        } else {
+            // The other set is larger: probing it for each of our keys is cheaper
+            int[] oldKeys = keys;
+            int[] newKeys = new int[oldKeys.length];
+            int kept = 0;
+            for (int key : oldKeys) {
+                if (key != 0 && !other.contains(key)) {
+                    int pos = Hashing.mix(key) & mask;
+                    while (newKeys[pos] != 0) {
+                        pos = (pos + 1) & mask;
+                    }
+                    newKeys[pos] = key;
+                    kept++;
+                }
+            }
+            keys = newKeys;
+            size = kept + (containsZero ? 1 : 0);
+        }
+        return size != before;
+    }
+
+    public static IntHashSet union(IntHashSet a, IntHashSet b) {
+        IntHashSet result = a.size >= b.size ? a.copy() : b.copy();
+        result.addAll(a.size >= b.size ? b : a);
+        return result;
+    }
+
+    public static IntHashSet intersection(IntHashSet a, IntHashSet b) {
+        // Iterate the smaller set and probe the larger one
+        IntHashSet result = a.size <= b.size ? a.copy() : b.copy();
+        result.retainAll(a.size <= b.size ? b : a);
+        return result;
+    }
+
+    public static IntHashSet difference(IntHashSet a, IntHashSet b) {
+        IntHashSet result = a.copy();
+        result.removeAll(b);
+        return result;
+    }
+
+    public void forEach(IntConsumer action) {
+        if (containsZero) {
+            action.accept(0);
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = 0;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        int current;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((current = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                slot = Hashing.mix(current) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        allocate(newCapacity);
+        for (int key : oldKeys) {
+            if (key != 0) {
+                int pos = Hashing.mix(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        int[] sorted = toArray();
+        Arrays.sort(sorted);
+        return Arrays.toString(sorted);
+    }
+}
@@ -0,0 +1,255 @@
+package com.jsamkt.learn.collections.primitive;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code int -> int} hash map with linear probing.
+ * Keys and values live in two parallel {@code int[]} arrays, so there is no
+ * {@code Integer} boxing and no per-entry node object as in {@code HashMap<Integer, Integer>}.
+ * Removal uses backward shifting, so the table never accumulates tombstones.
+ * The key {@code 0} marks a free slot and is stored out of line.
+ * Not thread-safe.
+ */
+public class IntIntMap {
+
+    @FunctionalInterface
+    public interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+
+    private final float loadFactor;
+    private final int noEntryValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntMap() {
+        this(Hashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR, 0);
+    }
+
+    /**
+     * @param expectedSize number of entries the map should hold without resizing
+     * @param loadFactor   fraction of slots that may be occupied before the table doubles
+     * @param noEntryValue value returned by {@link #get(int)} for absent keys
+     */
+    public IntIntMap(int expectedSize, float loadFactor, int noEntryValue) {
+        int capacity = Hashing.capacityFor(expectedSize, loadFactor);
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = Hashing.maxFill(capacity, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int noEntryValue() {
+        return noEntryValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * @return the previous value, or {@link #noEntryValue()} if the key was absent
+     */
+    public int put(int key, int value) {
+        if (key == 0) {
+            int previous = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int pos = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                int previous = values[pos];
+                values[pos] = value;
+                return previous;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > maxFill) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * Adds {@code delta} to the value stored under {@code key}, treating an absent key as
+     * {@link #noEntryValue()}. Handy for counting without a get/put pair.
+     *
+     * @return the new value
+     */
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = noEntryValue;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        int pos = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                return values[pos] += delta;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        int result = values[pos] = noEntryValue + delta;
+        if (++size > maxFill) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return result;
+    }
+
+    /**
+     * @return the removed value, or {@link #noEntryValue()} if the key was absent
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return noEntryValue;
+        }
+        int previous = values[index];
+        shiftKeys(index);
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(IntIntConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        int[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                action.accept(k[i], v[i]);
+            }
+        }
+    }
+
+    private int indexOf(int key) {
+        int pos = Hashing.mix(key) & mask;
+        int current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion: pull later entries of the probe chain into the freed slot
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        int current;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((current = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                slot = Hashing.mix(current) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int pos = Hashing.mix(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
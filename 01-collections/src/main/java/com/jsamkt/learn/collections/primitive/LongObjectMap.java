@@ -0,0 +1,228 @@
+package com.jsamkt.learn.collections.primitive;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing {@code long -> V} hash map with linear probing.
+ * Keys are stored in a {@code long[]} next to an {@code Object[]} of values,
+ * so lookups never box the key and there is no per-entry node.
+ * The key {@code 0L} marks a free slot and is stored out of line.
+ * {@code null} values are not permitted. Not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public class LongObjectMap<V> {
+
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private final float loadFactor;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int maxFill;
+    private int size;
+    private V zeroValue;
+
+    public LongObjectMap() {
+        this(Hashing.DEFAULT_EXPECTED_SIZE);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int expectedSize, float loadFactor) {
+        int capacity = Hashing.capacityFor(expectedSize, loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = Hashing.maxFill(capacity, loadFactor);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return zeroValue != null;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * @return the previous value, or {@code null} if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (key == 0) {
+            V previous = zeroValue;
+            if (previous == null) {
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int pos = Hashing.mix(key) & mask;
+        long current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                V previous = (V) values[pos];
+                values[pos] = value;
+                return previous;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > maxFill) {
+            rehash(Hashing.growCapacity(keys.length));
+        }
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        V created = mappingFunction.apply(key);
+        if (created != null) {
+            put(key, created);
+        }
+        return created;
+    }
+
+    /**
+     * @return the removed value, or {@code null} if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (previous != null) {
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        shiftKeys(index);
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(LongObjectConsumer<? super V> action) {
+        if (zeroValue != null) {
+            action.accept(0L, zeroValue);
+        }
+        long[] k = keys;
+        Object[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                action.accept(k[i], (V) v[i]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int pos = Hashing.mix(key) & mask;
+        long current;
+        while ((current = keys[pos]) != 0) {
+            if (current == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        long current;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((current = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                slot = Hashing.mix(current) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int pos = Hashing.mix(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,280 @@
+package com.jsamkt.learn.collections.primitive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing {@code long -> long} hash map whose table lives outside the Java heap.
+ * <p>
+ * Each slot is 16 bytes (key, value) in direct memory, split into pages of up to 128 MB so the table
+ * can grow past the 2 GB limit of a single {@link ByteBuffer}. The GC never sees the entries - a
+ * 200M-entry map is a handful of buffer objects on the heap instead of 200M {@code HashMap.Node}s,
+ * two {@code Long}s each - so it adds nothing to marking or copying time.
+ * <p>
+ * The key {@code 0} marks a free slot and is stored out of line. Removal uses backward shifting.
+ * Call {@link #close()} to release the memory immediately; after that every operation throws
+ * {@link IllegalStateException}. Not thread-safe.
+ */
+public class OffHeapLongLongMap implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+
+    private static final int SLOT_BYTES = 16;
+    private static final int PAGE_SLOT_SHIFT = 23;
+    private static final long MAX_CAPACITY = 1L << 40;
+
+    private final float loadFactor;
+    private final long noEntryValue;
+    private ByteBuffer[] pages;
+    private int pageSlotShift;
+    private long pageSlotMask;
+    private long capacity;
+    private long mask;
+    private long maxFill;
+    private long size;
+    private boolean hasZeroKey;
+    private long zeroValue;
+    private boolean closed;
+
+    public OffHeapLongLongMap(long expectedSize) {
+        this(expectedSize, Hashing.DEFAULT_LOAD_FACTOR, 0L);
+    }
+
+    public OffHeapLongLongMap(long expectedSize, float loadFactor, long noEntryValue) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be non-negative: " + expectedSize);
+        }
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor);
+        allocate(Math.max(16, Long.highestOneBit(needed - 1) << 1));
+    }
+
+    private void allocate(long newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Table cannot grow beyond " + MAX_CAPACITY + " slots");
+        }
+        int slotsPerPage = (int) Math.min(newCapacity, 1L << PAGE_SLOT_SHIFT);
+        int pageCount = (int) (newCapacity / slotsPerPage);
+        ByteBuffer[] newPages = new ByteBuffer[pageCount];
+        try {
+            for (int i = 0; i < pageCount; i++) {
+                // Direct buffers start zeroed, so every slot is free
+                newPages[i] = DirectMemory.allocate(slotsPerPage * SLOT_BYTES);
+            }
+        } catch (OutOfMemoryError e) {
+            for (ByteBuffer page : newPages) {
+                DirectMemory.free(page);
+            }
+            throw e;
+        }
+        pages = newPages;
+        pageSlotShift = Integer.numberOfTrailingZeros(slotsPerPage);
+        pageSlotMask = slotsPerPage - 1;
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        maxFill = Math.min(newCapacity - 1, (long) (newCapacity * (double) loadFactor));
+    }
+
+    private long keyAt(long slot) {
+        return pages[(int) (slot >>> pageSlotShift)].getLong((int) ((slot & pageSlotMask) * SLOT_BYTES));
+    }
+
+    private long valueAt(long slot) {
+        return pages[(int) (slot >>> pageSlotShift)].getLong((int) ((slot & pageSlotMask) * SLOT_BYTES + 8));
+    }
+
+    private void setSlot(long slot, long key, long value) {
+        ByteBuffer page = pages[(int) (slot >>> pageSlotShift)];
+        int offset = (int) ((slot & pageSlotMask) * SLOT_BYTES);
+        page.putLong(offset, key);
+        page.putLong(offset + 8, value);
+    }
+
+    private void setValue(long slot, long value) {
+        pages[(int) (slot >>> pageSlotShift)].putLong((int) ((slot & pageSlotMask) * SLOT_BYTES + 8), value);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Bytes of direct memory held by the table.
+     */
+    public long offHeapBytes() {
+        return closed ? 0 : capacity * SLOT_BYTES;
+    }
+
+    public boolean containsKey(long key) {
+        ensureOpen();
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return indexOf(key) >= 0;
+    }
+
+    public long get(long key) {
+        ensureOpen();
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : noEntryValue;
+        }
+        long slot = indexOf(key);
+        return slot >= 0 ? valueAt(slot) : noEntryValue;
+    }
+
+    /**
+     * @return the previous value, or the no-entry value if the key was absent
+     */
+    public long put(long key, long value) {
+        ensureOpen();
+        if (key == 0) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        long slot = Hashing.mix64(key) & mask;
+        long current;
+        while ((current = keyAt(slot)) != 0) {
+            if (current == key) {
+                long previous = valueAt(slot);
+                setValue(slot, value);
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, key, value);
+        if (++size > maxFill) {
+            rehash(capacity << 1);
+        }
+        return noEntryValue;
+    }
+
+    /**
+     * @return the removed value, or the no-entry value if the key was absent
+     */
+    public long remove(long key) {
+        ensureOpen();
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return noEntryValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        long slot = indexOf(key);
+        if (slot < 0) {
+            return noEntryValue;
+        }
+        long previous = valueAt(slot);
+        shiftKeys(slot);
+        size--;
+        return previous;
+    }
+
+    public void forEach(LongLongConsumer action) {
+        ensureOpen();
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (long slot = 0; slot < capacity; slot++) {
+            long key = keyAt(slot);
+            if (key != 0) {
+                action.accept(key, valueAt(slot));
+            }
+        }
+    }
+
+    /**
+     * Releases the direct memory now instead of waiting for the buffers to be collected.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer page : pages) {
+            DirectMemory.free(page);
+        }
+        pages = null;
+        size = 0;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Map is closed");
+        }
+    }
+
+    private long indexOf(long key) {
+        long slot = Hashing.mix64(key) & mask;
+        long current;
+        while ((current = keyAt(slot)) != 0) {
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void shiftKeys(long pos) {
+        long last;
+        long slot;
+        long current;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if ((current = keyAt(pos)) == 0) {
+                    setSlot(last, 0, 0);
+                    return;
+                }
+                slot = Hashing.mix64(current) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            setSlot(last, current, valueAt(pos));
+        }
+    }
+
+    private void rehash(long newCapacity) {
+        ByteBuffer[] oldPages = pages;
+        long oldCapacity = capacity;
+        int oldShift = pageSlotShift;
+        long oldMask = pageSlotMask;
+        allocate(newCapacity);
+        for (long oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            ByteBuffer page = oldPages[(int) (oldSlot >>> oldShift)];
+            int offset = (int) ((oldSlot & oldMask) * SLOT_BYTES);
+            long key = page.getLong(offset);
+            if (key != 0) {
+                long slot = Hashing.mix64(key) & mask;
+                while (keyAt(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                setSlot(slot, key, page.getLong(offset + 8));
+            }
+        }
+        for (ByteBuffer page : oldPages) {
+            DirectMemory.free(page);
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.jsamkt.learn.collections.set;
 
+import com.jsamkt.learn.collections.bitmap.RoaringBitmap;
+import com.jsamkt.learn.collections.memory.MemoryFootprint;
+import com.jsamkt.learn.collections.primitive.IntHashSet;
+import com.jsamkt.learn.collections.trie.RadixTreeSet;
+
 import java.util.*;
 
 public class SetDemo {
 
     public static void demo() {
         demonstrateSetTypes();
+        demonstratePrimitiveSetOperations();
+        demonstrateBitmapSetOperations();
+        demonstrateRadixTree();
     }
 
     private static void demonstrateSetTypes() {
@@ -57,4 +65,107 @@ public class SetDemo {
         difference.removeAll(set2);
         System.out.println("Difference (set1 - set2): " + difference);
     }
+
+    private static void demonstratePrimitiveSetOperations() {
+        System.out.println("\n--- Primitive Set Operations ---");
+
+        // Same algebra as above, but on int[] tables - no Integer allocated per element
+        IntHashSet set1 = IntHashSet.of(1, 2, 3, 4, 5);
+        IntHashSet set2 = IntHashSet.of(4, 5, 6, 7, 8);
+
+        System.out.println("IntHashSet union: " + IntHashSet.union(set1, set2));
+        System.out.println("IntHashSet intersection: " + IntHashSet.intersection(set1, set2));
+        System.out.println("IntHashSet difference (set1 - set2): " + IntHashSet.difference(set1, set2));
+    }
+
+    private static void demonstrateBitmapSetOperations() {
+        System.out.println("\n--- Compressed Bitmap Set Operations ---");
+
+        // Set algebra on RoaringBitmap works container by container, skipping keys only one side has
+        RoaringBitmap set1 = RoaringBitmap.of(1, 2, 3, 4, 5);
+        RoaringBitmap set2 = RoaringBitmap.of(4, 5, 6, 7, 8);
+
+        System.out.println("RoaringBitmap union: " + RoaringBitmap.or(set1, set2));
+        System.out.println("RoaringBitmap intersection: " + RoaringBitmap.and(set1, set2));
+        System.out.println("RoaringBitmap difference (set1 - set2): " + RoaringBitmap.andNot(set1, set2));
+    }
+
+    private static void demonstrateRadixTree() {
+        System.out.println("\n--- Radix Tree vs TreeSet for String Keys ---");
+
+        RadixTreeSet words = RadixTreeSet.of("car", "card", "care", "cart", "cat", "dog");
+        System.out.println("RadixTreeSet: " + words);
+        System.out.println("prefixScan(\"car\"): " + words.prefixScan("car"));
+        System.out.println("floor(\"cas\"): " + words.floor("cas") + ", ceiling(\"cas\"): " + words.ceiling("cas"));
+
+        // Routing-table style keys: long shared prefixes, lookups by exact key and by prefix
+        String[] services = {"orders", "users", "payments", "inventory", "search", "shipping", "reviews", "carts"};
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            routes.add("/api/v" + (i % 3 + 1) + "/" + services[i % services.length] + "/" + (i * 7919 % 1_000_003));
+        }
+        Collections.shuffle(routes, new Random(42));
+
+        TreeSet<String> treeSet = new TreeSet<>();
+        RadixTreeSet radixTree = new RadixTreeSet();
+        long start = System.nanoTime();
+        treeSet.addAll(routes);
+        long treeInsert = System.nanoTime() - start;
+        start = System.nanoTime();
+        radixTree.addAll(routes);
+        long radixInsert = System.nanoTime() - start;
+
+        int lookups = 1_000_000;
+        int found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (treeSet.contains(routes.get(i % routes.size()))) {
+                found++;
+            }
+        }
+        long treeLookup = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            if (radixTree.contains(routes.get(i % routes.size()))) {
+                found++;
+            }
+        }
+        long radixLookup = System.nanoTime() - start;
+
+        // Prefix queries: TreeSet needs a subSet range, the radix tree jumps to the prefix's subtree
+        String[] prefixes = new String[10_000];
+        for (int i = 0; i < prefixes.length; i++) {
+            String route = routes.get(i);
+            prefixes[i] = route.substring(0, route.length() - 2);
+        }
+        long treeMatches = 0;
+        start = System.nanoTime();
+        for (String prefix : prefixes) {
+            treeMatches += treeSet.subSet(prefix, prefix + Character.MAX_VALUE).size();
+        }
+        long treePrefix = System.nanoTime() - start;
+        long[] radixMatches = {0};
+        start = System.nanoTime();
+        for (String prefix : prefixes) {
+            radixTree.prefixScan(prefix, route -> radixMatches[0]++);
+        }
+        long radixPrefix = System.nanoTime() - start;
+
+        System.out.printf("%nInsert %d routes - TreeSet: %.2f ms, RadixTreeSet: %.2f ms%n",
+                routes.size(), treeInsert / 1_000_000.0, radixInsert / 1_000_000.0);
+        System.out.printf("%d lookups        - TreeSet: %.2f ms, RadixTreeSet: %.2f ms (found %d)%n",
+                lookups, treeLookup / 1_000_000.0, radixLookup / 1_000_000.0, found);
+        System.out.printf("%d prefix scans   - TreeSet: %.2f ms, RadixTreeSet: %.2f ms (matches %d / %d)%n",
+                prefixes.length, treePrefix / 1_000_000.0, radixPrefix / 1_000_000.0, treeMatches, radixMatches[0]);
+        System.out.println("Same order: " + new ArrayList<>(treeSet).equals(new ArrayList<>(radixTree)));
+
+        // Both hold the same String objects, so the difference is the index structure itself
+        long keyBytes = 0;
+        for (String route : routes) {
+            keyBytes += MemoryFootprint.deepSizeOf(route);
+        }
+        System.out.printf("Index overhead - TreeSet: %d KB, RadixTreeSet: %d KB%n",
+                (MemoryFootprint.deepSizeOf(treeSet) - keyBytes) / 1024,
+                (MemoryFootprint.deepSizeOf(radixTree) - keyBytes) / 1024);
+    }
 }
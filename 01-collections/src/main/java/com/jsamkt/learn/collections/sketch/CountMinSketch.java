@@ -0,0 +1,133 @@
+package com.jsamkt.learn.collections.sketch;
+
+import java.util.stream.Collector;
+
+/**
+ * Count-Min sketch: approximate frequency counts in fixed memory.
+ * <p>
+ * The sketch is a {@code depth x width} table of counters. Each row hashes the item to one counter
+ * and adds to it; a query takes the minimum over the rows. Collisions only ever add, so estimates
+ * never undercount, and with {@code width = e / epsilon} and {@code depth = ln(1 / (1 - confidence))}
+ * the overcount stays below {@code epsilon * totalCount} with the given confidence. Memory depends
+ * only on epsilon and confidence, not on the number of distinct items.
+ * <p>
+ * Sketches with the same dimensions can be merged with {@link #merge} by adding their tables.
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int widthMask;
+    private final long[] table;
+    private long totalCount;
+
+    /**
+     * @param epsilon    relative error bound, as a fraction of the total count
+     * @param confidence probability that an estimate is within the bound, in (0, 1)
+     */
+    public CountMinSketch(double epsilon, double confidence) {
+        if (epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("Epsilon must be in (0, 1): " + epsilon);
+        }
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Confidence must be in (0, 1): " + confidence);
+        }
+        // Width rounded up to a power of two so a row index is a mask instead of a modulo
+        int width = Integer.highestOneBit((int) Math.ceil(Math.E / epsilon) - 1) << 1;
+        this.depth = Math.max(1, (int) Math.ceil(Math.log(1 / (1 - confidence))));
+        this.widthMask = width - 1;
+        this.table = new long[depth * width];
+    }
+
+    private CountMinSketch(CountMinSketch shape) {
+        this.depth = shape.depth;
+        this.widthMask = shape.widthMask;
+        this.table = new long[shape.table.length];
+    }
+
+    public static <T> Collector<T, ?, CountMinSketch> toCountMinSketch(double epsilon, double confidence) {
+        return Collector.of(
+                () -> new CountMinSketch(epsilon, confidence),
+                CountMinSketch::add,
+                CountMinSketch::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public void add(Object item) {
+        addHash(SketchHashing.hash(item), 1);
+    }
+
+    public void add(Object item, long count) {
+        addHash(SketchHashing.hash(item), count);
+    }
+
+    public void addHash(long hash, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must be non-negative: " + count);
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int width = widthMask + 1;
+        for (int row = 0; row < depth; row++) {
+            table[row * width + ((h1 + row * h2) & widthMask)] += count;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * @return an upper bound on the number of times {@code item} was added
+     */
+    public long estimateCount(Object item) {
+        return estimateCountHash(SketchHashing.hash(item));
+    }
+
+    public long estimateCountHash(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int width = widthMask + 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + ((h1 + row * h2) & widthMask)]);
+        }
+        return min;
+    }
+
+    /**
+     * Adds the counts of {@code other} to this sketch.
+     *
+     * @return this sketch
+     */
+    public CountMinSketch merge(CountMinSketch other) {
+        if (other.depth != depth || other.widthMask != widthMask) {
+            throw new IllegalArgumentException("Cannot merge Count-Min sketches of different dimensions");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+        return this;
+    }
+
+    public CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(this);
+        System.arraycopy(table, 0, copy.table, 0, table.length);
+        copy.totalCount = totalCount;
+        return copy;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public int width() {
+        return widthMask + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch[depth=" + depth + ", width=" + width() + ", totalCount=" + totalCount + "]";
+    }
+}
@@ -0,0 +1,49 @@
+package com.jsamkt.learn.collections.sketch;
+
+/**
+ * 64-bit hashing shared by the sketches.
+ * <p>
+ * Sketches over billions of items need all 64 bits to be well mixed: HyperLogLog reads the leading
+ * zeros of the hash, and a 32-bit {@code hashCode()} would cap the distinguishable items at about
+ * four billion. Strings and integral numbers are hashed over their full contents; any other object
+ * falls back to its {@code hashCode()}, so callers with such keys should hash them themselves and
+ * use the {@code ...Hash(long)} methods.
+ */
+final class SketchHashing {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private SketchHashing() {
+    }
+
+    static long hash(Object item) {
+        if (item instanceof CharSequence text) {
+            return hash(text);
+        }
+        if (item instanceof Long || item instanceof Integer || item instanceof Short || item instanceof Byte) {
+            return hash(((Number) item).longValue());
+        }
+        return hash((long) item.hashCode());
+    }
+
+    static long hash(long value) {
+        return fmix64(value + SEED);
+    }
+
+    static long hash(CharSequence text) {
+        long h = SEED ^ text.length();
+        for (int i = 0; i < text.length(); i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001B3L;
+        }
+        return fmix64(h);
+    }
+
+    // MurmurHash3 finalizer: every input bit affects every output bit
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
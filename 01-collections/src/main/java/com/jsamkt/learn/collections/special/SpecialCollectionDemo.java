@@ -1,11 +1,19 @@
 package com.jsamkt.learn.collections.special;
 
+import com.jsamkt.learn.collections.bitmap.RoaringBitmap;
+import com.jsamkt.learn.collections.cache.ReferenceCache;
+import com.jsamkt.learn.collections.cache.ReferenceStrength;
+import com.jsamkt.learn.collections.heap.IndexedMinHeap;
+import com.jsamkt.learn.collections.heap.IntMinHeap;
+import com.jsamkt.learn.collections.heap.RadixHeap;
+
 import java.util.*;
 
 public class SpecialCollectionDemo {
 
     public static void demo() {
         demonstrateSpecialCollections();
+        demonstrateHeaps();
     }
 
     private static void demonstrateSpecialCollections() {
@@ -40,6 +48,17 @@ public class SpecialCollectionDemo {
         System.out.println("BitSet: " + bitSet);
         System.out.println("BitSet cardinality (count of set bits): " + bitSet.cardinality());
 
+        // RoaringBitmap - Compressed bitmap, memory follows the values instead of the largest value
+        RoaringBitmap sparseIds = RoaringBitmap.of(7, 1_000_000_000, (int) 4_000_000_000L);
+        for (int id = 2_000_000; id < 2_100_000; id++) {
+            sparseIds.add(id); // a dense block of consecutive ids
+        }
+        sparseIds.runOptimize();
+        System.out.println("RoaringBitmap cardinality: " + sparseIds.cardinality());
+        System.out.println("RoaringBitmap contains 4000000000: " + sparseIds.contains((int) 4_000_000_000L));
+        System.out.println("RoaringBitmap serialized size: " + sparseIds.serializedSizeInBytes() + " bytes");
+        System.out.println("BitSet would need at least " + (1_000_000_000 / 8) + " bytes for id 1000000000 alone");
+
         // WeakHashMap - Entries can be garbage collected
         WeakHashMap<Object, String> weakMap = new WeakHashMap<>();
         Object key = new Object();
@@ -48,5 +67,124 @@ public class SpecialCollectionDemo {
         key = null; // Now key can be garbage collected
         System.gc(); // Request garbage collection
         // After garbage collection, the entry might be removed
+
+        // ReferenceCache - Concurrent alternative: cleared references arrive on a ReferenceQueue,
+        // so stale entries are removed one by one instead of scanning or locking the whole map
+        try (ReferenceCache<Object, String> metadataCache =
+                     new ReferenceCache<>(ReferenceStrength.WEAK, ReferenceStrength.STRONG, true)) {
+            Object owner = new Object();
+            metadataCache.put(owner, "metadata");
+            metadataCache.put(new Object(), "orphaned metadata");
+            System.out.println("ReferenceCache (weak keys) size before GC: " + metadataCache.size());
+            System.gc();
+            sleepQuietly(100); // Give the background cleaner a moment to drain the queue
+            System.out.println("ReferenceCache (weak keys) size after GC: " + metadataCache.size()
+                    + ", live entry: " + metadataCache.get(owner));
+        }
+
+        // Soft values are only cleared when the heap runs low - a cache that shrinks under pressure
+        ReferenceCache<String, byte[]> blobCache = ReferenceCache.softValues();
+        blobCache.put("thumbnail", new byte[1024]);
+        System.out.println("ReferenceCache (soft values) get: " + blobCache.get("thumbnail").length + " bytes");
+    }
+
+    private static void demonstrateHeaps() {
+        System.out.println("\n--- Heaps: PriorityQueue Alternatives ---");
+
+        int n = 1_000_000;
+        int[] values = new Random(42).ints(n).toArray();
+
+        // PriorityQueue<Integer> - boxed binary heap
+        long startTime = System.nanoTime();
+        PriorityQueue<Integer> priorityQueue = new PriorityQueue<>();
+        for (int value : values) {
+            priorityQueue.add(value);
+        }
+        long checksum = 0;
+        while (!priorityQueue.isEmpty()) {
+            checksum += priorityQueue.poll();
+        }
+        System.out.printf("PriorityQueue<Integer> add+poll %d: %.2f ms (checksum %d)%n",
+                n, (System.nanoTime() - startTime) / 1_000_000.0, checksum);
+
+        // IntMinHeap - primitive d-ary heap, shallower tree and children share cache lines
+        for (int arity : new int[]{2, 4, 8}) {
+            startTime = System.nanoTime();
+            IntMinHeap heap = new IntMinHeap(arity, n);
+            for (int value : values) {
+                heap.add(value);
+            }
+            checksum = 0;
+            while (!heap.isEmpty()) {
+                checksum += heap.poll();
+            }
+            System.out.printf("IntMinHeap (%d-ary) add+poll %d: %.2f ms (checksum %d)%n",
+                    arity, n, (System.nanoTime() - startTime) / 1_000_000.0, checksum);
+        }
+
+        // Dijkstra on a random graph: indexed heap with decreaseKey vs monotone radix heap
+        int nodes = 100_000;
+        int edgesPerNode = 8;
+        Random random = new Random(7);
+        int[][] targets = new int[nodes][edgesPerNode];
+        int[][] weights = new int[nodes][edgesPerNode];
+        for (int node = 0; node < nodes; node++) {
+            for (int e = 0; e < edgesPerNode; e++) {
+                targets[node][e] = random.nextInt(nodes);
+                weights[node][e] = 1 + random.nextInt(1000);
+            }
+        }
+
+        startTime = System.nanoTime();
+        long[] distances = new long[nodes];
+        Arrays.fill(distances, Long.MAX_VALUE);
+        distances[0] = 0;
+        IndexedMinHeap indexedHeap = new IndexedMinHeap(nodes);
+        indexedHeap.insert(0, 0);
+        while (!indexedHeap.isEmpty()) {
+            long distance = indexedHeap.peekKey();
+            int node = indexedHeap.poll();
+            for (int e = 0; e < edgesPerNode; e++) {
+                int target = targets[node][e];
+                long candidate = distance + weights[node][e];
+                if (candidate < distances[target]) {
+                    distances[target] = candidate;
+                    indexedHeap.insertOrDecrease(target, candidate);
+                }
+            }
+        }
+        System.out.printf("Dijkstra with IndexedMinHeap (decreaseKey): %.2f ms%n", (System.nanoTime() - startTime) / 1_000_000.0);
+
+        startTime = System.nanoTime();
+        long[] radixDistances = new long[nodes];
+        Arrays.fill(radixDistances, Long.MAX_VALUE);
+        radixDistances[0] = 0;
+        RadixHeap radixHeap = new RadixHeap();
+        radixHeap.push(0, 0);
+        while (!radixHeap.isEmpty()) {
+            long distance = radixHeap.peekKey();
+            int node = radixHeap.poll();
+            if (distance > radixDistances[node]) {
+                continue; // Stale entry, a shorter path was already settled
+            }
+            for (int e = 0; e < edgesPerNode; e++) {
+                int target = targets[node][e];
+                long candidate = distance + weights[node][e];
+                if (candidate < radixDistances[target]) {
+                    radixDistances[target] = candidate;
+                    radixHeap.push(candidate, target);
+                }
+            }
+        }
+        System.out.printf("Dijkstra with RadixHeap (monotone): %.2f ms, same distances: %b%n",
+                (System.nanoTime() - startTime) / 1_000_000.0, Arrays.equals(distances, radixDistances));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
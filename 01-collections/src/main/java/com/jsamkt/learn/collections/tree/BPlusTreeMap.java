@@ -0,0 +1,1305 @@
+package com.jsamkt.learn.collections.tree;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * In-memory B+tree implementation of {@link NavigableMap}.
+ * <p>
+ * A {@code TreeMap} allocates one node per entry, so walking a range means following a pointer to a
+ * different object - and usually a different cache line - for every key. Here nodes hold up to 64
+ * keys in plain arrays: a lookup binary-searches a handful of wide nodes, and all entries live in
+ * the leaves, which are linked in key order. A range scan finds its first leaf once and then reads
+ * consecutive array slots, hopping to the next leaf every 64 entries.
+ * <p>
+ * Nodes split when they overflow and borrow from or merge with a sibling when they fall below half
+ * full, so the tree stays balanced under any mix of inserts and removals. Sub-map and descending
+ * views are live, as with {@code TreeMap}; entries returned by navigation methods are snapshots.
+ * Null keys are only allowed if the comparator accepts them. Not thread-safe.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @see LongBPlusTreeMap
+ */
+public class BPlusTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private static final int DEFAULT_NODE_CAPACITY = 64;
+
+    private final Comparator<? super K> comparator;
+    private final int maxKeys;
+    private final int minLeafKeys;
+    private final int minInnerKeys;
+    private final RangeView fullView = new RangeView(true, null, false, true, null, false, false);
+
+    private Node root;
+    private Leaf head;
+    private Leaf tail;
+    private int size;
+    private int modCount;
+
+    // Results passed up from the recursive insert/delete
+    private Object splitKey;
+    private Object previousValue;
+    private boolean found;
+
+    public BPlusTreeMap() {
+        this(DEFAULT_NODE_CAPACITY, null);
+    }
+
+    public BPlusTreeMap(Comparator<? super K> comparator) {
+        this(DEFAULT_NODE_CAPACITY, comparator);
+    }
+
+    /**
+     * @param nodeCapacity maximum number of keys per node, at least 4
+     * @param comparator   key order, or {@code null} for natural ordering
+     */
+    public BPlusTreeMap(int nodeCapacity, Comparator<? super K> comparator) {
+        if (nodeCapacity < 4) {
+            throw new IllegalArgumentException("Node capacity must be at least 4: " + nodeCapacity);
+        }
+        this.comparator = comparator;
+        this.maxKeys = nodeCapacity;
+        this.minLeafKeys = nodeCapacity / 2;
+        this.minInnerKeys = nodeCapacity / 2 - 1;
+        resetRoot();
+    }
+
+    public BPlusTreeMap(Map<? extends K, ? extends V> source) {
+        this();
+        for (Map.Entry<? extends K, ? extends V> entry : source.entrySet()) {
+            putValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private abstract static class Node {
+        final Object[] keys;
+        int size;
+
+        Node(int capacity) {
+            // One spare slot: a node is allowed to overflow by one key just before it splits
+            keys = new Object[capacity + 1];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] values;
+        Leaf next;
+        Leaf prev;
+
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity + 1];
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 2];
+        }
+    }
+
+    /**
+     * Slot of an entry in a leaf.
+     */
+    private static final class Position {
+        Leaf leaf;
+        int index;
+
+        Position(Leaf leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        Object key() {
+            return leaf.keys[index];
+        }
+
+        Object value() {
+            return leaf.values[index];
+        }
+
+        boolean advance() {
+            if (++index < leaf.size) {
+                return true;
+            }
+            leaf = leaf.next;
+            index = 0;
+            return leaf != null;
+        }
+
+        boolean retreat() {
+            if (--index >= 0) {
+                return true;
+            }
+            leaf = leaf.prev;
+            if (leaf == null) {
+                return false;
+            }
+            index = leaf.size - 1;
+            return true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator != null
+                ? comparator.compare((K) a, (K) b)
+                : ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private void checkKey(Object key) {
+        if (comparator == null) {
+            Objects.requireNonNull(key, "key");
+        }
+    }
+
+    private int search(Node node, Object key) {
+        int low = 0;
+        int high = node.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(node.keys[mid], key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Child i holds keys in [keys[i - 1], keys[i])
+    private int childIndex(Inner inner, Object key) {
+        int index = search(inner, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Leaf findLeaf(Object key) {
+        Node node = root;
+        while (node instanceof Inner inner) {
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        resetRoot();
+        modCount++;
+    }
+
+    // Constructors use the private helpers, so a subclass never sees its overrides called half-built
+    private void resetRoot() {
+        Leaf leaf = new Leaf(maxKeys);
+        root = leaf;
+        head = leaf;
+        tail = leaf;
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        checkKey(key);
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkKey(key);
+        return search(findLeaf(key), key) >= 0;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return putValue(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V putValue(K key, V value) {
+        checkKey(key);
+        found = false;
+        previousValue = null;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            Inner newRoot = new Inner(maxKeys);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        V previous = (V) previousValue;
+        previousValue = null;
+        splitKey = null;
+        return previous;
+    }
+
+    /**
+     * @return the new right sibling if {@code node} split, with its separator in {@link #splitKey}
+     */
+    private Node insert(Node node, Object key, Object value) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf, key);
+            if (index >= 0) {
+                previousValue = leaf.values[index];
+                leaf.values[index] = value;
+                found = true;
+                return null;
+            }
+            index = -index - 1;
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+            System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+            leaf.keys[index] = key;
+            leaf.values[index] = value;
+            leaf.size++;
+            size++;
+            modCount++;
+            return leaf.size > maxKeys ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, key);
+        Node right = insert(inner.children[child], key, value);
+        if (right == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, child, inner.keys, child + 1, inner.size - child);
+        System.arraycopy(inner.children, child + 1, inner.children, child + 2, inner.size - child);
+        inner.keys[child] = splitKey;
+        inner.children[child + 1] = right;
+        inner.size++;
+        return inner.size > maxKeys ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf leaf) {
+        int mid = leaf.size >>> 1;
+        Leaf right = new Leaf(maxKeys);
+        right.size = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.size);
+        clearSlots(leaf.keys, leaf.values, mid, leaf.size);
+        leaf.size = mid;
+
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            tail = right;
+        }
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    private Inner splitInner(Inner inner) {
+        int mid = inner.size >>> 1;
+        Inner right = new Inner(maxKeys);
+        right.size = inner.size - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.size + 1);
+        splitKey = inner.keys[mid];
+        for (int i = mid; i < inner.size; i++) {
+            inner.keys[i] = null;
+            inner.children[i + 1] = null;
+        }
+        inner.size = mid;
+        return right;
+    }
+
+    private static void clearSlots(Object[] keys, Object[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            keys[i] = null;
+            values[i] = null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        checkKey(key);
+        found = false;
+        previousValue = null;
+        delete(root, key);
+        if (!found) {
+            return null;
+        }
+        if (root instanceof Inner inner && inner.size == 0) {
+            root = inner.children[0];
+        }
+        V previous = (V) previousValue;
+        previousValue = null;
+        return previous;
+    }
+
+    private void delete(Node node, Object key) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf, key);
+            if (index < 0) {
+                return;
+            }
+            previousValue = leaf.values[index];
+            removeFromLeaf(leaf, index);
+            size--;
+            modCount++;
+            found = true;
+            return;
+        }
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, key);
+        delete(inner.children[child], key);
+        if (found) {
+            Node childNode = inner.children[child];
+            if (childNode.size < (childNode instanceof Leaf ? minLeafKeys : minInnerKeys)) {
+                rebalance(inner, child);
+            }
+        }
+    }
+
+    private static void removeFromLeaf(Leaf leaf, int index) {
+        int moved = leaf.size - index - 1;
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, moved);
+        System.arraycopy(leaf.values, index + 1, leaf.values, index, moved);
+        leaf.size--;
+        leaf.keys[leaf.size] = null;
+        leaf.values[leaf.size] = null;
+    }
+
+    /**
+     * Restores the minimum fill of {@code parent.children[index]}: borrow one entry from a sibling
+     * that can spare it, otherwise merge with a sibling.
+     */
+    private void rebalance(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.size ? parent.children[index + 1] : null;
+        if (child instanceof Leaf leaf) {
+            int min = minLeafKeys;
+            if (left != null && left.size > min) {
+                Leaf donor = (Leaf) left;
+                int last = donor.size - 1;
+                System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.size);
+                System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.size);
+                leaf.keys[0] = donor.keys[last];
+                leaf.values[0] = donor.values[last];
+                leaf.size++;
+                removeFromLeaf(donor, last);
+                parent.keys[index - 1] = leaf.keys[0];
+            } else if (right != null && right.size > min) {
+                Leaf donor = (Leaf) right;
+                leaf.keys[leaf.size] = donor.keys[0];
+                leaf.values[leaf.size] = donor.values[0];
+                leaf.size++;
+                removeFromLeaf(donor, 0);
+                parent.keys[index] = donor.keys[0];
+            } else if (left != null) {
+                mergeLeaves((Leaf) left, leaf);
+                removeSeparator(parent, index - 1);
+            } else {
+                mergeLeaves(leaf, (Leaf) right);
+                removeSeparator(parent, index);
+            }
+            return;
+        }
+        Inner inner = (Inner) child;
+        int min = minInnerKeys;
+        if (left != null && left.size > min) {
+            // Rotate right: separator comes down, donor's last key goes up
+            Inner donor = (Inner) left;
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.size);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.size + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = donor.children[donor.size];
+            inner.size++;
+            parent.keys[index - 1] = donor.keys[donor.size - 1];
+            donor.keys[donor.size - 1] = null;
+            donor.children[donor.size] = null;
+            donor.size--;
+        } else if (right != null && right.size > min) {
+            Inner donor = (Inner) right;
+            inner.keys[inner.size] = parent.keys[index];
+            inner.children[inner.size + 1] = donor.children[0];
+            inner.size++;
+            parent.keys[index] = donor.keys[0];
+            System.arraycopy(donor.keys, 1, donor.keys, 0, donor.size - 1);
+            System.arraycopy(donor.children, 1, donor.children, 0, donor.size);
+            donor.keys[donor.size - 1] = null;
+            donor.children[donor.size] = null;
+            donor.size--;
+        } else if (left != null) {
+            mergeInners((Inner) left, parent.keys[index - 1], inner);
+            removeSeparator(parent, index - 1);
+        } else {
+            mergeInners(inner, parent.keys[index], (Inner) right);
+            removeSeparator(parent, index);
+        }
+    }
+
+    private void mergeLeaves(Leaf into, Leaf from) {
+        System.arraycopy(from.keys, 0, into.keys, into.size, from.size);
+        System.arraycopy(from.values, 0, into.values, into.size, from.size);
+        into.size += from.size;
+        into.next = from.next;
+        if (from.next != null) {
+            from.next.prev = into;
+        } else {
+            tail = into;
+        }
+    }
+
+    private static void mergeInners(Inner into, Object separator, Inner from) {
+        into.keys[into.size] = separator;
+        System.arraycopy(from.keys, 0, into.keys, into.size + 1, from.size);
+        System.arraycopy(from.children, 0, into.children, into.size + 1, from.size + 1);
+        into.size += from.size + 1;
+    }
+
+    // Removes keys[index] and children[index + 1]
+    private static void removeSeparator(Inner parent, int index) {
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.size - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.size - index - 1);
+        parent.size--;
+        parent.keys[parent.size] = null;
+        parent.children[parent.size + 1] = null;
+    }
+
+    private Position firstPosition() {
+        return head.size == 0 ? null : new Position(head, 0);
+    }
+
+    private Position lastPosition() {
+        return tail.size == 0 ? null : new Position(tail, tail.size - 1);
+    }
+
+    private Position ceilingPosition(Object key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        if (index >= 0) {
+            if (!inclusive) {
+                index++;
+            }
+        } else {
+            index = -index - 1;
+        }
+        if (index == leaf.size) {
+            // Everything here is smaller; the next leaf starts at or after the separator, above key
+            leaf = leaf.next;
+            index = 0;
+        }
+        return leaf == null ? null : new Position(leaf, index);
+    }
+
+    private Position floorPosition(Object key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        if (index >= 0) {
+            if (!inclusive) {
+                index--;
+            }
+        } else {
+            index = -index - 2;
+        }
+        if (index < 0) {
+            leaf = leaf.prev;
+            if (leaf == null) {
+                return null;
+            }
+            index = leaf.size - 1;
+        }
+        return new Position(leaf, index);
+    }
+
+    // NavigableMap methods of the whole map are those of an unbounded ascending view
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return fullView.entrySet();
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return fullView.navigableKeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return fullView.values();
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return fullView.lowerEntry(key);
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return fullView.lowerKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return fullView.floorEntry(key);
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return fullView.floorKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return fullView.ceilingEntry(key);
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return fullView.ceilingKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return fullView.higherEntry(key);
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return fullView.higherKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return fullView.firstEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return fullView.lastEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return fullView.pollFirstEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return fullView.pollLastEntry();
+    }
+
+    @Override
+    public K firstKey() {
+        return fullView.firstKey();
+    }
+
+    @Override
+    public K lastKey() {
+        return fullView.lastKey();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return fullView.descendingMap();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return fullView.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return fullView.descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return fullView.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return fullView.headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return fullView.tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> exportEntry(Position position) {
+        return position == null ? null : new SimpleImmutableEntry<>((K) position.key(), (V) position.value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyOrNull(Position position) {
+        return position == null ? null : (K) position.key();
+    }
+
+    private static <T> T keyOrThrow(T key, boolean present) {
+        if (!present) {
+            throw new NoSuchElementException();
+        }
+        return key;
+    }
+
+    /**
+     * Bounded and/or descending view of the tree. Bounds are kept in ascending terms; the
+     * {@code abs...} methods navigate in ascending order and the public methods swap them when
+     * the view is descending.
+     */
+    private final class RangeView extends AbstractMap<K, V> implements NavigableMap<K, V> {
+        private final boolean fromStart;
+        private final Object low;
+        private final boolean lowInclusive;
+        private final boolean toEnd;
+        private final Object high;
+        private final boolean highInclusive;
+        private final boolean descending;
+        private Set<Map.Entry<K, V>> entrySet;
+
+        RangeView(boolean fromStart, Object low, boolean lowInclusive,
+                  boolean toEnd, Object high, boolean highInclusive, boolean descending) {
+            this.fromStart = fromStart;
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.toEnd = toEnd;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(Object key) {
+            if (fromStart) {
+                return false;
+            }
+            int cmp = compare(key, low);
+            return cmp < 0 || (cmp == 0 && !lowInclusive);
+        }
+
+        private boolean tooHigh(Object key) {
+            if (toEnd) {
+                return false;
+            }
+            int cmp = compare(key, high);
+            return cmp > 0 || (cmp == 0 && !highInclusive);
+        }
+
+        private boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        private boolean inClosedRange(Object key) {
+            return (fromStart || compare(key, low) >= 0) && (toEnd || compare(key, high) <= 0);
+        }
+
+        private Position absLowest() {
+            Position position = fromStart ? firstPosition() : ceilingPosition(low, lowInclusive);
+            return position == null || tooHigh(position.key()) ? null : position;
+        }
+
+        private Position absHighest() {
+            Position position = toEnd ? lastPosition() : floorPosition(high, highInclusive);
+            return position == null || tooLow(position.key()) ? null : position;
+        }
+
+        private Position absCeiling(Object key, boolean inclusive) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            Position position = ceilingPosition(key, inclusive);
+            return position == null || tooHigh(position.key()) ? null : position;
+        }
+
+        private Position absFloor(Object key, boolean inclusive) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            Position position = floorPosition(key, inclusive);
+            return position == null || tooLow(position.key()) ? null : position;
+        }
+
+        // First slot past the upper bound; iteration stops there instead of comparing every key
+        private Position beyondHigh() {
+            return toEnd ? null : ceilingPosition(high, !highInclusive);
+        }
+
+        private Position beyondLow() {
+            return fromStart ? null : floorPosition(low, !lowInclusive);
+        }
+
+        private Position lowest() {
+            return descending ? absHighest() : absLowest();
+        }
+
+        private Position highest() {
+            return descending ? absLowest() : absHighest();
+        }
+
+        private Position ceiling(Object key, boolean inclusive) {
+            return descending ? absFloor(key, inclusive) : absCeiling(key, inclusive);
+        }
+
+        private Position floor(Object key, boolean inclusive) {
+            return descending ? absCeiling(key, inclusive) : absFloor(key, inclusive);
+        }
+
+        @Override
+        public int size() {
+            if (fromStart && toEnd) {
+                return size;
+            }
+            int count = 0;
+            for (Iterator<Map.Entry<K, V>> it = entrySet().iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return absLowest() == null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            checkKey(key);
+            return inRange(key) && BPlusTreeMap.this.containsKey(key);
+        }
+
+        @Override
+        public V get(Object key) {
+            checkKey(key);
+            return inRange(key) ? BPlusTreeMap.this.get(key) : null;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            checkKey(key);
+            if (!inRange(key)) {
+                throw new IllegalArgumentException("Key out of range: " + key);
+            }
+            return BPlusTreeMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            checkKey(key);
+            return inRange(key) ? BPlusTreeMap.this.remove(key) : null;
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Map.Entry<K, V>> iterator() {
+                        return new RangeIterator<>(RangeView.this) {
+                            @Override
+                            @SuppressWarnings("unchecked")
+                            Map.Entry<K, V> element(Leaf leaf, int index) {
+                                return new WriteThroughEntry((K) leaf.keys[index], (V) leaf.values[index]);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return RangeView.this.size();
+                    }
+
+                    @Override
+                    public boolean isEmpty() {
+                        return RangeView.this.isEmpty();
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        @Override
+        public Collection<V> values() {
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new RangeIterator<>(RangeView.this) {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        V element(Leaf leaf, int index) {
+                            return (V) leaf.values[index];
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return RangeView.this.size();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return RangeView.this.isEmpty();
+                }
+            };
+        }
+
+        Iterator<K> keyIterator() {
+            return new RangeIterator<>(this) {
+                @Override
+                @SuppressWarnings("unchecked")
+                K element(Leaf leaf, int index) {
+                    return (K) leaf.keys[index];
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            if (!descending) {
+                return comparator;
+            }
+            return comparator == null ? Collections.reverseOrder() : Collections.reverseOrder(comparator);
+        }
+
+        @Override
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return exportEntry(floor(key, false));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOrNull(floor(key, false));
+        }
+
+        @Override
+        public Map.Entry<K, V> floorEntry(K key) {
+            return exportEntry(floor(key, true));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOrNull(floor(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return exportEntry(ceiling(key, true));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOrNull(ceiling(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> higherEntry(K key) {
+            return exportEntry(ceiling(key, false));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOrNull(ceiling(key, false));
+        }
+
+        @Override
+        public Map.Entry<K, V> firstEntry() {
+            return exportEntry(lowest());
+        }
+
+        @Override
+        public Map.Entry<K, V> lastEntry() {
+            return exportEntry(highest());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollFirstEntry() {
+            Map.Entry<K, V> entry = firstEntry();
+            if (entry != null) {
+                BPlusTreeMap.this.remove(entry.getKey());
+            }
+            return entry;
+        }
+
+        @Override
+        public Map.Entry<K, V> pollLastEntry() {
+            Map.Entry<K, V> entry = lastEntry();
+            if (entry != null) {
+                BPlusTreeMap.this.remove(entry.getKey());
+            }
+            return entry;
+        }
+
+        @Override
+        public K firstKey() {
+            Position position = lowest();
+            return keyOrThrow(keyOrNull(position), position != null);
+        }
+
+        @Override
+        public K lastKey() {
+            Position position = highest();
+            return keyOrThrow(keyOrNull(position), position != null);
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new RangeView(fromStart, low, lowInclusive, toEnd, high, highInclusive, !descending);
+        }
+
+        @Override
+        public NavigableSet<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet(this);
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            checkKey(fromKey);
+            checkKey(toKey);
+            if (descending) {
+                return bounded(false, toKey, toInclusive, false, fromKey, fromInclusive);
+            }
+            return bounded(false, fromKey, fromInclusive, false, toKey, toInclusive);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            checkKey(toKey);
+            if (descending) {
+                return bounded(false, toKey, inclusive, toEnd, high, highInclusive);
+            }
+            return bounded(fromStart, low, lowInclusive, false, toKey, inclusive);
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            checkKey(fromKey);
+            if (descending) {
+                return bounded(fromStart, low, lowInclusive, false, fromKey, inclusive);
+            }
+            return bounded(false, fromKey, inclusive, toEnd, high, highInclusive);
+        }
+
+        private NavigableMap<K, V> bounded(boolean newFromStart, Object newLow, boolean newLowInclusive,
+                                           boolean newToEnd, Object newHigh, boolean newHighInclusive) {
+            if (!newFromStart && !(newLowInclusive ? inRange(newLow) : inClosedRange(newLow))) {
+                throw new IllegalArgumentException("Key out of range: " + newLow);
+            }
+            if (!newToEnd && !(newHighInclusive ? inRange(newHigh) : inClosedRange(newHigh))) {
+                throw new IllegalArgumentException("Key out of range: " + newHigh);
+            }
+            if (!newFromStart && !newToEnd && compare(newLow, newHigh) > 0) {
+                throw new IllegalArgumentException("fromKey > toKey");
+            }
+            return new RangeView(newFromStart, newLow, newLowInclusive,
+                    newToEnd, newHigh, newHighInclusive, descending);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+    }
+
+    /**
+     * Walks the leaf chain from the view's first slot to the first slot past its range, which is
+     * looked up once, so no key comparisons happen per element.
+     */
+    private abstract class RangeIterator<T> implements Iterator<T> {
+        private final RangeView view;
+        private Leaf leaf;
+        private int index;
+        private Leaf endLeaf;
+        private int endIndex;
+        private Object lastKey;
+        private boolean canRemove;
+        private int expectedModCount = modCount;
+
+        RangeIterator(RangeView view) {
+            this.view = view;
+            seek(view.lowest());
+        }
+
+        abstract T element(Leaf leaf, int index);
+
+        private void seek(Position start) {
+            if (start == null) {
+                leaf = null;
+                return;
+            }
+            leaf = start.leaf;
+            index = start.index;
+            Position end = view.descending ? view.beyondLow() : view.beyondHigh();
+            endLeaf = end == null ? null : end.leaf;
+            endIndex = end == null ? 0 : end.index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public T next() {
+            if (leaf == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Leaf current = leaf;
+            int currentIndex = index;
+            lastKey = current.keys[currentIndex];
+            canRemove = true;
+            if (view.descending) {
+                if (--index < 0) {
+                    leaf = leaf.prev;
+                    index = leaf == null ? 0 : leaf.size - 1;
+                }
+            } else if (++index == leaf.size) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            if (leaf != null && leaf == endLeaf && index == endIndex) {
+                leaf = null;
+            }
+            return element(current, currentIndex);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            Object nextKey = leaf == null ? null : leaf.keys[index];
+            boolean hasNext = leaf != null;
+            BPlusTreeMap.this.remove(lastKey);
+            // Removal may have moved entries between leaves, so look both slots up again
+            if (hasNext) {
+                seek(view.descending ? floorPosition(nextKey, true) : ceilingPosition(nextKey, true));
+            }
+            canRemove = false;
+            expectedModCount = modCount;
+        }
+    }
+
+    private final class WriteThroughEntry extends SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            return BPlusTreeMap.this.put(getKey(), value);
+        }
+    }
+
+    private final class KeySet extends AbstractSet<K> implements NavigableSet<K> {
+        private final RangeView map;
+
+        KeySet(RangeView map) {
+            this.map = map;
+        }
+
+        KeySet(NavigableMap<K, V> map) {
+            this((RangeView) map);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return map.keyIterator();
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!map.containsKey(o)) {
+                return false;
+            }
+            map.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public K lower(K key) {
+            return map.lowerKey(key);
+        }
+
+        @Override
+        public K floor(K key) {
+            return map.floorKey(key);
+        }
+
+        @Override
+        public K ceiling(K key) {
+            return map.ceilingKey(key);
+        }
+
+        @Override
+        public K higher(K key) {
+            return map.higherKey(key);
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K pollFirst() {
+            Map.Entry<K, V> entry = map.pollFirstEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public K pollLast() {
+            Map.Entry<K, V> entry = map.pollLastEntry();
+            return entry == null ? null : entry.getKey();
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return new KeySet(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet(map.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package com.jsamkt.learn.collections.tree;
+
+import com.jsamkt.learn.collections.primitive.LongObjectMap.LongObjectConsumer;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+/**
+ * B+tree from primitive {@code long} keys to objects, the sorted counterpart of
+ * {@code LongObjectMap}.
+ * <p>
+ * Same structure as {@link BPlusTreeMap}, but every node keeps its keys in a {@code long[]}, so a
+ * node search compares primitives in one contiguous array instead of dereferencing a boxed
+ * {@code Long} per probe, and no key is ever boxed. {@link #forEachInRange} finds the first leaf
+ * once and then streams through the linked leaves. {@code int} keys can be stored as longs.
+ * {@code null} values are not permitted. Not thread-safe.
+ *
+ * @param <V> the value type
+ */
+public class LongBPlusTreeMap<V> {
+    private static final int DEFAULT_NODE_CAPACITY = 64;
+
+    private final int maxKeys;
+    private final int minLeafKeys;
+    private final int minInnerKeys;
+
+    private Node root;
+    private Leaf head;
+    private Leaf tail;
+    private int size;
+
+    // Results passed up from the recursive insert/delete
+    private long splitKey;
+    private Object previousValue;
+
+    public LongBPlusTreeMap() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * @param nodeCapacity maximum number of keys per node, at least 4
+     */
+    public LongBPlusTreeMap(int nodeCapacity) {
+        if (nodeCapacity < 4) {
+            throw new IllegalArgumentException("Node capacity must be at least 4: " + nodeCapacity);
+        }
+        this.maxKeys = nodeCapacity;
+        this.minLeafKeys = nodeCapacity / 2;
+        this.minInnerKeys = nodeCapacity / 2 - 1;
+        resetRoot();
+    }
+
+    private abstract static class Node {
+        final long[] keys;
+        int size;
+
+        Node(int capacity) {
+            keys = new long[capacity + 1];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] values;
+        Leaf next;
+        Leaf prev;
+
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity + 1];
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 2];
+        }
+    }
+
+    private static int search(Node node, long key) {
+        long[] keys = node.keys;
+        int low = 0;
+        int high = node.size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keys[mid];
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int childIndex(Inner inner, long key) {
+        int index = search(inner, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Leaf findLeaf(long key) {
+        Node node = root;
+        while (node instanceof Inner inner) {
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        resetRoot();
+    }
+
+    // Also called by the constructor, which must not call the overridable clear()
+    private void resetRoot() {
+        Leaf leaf = new Leaf(maxKeys);
+        root = leaf;
+        head = leaf;
+        tail = leaf;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        return search(findLeaf(key), key) >= 0;
+    }
+
+    /**
+     * @return the previous value, or {@code null} if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        previousValue = null;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            Inner newRoot = new Inner(maxKeys);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+        }
+        V previous = (V) previousValue;
+        previousValue = null;
+        return previous;
+    }
+
+    private Node insert(Node node, long key, Object value) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf, key);
+            if (index >= 0) {
+                previousValue = leaf.values[index];
+                leaf.values[index] = value;
+                return null;
+            }
+            index = -index - 1;
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+            System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+            leaf.keys[index] = key;
+            leaf.values[index] = value;
+            leaf.size++;
+            size++;
+            return leaf.size > maxKeys ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, key);
+        Node right = insert(inner.children[child], key, value);
+        if (right == null) {
+            return null;
+        }
+        System.arraycopy(inner.keys, child, inner.keys, child + 1, inner.size - child);
+        System.arraycopy(inner.children, child + 1, inner.children, child + 2, inner.size - child);
+        inner.keys[child] = splitKey;
+        inner.children[child + 1] = right;
+        inner.size++;
+        return inner.size > maxKeys ? splitInner(inner) : null;
+    }
+
+    private Leaf splitLeaf(Leaf leaf) {
+        int mid = leaf.size >>> 1;
+        Leaf right = new Leaf(maxKeys);
+        right.size = leaf.size - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.size);
+        System.arraycopy(leaf.values, mid, right.values, 0, right.size);
+        for (int i = mid; i < leaf.size; i++) {
+            leaf.values[i] = null;
+        }
+        leaf.size = mid;
+
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            tail = right;
+        }
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    private Inner splitInner(Inner inner) {
+        int mid = inner.size >>> 1;
+        Inner right = new Inner(maxKeys);
+        right.size = inner.size - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.size);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.size + 1);
+        splitKey = inner.keys[mid];
+        for (int i = mid + 1; i <= inner.size; i++) {
+            inner.children[i] = null;
+        }
+        inner.size = mid;
+        return right;
+    }
+
+    /**
+     * @return the removed value, or {@code null} if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        previousValue = null;
+        delete(root, key);
+        if (previousValue == null) {
+            return null;
+        }
+        if (root instanceof Inner inner && inner.size == 0) {
+            root = inner.children[0];
+        }
+        V previous = (V) previousValue;
+        previousValue = null;
+        return previous;
+    }
+
+    private void delete(Node node, long key) {
+        if (node instanceof Leaf leaf) {
+            int index = search(leaf, key);
+            if (index >= 0) {
+                previousValue = leaf.values[index];
+                removeFromLeaf(leaf, index);
+                size--;
+            }
+            return;
+        }
+        Inner inner = (Inner) node;
+        int child = childIndex(inner, key);
+        delete(inner.children[child], key);
+        if (previousValue != null) {
+            Node childNode = inner.children[child];
+            if (childNode.size < (childNode instanceof Leaf ? minLeafKeys : minInnerKeys)) {
+                rebalance(inner, child);
+            }
+        }
+    }
+
+    private static void removeFromLeaf(Leaf leaf, int index) {
+        int moved = leaf.size - index - 1;
+        System.arraycopy(leaf.keys, index + 1, leaf.keys, index, moved);
+        System.arraycopy(leaf.values, index + 1, leaf.values, index, moved);
+        leaf.size--;
+        leaf.values[leaf.size] = null;
+    }
+
+    private void rebalance(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.size ? parent.children[index + 1] : null;
+        if (child instanceof Leaf leaf) {
+            if (left != null && left.size > minLeafKeys) {
+                Leaf donor = (Leaf) left;
+                int last = donor.size - 1;
+                System.arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.size);
+                System.arraycopy(leaf.values, 0, leaf.values, 1, leaf.size);
+                leaf.keys[0] = donor.keys[last];
+                leaf.values[0] = donor.values[last];
+                leaf.size++;
+                removeFromLeaf(donor, last);
+                parent.keys[index - 1] = leaf.keys[0];
+            } else if (right != null && right.size > minLeafKeys) {
+                Leaf donor = (Leaf) right;
+                leaf.keys[leaf.size] = donor.keys[0];
+                leaf.values[leaf.size] = donor.values[0];
+                leaf.size++;
+                removeFromLeaf(donor, 0);
+                parent.keys[index] = donor.keys[0];
+            } else if (left != null) {
+                mergeLeaves((Leaf) left, leaf);
+                removeSeparator(parent, index - 1);
+            } else {
+                mergeLeaves(leaf, (Leaf) right);
+                removeSeparator(parent, index);
+            }
+            return;
+        }
+        Inner inner = (Inner) child;
+        if (left != null && left.size > minInnerKeys) {
+            Inner donor = (Inner) left;
+            System.arraycopy(inner.keys, 0, inner.keys, 1, inner.size);
+            System.arraycopy(inner.children, 0, inner.children, 1, inner.size + 1);
+            inner.keys[0] = parent.keys[index - 1];
+            inner.children[0] = donor.children[donor.size];
+            inner.size++;
+            parent.keys[index - 1] = donor.keys[donor.size - 1];
+            donor.children[donor.size] = null;
+            donor.size--;
+        } else if (right != null && right.size > minInnerKeys) {
+            Inner donor = (Inner) right;
+            inner.keys[inner.size] = parent.keys[index];
+            inner.children[inner.size + 1] = donor.children[0];
+            inner.size++;
+            parent.keys[index] = donor.keys[0];
+            System.arraycopy(donor.keys, 1, donor.keys, 0, donor.size - 1);
+            System.arraycopy(donor.children, 1, donor.children, 0, donor.size);
+            donor.children[donor.size] = null;
+            donor.size--;
+        } else if (left != null) {
+            mergeInners((Inner) left, parent.keys[index - 1], inner);
+            removeSeparator(parent, index - 1);
+        } else {
+            mergeInners(inner, parent.keys[index], (Inner) right);
+            removeSeparator(parent, index);
+        }
+    }
+
+    private void mergeLeaves(Leaf into, Leaf from) {
+        System.arraycopy(from.keys, 0, into.keys, into.size, from.size);
+        System.arraycopy(from.values, 0, into.values, into.size, from.size);
+        into.size += from.size;
+        into.next = from.next;
+        if (from.next != null) {
+            from.next.prev = into;
+        } else {
+            tail = into;
+        }
+    }
+
+    private static void mergeInners(Inner into, long separator, Inner from) {
+        into.keys[into.size] = separator;
+        System.arraycopy(from.keys, 0, into.keys, into.size + 1, from.size);
+        System.arraycopy(from.children, 0, into.children, into.size + 1, from.size + 1);
+        into.size += from.size + 1;
+    }
+
+    private static void removeSeparator(Inner parent, int index) {
+        System.arraycopy(parent.keys, index + 1, parent.keys, index, parent.size - index - 1);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.size - index - 1);
+        parent.size--;
+        parent.children[parent.size + 1] = null;
+    }
+
+    public long firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("Map is empty");
+        }
+        return head.keys[0];
+    }
+
+    public long lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException("Map is empty");
+        }
+        return tail.keys[tail.size - 1];
+    }
+
+    /**
+     * @return the least key {@code >= key}, if any
+     */
+    public OptionalLong ceilingKey(long key) {
+        return ceiling(key, true);
+    }
+
+    /**
+     * @return the least key {@code > key}, if any
+     */
+    public OptionalLong higherKey(long key) {
+        return ceiling(key, false);
+    }
+
+    /**
+     * @return the greatest key {@code <= key}, if any
+     */
+    public OptionalLong floorKey(long key) {
+        return floor(key, true);
+    }
+
+    /**
+     * @return the greatest key {@code < key}, if any
+     */
+    public OptionalLong lowerKey(long key) {
+        return floor(key, false);
+    }
+
+    private OptionalLong ceiling(long key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        index = index >= 0 ? (inclusive ? index : index + 1) : -index - 1;
+        if (index == leaf.size) {
+            leaf = leaf.next;
+            index = 0;
+        }
+        return leaf == null ? OptionalLong.empty() : OptionalLong.of(leaf.keys[index]);
+    }
+
+    private OptionalLong floor(long key, boolean inclusive) {
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf, key);
+        index = index >= 0 ? (inclusive ? index : index - 1) : -index - 2;
+        if (index < 0) {
+            leaf = leaf.prev;
+            if (leaf == null) {
+                return OptionalLong.empty();
+            }
+            index = leaf.size - 1;
+        }
+        return OptionalLong.of(leaf.keys[index]);
+    }
+
+    /**
+     * Visits all entries in ascending key order.
+     */
+    public void forEach(LongObjectConsumer<? super V> action) {
+        for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+            visit(leaf, 0, leaf.size, action);
+        }
+    }
+
+    /**
+     * Visits the entries with {@code fromInclusive <= key < toExclusive} in ascending key order.
+     *
+     * @return the number of entries visited
+     */
+    public int forEachInRange(long fromInclusive, long toExclusive, LongObjectConsumer<? super V> action) {
+        if (fromInclusive >= toExclusive) {
+            return 0;
+        }
+        Leaf leaf = findLeaf(fromInclusive);
+        int start = search(leaf, fromInclusive);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        int visited = 0;
+        while (leaf != null) {
+            int end = leaf.size;
+            if (end > 0 && leaf.keys[end - 1] >= toExclusive) {
+                // Last leaf of the range: cut it at the upper bound and stop
+                end = search(leaf, toExclusive);
+                end = end >= 0 ? end : -end - 1;
+                visit(leaf, start, end, action);
+                return visited + Math.max(0, end - start);
+            }
+            visit(leaf, start, end, action);
+            visited += end - start;
+            leaf = leaf.next;
+            start = 0;
+        }
+        return visited;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> void visit(Leaf leaf, int from, int to, LongObjectConsumer<? super V> action) {
+        long[] keys = leaf.keys;
+        Object[] values = leaf.values;
+        for (int i = from; i < to; i++) {
+            action.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+}
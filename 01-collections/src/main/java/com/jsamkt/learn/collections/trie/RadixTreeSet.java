@@ -0,0 +1,843 @@
+package com.jsamkt.learn.collections.trie;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Sorted set of strings stored in an adaptive radix tree (ART).
+ * <p>
+ * Keys are encoded into an order-preserving byte sequence and the tree branches on one byte per
+ * level. Inner nodes come in four sizes and grow or shrink with their fan-out:
+ * <ul>
+ *     <li>Node4 / Node16 - sorted key bytes next to a child array, scanned linearly</li>
+ *     <li>Node48 - a 256-entry byte index into 48 child slots</li>
+ *     <li>Node256 - a plain 256-entry child array</li>
+ * </ul>
+ * Chains of single-child nodes are collapsed into a byte prefix on the node below (path compression),
+ * and a key whose subtree holds nothing else is stored as the {@code String} itself in its parent's slot
+ * rather than in a separate leaf object.
+ * <p>
+ * Iteration, {@link #floor}, {@link #ceiling} and {@link #prefixScan} follow {@link String#compareTo}
+ * order, so results match a {@code TreeSet<String>}. Lookups cost O(key length) independent of the
+ * number of keys, and a prefix scan goes straight to the subtree of the prefix instead of
+ * comparing against keys along the way. Null keys are not allowed. Not thread-safe.
+ */
+public class RadixTreeSet extends AbstractSet<String> {
+    private static final byte[] NO_PREFIX = new byte[0];
+
+    private Object root;
+    private int size;
+    private boolean changed;
+
+    public RadixTreeSet() {
+    }
+
+    public static RadixTreeSet of(String... keys) {
+        RadixTreeSet set = new RadixTreeSet();
+        for (String key : keys) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String key)) {
+            return false;
+        }
+        byte[] bytes = encode(key);
+        Object slot = root;
+        int depth = 0;
+        while (slot instanceof Node node) {
+            if (!matchesPrefix(node, bytes, depth)) {
+                return false;
+            }
+            depth += node.prefix.length;
+            if (depth == bytes.length) {
+                return node.terminal != null;
+            }
+            slot = node.child(bytes[depth++] & 0xFF);
+        }
+        return key.equals(slot);
+    }
+
+    @Override
+    public boolean add(String key) {
+        byte[] bytes = encode(key);
+        changed = false;
+        root = insert(root, bytes, 0, key);
+        if (changed) {
+            size++;
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof String key) || root == null) {
+            return false;
+        }
+        changed = false;
+        root = delete(root, encode(key), 0, key);
+        if (changed) {
+            size--;
+        }
+        return changed;
+    }
+
+    /**
+     * @return the least key greater than or equal to {@code key}, or {@code null} if there is none
+     */
+    public String ceiling(String key) {
+        return ceiling(root, encode(key), 0, key);
+    }
+
+    /**
+     * @return the greatest key less than or equal to {@code key}, or {@code null} if there is none
+     */
+    public String floor(String key) {
+        return floor(root, encode(key), 0, key);
+    }
+
+    public String first() {
+        if (root == null) {
+            throw new NoSuchElementException("Set is empty");
+        }
+        return first(root);
+    }
+
+    public String last() {
+        if (root == null) {
+            throw new NoSuchElementException("Set is empty");
+        }
+        return last(root);
+    }
+
+    /**
+     * Passes every key starting with {@code prefix} to {@code action}, in ascending order.
+     */
+    public void prefixScan(String prefix, Consumer<? super String> action) {
+        byte[] bytes = encode(prefix);
+        Object slot = root;
+        int depth = 0;
+        while (slot instanceof Node node) {
+            byte[] nodePrefix = node.prefix;
+            for (int i = 0; i < nodePrefix.length; i++) {
+                if (depth + i == bytes.length) {
+                    // The prefix ends inside this node's compressed path: the whole subtree matches
+                    visit(node, action);
+                    return;
+                }
+                if (nodePrefix[i] != bytes[depth + i]) {
+                    return;
+                }
+            }
+            depth += nodePrefix.length;
+            if (depth == bytes.length) {
+                visit(node, action);
+                return;
+            }
+            slot = node.child(bytes[depth++] & 0xFF);
+        }
+        if (slot != null && ((String) slot).startsWith(prefix)) {
+            action.accept((String) slot);
+        }
+    }
+
+    /**
+     * @return the keys starting with {@code prefix}, in ascending order
+     */
+    public List<String> prefixScan(String prefix) {
+        List<String> result = new ArrayList<>();
+        prefixScan(prefix, result::add);
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<? super String> action) {
+        if (root != null) {
+            visit(root, action);
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Order-preserving, prefix-free encoding of UTF-16 code units: chars below 0x80 take one byte,
+     * all others take three bytes with a lead byte of 0x80-0x8F. Comparing encodings byte by byte
+     * (unsigned) gives the same order as {@link String#compareTo}, and ASCII keys branch on one
+     * byte per character.
+     */
+    static byte[] encode(String key) {
+        int length = key.length();
+        int encodedLength = length;
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) >= 0x80) {
+                encodedLength += 2;
+            }
+        }
+        byte[] bytes = new byte[encodedLength];
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else {
+                bytes[position++] = (byte) (0x80 | (c >>> 12));
+                bytes[position++] = (byte) ((c >>> 6) & 0x3F);
+                bytes[position++] = (byte) (c & 0x3F);
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean matchesPrefix(Node node, byte[] bytes, int depth) {
+        byte[] prefix = node.prefix;
+        if (depth + prefix.length > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (prefix[i] != bytes[depth + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object insert(Object slot, byte[] bytes, int depth, String key) {
+        if (slot == null) {
+            changed = true;
+            return key;
+        }
+        if (slot instanceof String leaf) {
+            if (leaf.equals(key)) {
+                return leaf;
+            }
+            // Lazy expansion: split the leaf into a node holding both keys below their common prefix
+            byte[] leafBytes = encode(leaf);
+            int end = depth;
+            while (end < leafBytes.length && end < bytes.length && leafBytes[end] == bytes[end]) {
+                end++;
+            }
+            Node node = new Node4(Arrays.copyOfRange(bytes, depth, end));
+            attach(node, leafBytes, end, leaf);
+            attach(node, bytes, end, key);
+            changed = true;
+            return node;
+        }
+        Node node = (Node) slot;
+        byte[] prefix = node.prefix;
+        int matched = 0;
+        while (matched < prefix.length && depth + matched < bytes.length
+                && prefix[matched] == bytes[depth + matched]) {
+            matched++;
+        }
+        if (matched < prefix.length) {
+            // Key diverges inside the compressed path: split the path at the mismatch
+            Node parent = new Node4(Arrays.copyOf(prefix, matched));
+            parent.insert(prefix[matched] & 0xFF, node);
+            node.prefix = Arrays.copyOfRange(prefix, matched + 1, prefix.length);
+            attach(parent, bytes, depth + matched, key);
+            changed = true;
+            return parent;
+        }
+        depth += prefix.length;
+        if (depth == bytes.length) {
+            if (node.terminal == null) {
+                node.terminal = key;
+                changed = true;
+            }
+            return node;
+        }
+        int b = bytes[depth] & 0xFF;
+        Object child = node.child(b);
+        if (child != null) {
+            Object newChild = insert(child, bytes, depth + 1, key);
+            if (newChild != child) {
+                node.replace(b, newChild);
+            }
+            return node;
+        }
+        if (node.isFull()) {
+            node = node.grow();
+        }
+        node.insert(b, key);
+        changed = true;
+        return node;
+    }
+
+    private static void attach(Node node, byte[] bytes, int depth, String key) {
+        if (depth == bytes.length) {
+            node.terminal = key;
+        } else {
+            node.insert(bytes[depth] & 0xFF, key);
+        }
+    }
+
+    private Object delete(Object slot, byte[] bytes, int depth, String key) {
+        if (slot instanceof String leaf) {
+            if (leaf.equals(key)) {
+                changed = true;
+                return null;
+            }
+            return leaf;
+        }
+        Node node = (Node) slot;
+        if (!matchesPrefix(node, bytes, depth)) {
+            return node;
+        }
+        depth += node.prefix.length;
+        if (depth == bytes.length) {
+            if (node.terminal == null) {
+                return node;
+            }
+            node.terminal = null;
+            changed = true;
+        } else {
+            int b = bytes[depth] & 0xFF;
+            Object child = node.child(b);
+            if (child == null) {
+                return node;
+            }
+            Object newChild = delete(child, bytes, depth + 1, key);
+            if (newChild == child) {
+                return node;
+            }
+            if (newChild == null) {
+                node.delete(b);
+            } else {
+                node.replace(b, newChild);
+            }
+        }
+        return compact(node);
+    }
+
+    private static Object compact(Node node) {
+        if (node.count == 0) {
+            return node.terminal;
+        }
+        if (node.count == 1 && node.terminal == null) {
+            int b = node.ceilingKey(0);
+            Object child = node.child(b);
+            if (child instanceof Node childNode) {
+                // Merge this node's path, the branch byte and the child's path into the child
+                byte[] merged = new byte[node.prefix.length + 1 + childNode.prefix.length];
+                System.arraycopy(node.prefix, 0, merged, 0, node.prefix.length);
+                merged[node.prefix.length] = (byte) b;
+                System.arraycopy(childNode.prefix, 0, merged, node.prefix.length + 1, childNode.prefix.length);
+                childNode.prefix = merged;
+            }
+            return child;
+        }
+        return node.shouldShrink() ? node.shrink() : node;
+    }
+
+    private static String ceiling(Object slot, byte[] bytes, int depth, String key) {
+        if (slot == null) {
+            return null;
+        }
+        if (slot instanceof String leaf) {
+            return leaf.compareTo(key) >= 0 ? leaf : null;
+        }
+        Node node = (Node) slot;
+        byte[] prefix = node.prefix;
+        for (int i = 0; i < prefix.length; i++) {
+            if (depth + i == bytes.length) {
+                return first(node);
+            }
+            int cmp = (prefix[i] & 0xFF) - (bytes[depth + i] & 0xFF);
+            if (cmp != 0) {
+                return cmp > 0 ? first(node) : null;
+            }
+        }
+        depth += prefix.length;
+        if (depth == bytes.length) {
+            return first(node);
+        }
+        int b = bytes[depth] & 0xFF;
+        Object child = node.child(b);
+        if (child != null) {
+            String result = ceiling(child, bytes, depth + 1, key);
+            if (result != null) {
+                return result;
+            }
+        }
+        int next = b == 255 ? -1 : node.ceilingKey(b + 1);
+        return next < 0 ? null : first(node.child(next));
+    }
+
+    private static String floor(Object slot, byte[] bytes, int depth, String key) {
+        if (slot == null) {
+            return null;
+        }
+        if (slot instanceof String leaf) {
+            return leaf.compareTo(key) <= 0 ? leaf : null;
+        }
+        Node node = (Node) slot;
+        byte[] prefix = node.prefix;
+        for (int i = 0; i < prefix.length; i++) {
+            if (depth + i == bytes.length) {
+                return null;
+            }
+            int cmp = (prefix[i] & 0xFF) - (bytes[depth + i] & 0xFF);
+            if (cmp != 0) {
+                return cmp < 0 ? last(node) : null;
+            }
+        }
+        depth += prefix.length;
+        if (depth == bytes.length) {
+            return node.terminal;
+        }
+        int b = bytes[depth] & 0xFF;
+        Object child = node.child(b);
+        if (child != null) {
+            String result = floor(child, bytes, depth + 1, key);
+            if (result != null) {
+                return result;
+            }
+        }
+        int previous = b == 0 ? -1 : node.floorKey(b - 1);
+        return previous < 0 ? node.terminal : last(node.child(previous));
+    }
+
+    private static String first(Object slot) {
+        while (slot instanceof Node node) {
+            if (node.terminal != null) {
+                return node.terminal;
+            }
+            slot = node.child(node.ceilingKey(0));
+        }
+        return (String) slot;
+    }
+
+    private static String last(Object slot) {
+        while (slot instanceof Node node) {
+            if (node.count == 0) {
+                return node.terminal;
+            }
+            slot = node.child(node.floorKey(255));
+        }
+        return (String) slot;
+    }
+
+    private static void visit(Object slot, Consumer<? super String> action) {
+        if (slot instanceof String leaf) {
+            action.accept(leaf);
+            return;
+        }
+        Node node = (Node) slot;
+        if (node.terminal != null) {
+            action.accept(node.terminal);
+        }
+        for (int b = node.ceilingKey(0); b >= 0; b = b == 255 ? -1 : node.ceilingKey(b + 1)) {
+            visit(node.child(b), action);
+        }
+    }
+
+    /**
+     * In-order walk with an explicit stack. A position of -1 means the node's terminal key has not
+     * been emitted yet; otherwise it is the next branch byte to look at.
+     */
+    private class KeyIterator implements Iterator<String> {
+        private final Deque<Node> nodes = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private String next;
+
+        KeyIterator() {
+            if (root instanceof Node node) {
+                nodes.push(node);
+                positions.push(-1);
+                advance();
+            } else {
+                next = (String) root;
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Node node = nodes.peek();
+                int position = positions.pop();
+                if (position == -1) {
+                    positions.push(0);
+                    if (node.terminal != null) {
+                        next = node.terminal;
+                        return;
+                    }
+                    continue;
+                }
+                int b = position > 255 ? -1 : node.ceilingKey(position);
+                if (b < 0) {
+                    nodes.pop();
+                    continue;
+                }
+                positions.push(b + 1);
+                Object child = node.child(b);
+                if (child instanceof Node childNode) {
+                    nodes.push(childNode);
+                    positions.push(-1);
+                } else {
+                    next = (String) child;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            if (nodes.isEmpty()) {
+                next = null;
+            } else {
+                advance();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Inner node. Children are either nodes or the {@code String} keys themselves; {@code terminal}
+     * holds the key that ends exactly at this node, if any.
+     */
+    private abstract static class Node {
+        byte[] prefix;
+        String terminal;
+        int count;
+
+        Node(byte[] prefix) {
+            this.prefix = prefix.length == 0 ? NO_PREFIX : prefix;
+        }
+
+        abstract Object child(int b);
+
+        /** Replaces the child of an existing branch byte. */
+        abstract void replace(int b, Object child);
+
+        /** Adds a new branch byte; the node must not be full. */
+        abstract void insert(int b, Object child);
+
+        abstract void delete(int b);
+
+        abstract boolean isFull();
+
+        abstract Node grow();
+
+        abstract boolean shouldShrink();
+
+        abstract Node shrink();
+
+        /** @return the smallest branch byte {@code >= b}, or -1 */
+        abstract int ceilingKey(int b);
+
+        /** @return the largest branch byte {@code <= b}, or -1 */
+        abstract int floorKey(int b);
+
+        <N extends Node> N copyHeaderTo(N target) {
+            target.terminal = terminal;
+            return target;
+        }
+
+        void copyChildrenTo(Node target) {
+            for (int b = ceilingKey(0); b >= 0; b = b == 255 ? -1 : ceilingKey(b + 1)) {
+                target.insert(b, child(b));
+            }
+        }
+    }
+
+    /** Node4 and Node16 share the sorted-array layout and differ only in capacity. */
+    private abstract static class SortedArrayNode extends Node {
+        final byte[] keys;
+        final Object[] children;
+
+        SortedArrayNode(byte[] prefix, int capacity) {
+            super(prefix);
+            keys = new byte[capacity];
+            children = new Object[capacity];
+        }
+
+        private int indexOf(int b) {
+            for (int i = 0; i < count; i++) {
+                int key = keys[i] & 0xFF;
+                if (key >= b) {
+                    return key == b ? i : -1;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object child(int b) {
+            int index = indexOf(b);
+            return index < 0 ? null : children[index];
+        }
+
+        @Override
+        void replace(int b, Object child) {
+            children[indexOf(b)] = child;
+        }
+
+        @Override
+        void insert(int b, Object child) {
+            int index = 0;
+            while (index < count && (keys[index] & 0xFF) < b) {
+                index++;
+            }
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            System.arraycopy(children, index, children, index + 1, count - index);
+            keys[index] = (byte) b;
+            children[index] = child;
+            count++;
+        }
+
+        @Override
+        void delete(int b) {
+            int index = indexOf(b);
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            children[--count] = null;
+        }
+
+        @Override
+        boolean isFull() {
+            return count == keys.length;
+        }
+
+        @Override
+        Node grow() {
+            Node bigger = keys.length == 4 ? new Node16(prefix) : new Node48(prefix);
+            copyChildrenTo(copyHeaderTo(bigger));
+            return bigger;
+        }
+
+        @Override
+        boolean shouldShrink() {
+            return keys.length == 16 && count <= 3;
+        }
+
+        @Override
+        Node shrink() {
+            Node smaller = copyHeaderTo(new Node4(prefix));
+            copyChildrenTo(smaller);
+            return smaller;
+        }
+
+        @Override
+        int ceilingKey(int b) {
+            for (int i = 0; i < count; i++) {
+                int key = keys[i] & 0xFF;
+                if (key >= b) {
+                    return key;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int floorKey(int b) {
+            for (int i = count - 1; i >= 0; i--) {
+                int key = keys[i] & 0xFF;
+                if (key <= b) {
+                    return key;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Node4 extends SortedArrayNode {
+        Node4(byte[] prefix) {
+            super(prefix, 4);
+        }
+    }
+
+    private static final class Node16 extends SortedArrayNode {
+        Node16(byte[] prefix) {
+            super(prefix, 16);
+        }
+    }
+
+    private static final class Node48 extends Node {
+        /** Slot index + 1 per branch byte; 0 means no child. */
+        private final byte[] index = new byte[256];
+        private final Object[] children = new Object[48];
+
+        Node48(byte[] prefix) {
+            super(prefix);
+        }
+
+        @Override
+        Object child(int b) {
+            int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        void replace(int b, Object child) {
+            children[index[b] - 1] = child;
+        }
+
+        @Override
+        void insert(int b, Object child) {
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            index[b] = (byte) (slot + 1);
+            count++;
+        }
+
+        @Override
+        void delete(int b) {
+            children[index[b] - 1] = null;
+            index[b] = 0;
+            count--;
+        }
+
+        @Override
+        boolean isFull() {
+            return count == 48;
+        }
+
+        @Override
+        Node grow() {
+            Node bigger = copyHeaderTo(new Node256(prefix));
+            copyChildrenTo(bigger);
+            return bigger;
+        }
+
+        @Override
+        boolean shouldShrink() {
+            return count <= 12;
+        }
+
+        @Override
+        Node shrink() {
+            Node smaller = copyHeaderTo(new Node16(prefix));
+            copyChildrenTo(smaller);
+            return smaller;
+        }
+
+        @Override
+        int ceilingKey(int b) {
+            for (int i = b; i < 256; i++) {
+                if (index[i] != 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int floorKey(int b) {
+            for (int i = b; i >= 0; i--) {
+                if (index[i] != 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private static final class Node256 extends Node {
+        private final Object[] children = new Object[256];
+
+        Node256(byte[] prefix) {
+            super(prefix);
+        }
+
+        @Override
+        Object child(int b) {
+            return children[b];
+        }
+
+        @Override
+        void replace(int b, Object child) {
+            children[b] = child;
+        }
+
+        @Override
+        void insert(int b, Object child) {
+            children[b] = child;
+            count++;
+        }
+
+        @Override
+        void delete(int b) {
+            children[b] = null;
+            count--;
+        }
+
+        @Override
+        boolean isFull() {
+            return false;
+        }
+
+        @Override
+        Node grow() {
+            return this;
+        }
+
+        @Override
+        boolean shouldShrink() {
+            // Lower threshold than Node48's capacity so a node at the boundary does not flip back and forth
+            return count <= 36;
+        }
+
+        @Override
+        Node shrink() {
+            Node smaller = copyHeaderTo(new Node48(prefix));
+            copyChildrenTo(smaller);
+            return smaller;
+        }
+
+        @Override
+        int ceilingKey(int b) {
+            for (int i = b; i < 256; i++) {
+                if (children[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int floorKey(int b) {
+            for (int i = b; i >= 0; i--) {
+                if (children[i] != null) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.jsamkt.learn.collections.bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+    private static final int SERIAL_COOKIE = 0x524F4152;
+
+    @Test
+    void testAndCardinalityMatchesAnd() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            RoaringBitmap left = randomBitmap(random);
+            RoaringBitmap right = randomBitmap(random);
+            // Every pairing of array, bitmap and run containers, before and after run optimization
+            for (int optimized = 0; optimized < 2; optimized++) {
+                long expected = copyAnd(bitsOf(left), bitsOf(right)).cardinality();
+                assertEquals(expected, RoaringBitmap.and(left, right).cardinality());
+                assertEquals(expected, RoaringBitmap.andCardinality(left, right));
+                assertEquals(expected, RoaringBitmap.andCardinality(right, left));
+                left.runOptimize();
+                if (random.nextBoolean()) {
+                    right.runOptimize();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSerializationRoundTrip() throws IOException {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            RoaringBitmap bitmap = randomBitmap(random);
+            if (random.nextBoolean()) {
+                bitmap.runOptimize();
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bitmap.serialize(new DataOutputStream(bytes));
+            assertEquals(bitmap.serializedSizeInBytes(), bytes.size());
+
+            RoaringBitmap copy = RoaringBitmap.deserialize(
+                    new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertArrayEquals(bitmap.toArray(), copy.toArray());
+        }
+    }
+
+    @Test
+    void testDeserializeRejectsKeysOutOfOrder() {
+        byte[] bytes = serialized(out -> {
+            out.writeInt(2);
+            writeArrayContainer(out, 5, 1);
+            writeArrayContainer(out, 3, 1);
+        });
+        assertThrows(IllegalArgumentException.class, () -> deserialize(bytes));
+    }
+
+    @Test
+    void testDeserializeRejectsOversizedArrayContainer() {
+        byte[] bytes = serialized(out -> {
+            out.writeInt(1);
+            out.writeChar(0);
+            out.writeByte(Container.ARRAY);
+            // Size is written minus one: 4097 values
+            out.writeChar(4096);
+            for (int value = 0; value <= 4096; value++) {
+                out.writeChar(value);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, () -> deserialize(bytes));
+    }
+
+    @Test
+    void testDeserializeRejectsInvalidRuns() {
+        byte[] empty = serialized(out -> {
+            out.writeInt(1);
+            out.writeChar(0);
+            out.writeByte(Container.RUN);
+            out.writeChar(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> deserialize(empty));
+
+        byte[] overlapping = serialized(out -> {
+            out.writeInt(1);
+            out.writeChar(0);
+            out.writeByte(Container.RUN);
+            out.writeChar(2);
+            out.writeChar(10);
+            out.writeChar(5);
+            out.writeChar(12);
+            out.writeChar(0);
+        });
+        assertThrows(IllegalArgumentException.class, () -> deserialize(overlapping));
+
+        byte[] overflowing = serialized(out -> {
+            out.writeInt(1);
+            out.writeChar(0);
+            out.writeByte(Container.RUN);
+            out.writeChar(1);
+            out.writeChar(65_000);
+            out.writeChar(1_000);
+        });
+        assertThrows(IllegalArgumentException.class, () -> deserialize(overflowing));
+    }
+
+    private static RoaringBitmap randomBitmap(Random random) {
+        BitSet bits = new BitSet();
+        for (int key = 0; key < 6; key++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            int high = key << 16;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    // Sparse: stays an array container
+                    for (int i = 0; i < 200; i++) {
+                        bits.set(high | random.nextInt(1 << 16));
+                    }
+                }
+                case 1 -> {
+                    // Dense and scattered: a bitmap container
+                    for (int i = 0; i < 20_000; i++) {
+                        bits.set(high | random.nextInt(1 << 16));
+                    }
+                }
+                default -> {
+                    // A few long ranges: run containers once optimized
+                    for (int i = 0; i < 5; i++) {
+                        int start = random.nextInt(60_000);
+                        bits.set(high | start, high | (start + random.nextInt(5_000) + 1));
+                    }
+                }
+            }
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bits.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static BitSet bitsOf(RoaringBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    private static BitSet copyAnd(BitSet left, BitSet right) {
+        BitSet result = (BitSet) left.clone();
+        result.and(right);
+        return result;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] serialized(Writer containers) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SERIAL_COOKIE);
+            containers.write(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeArrayContainer(DataOutputStream out, int key, int... values) throws IOException {
+        out.writeChar(key);
+        out.writeByte(Container.ARRAY);
+        out.writeChar(values.length - 1);
+        for (int value : values) {
+            out.writeChar(value);
+        }
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) throws IOException {
+        return RoaringBitmap.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
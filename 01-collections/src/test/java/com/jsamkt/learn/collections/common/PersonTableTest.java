@@ -0,0 +1,56 @@
+package com.jsamkt.learn.collections.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonTableTest {
+
+    @Test
+    void testSortByAgeWithMixedSignAges() {
+        PersonTable table = new PersonTable();
+        int[] ages = {5, -3, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 1};
+        for (int age : ages) {
+            table.add("Edge", age);
+        }
+
+        int[] sorted = table.sortByAge(table.selectAll());
+
+        int[] sortedAges = Arrays.stream(sorted).map(table::age).toArray();
+        int[] expected = ages.clone();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, sortedAges);
+    }
+
+    @Test
+    void testSortByAgeIsStable() {
+        Random random = new Random(42);
+        PersonTable table = new PersonTable();
+        for (int i = 0; i < 1_000; i++) {
+            // Few distinct ages, either side of zero, so most rows tie with many others
+            table.add("Person" + i, random.nextInt(21) - 10);
+        }
+        // Every other row, so positions in the selection differ from row indices
+        int[] selection = Arrays.stream(table.selectAll()).filter(row -> row % 2 == 0).toArray();
+
+        int[] sorted = table.sortByAge(selection);
+
+        // Boxed sorts are stable, so ties stay in selection order
+        int[] expected = Arrays.stream(selection).boxed()
+                .sorted(Comparator.comparingInt(table::age))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        assertArrayEquals(expected, sorted);
+    }
+
+    @Test
+    void testSortByAgeOfEmptySelection() {
+        PersonTable table = new PersonTable();
+        table.add("Alice", 28);
+        assertEquals(0, table.sortByAge(new int[0]).length);
+    }
+}
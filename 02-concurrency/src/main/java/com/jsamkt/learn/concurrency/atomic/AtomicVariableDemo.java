@@ -1,6 +1,10 @@
 package com.jsamkt.learn.concurrency.atomic;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AtomicVariableDemo {
 
@@ -9,6 +13,8 @@ public class AtomicVariableDemo {
     public static void demo()  {
         try {
             demonstrateAtomicVariables();
+            demonstrateStripedCounters();
+            demonstrateCounterContention();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -38,4 +44,97 @@ public class AtomicVariableDemo {
 
         System.out.println("Atomic counter: " + atomicCounter.get() + " (Expected: 5000)");
     }
+
+    private static void demonstrateStripedCounters() throws InterruptedException {
+        System.out.println("\n--- Striped Counters ---");
+
+        // Per-endpoint request counters: a concurrent map of striped counters
+        KeyedStripedCounter<String> requests = new KeyedStripedCounter<>();
+        String[] endpoints = {"/orders", "/orders", "/orders", "/users", "/health"};
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    requests.increment(endpoints[j % endpoints.length]);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.println("Requests per endpoint: " + new TreeMap<>(requests.snapshotThenReset()));
+        System.out.println("Total requests: 40000, after snapshotThenReset: " + requests.total());
+    }
+
+    private static void demonstrateCounterContention() throws InterruptedException {
+        System.out.println("\n--- Counter Contention: AtomicInteger vs synchronized vs LongAdder vs StripedCounter ---");
+
+        // Every thread increments the same counter; the total work is fixed, so flat times mean scaling
+        int totalIncrements = 8_000_000;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %14s %14s %14s %14s%n", "threads", "AtomicInteger", "synchronized", "LongAdder", "Striped");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            int perThread = totalIncrements / threads;
+
+            AtomicInteger atomic = new AtomicInteger();
+            double atomicMs = runContended(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    atomic.incrementAndGet();
+                }
+            });
+
+            SynchronizedCounter locked = new SynchronizedCounter();
+            double lockedMs = runContended(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    locked.increment();
+                }
+            });
+
+            LongAdder adder = new LongAdder();
+            double adderMs = runContended(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    adder.increment();
+                }
+            });
+
+            StripedCounter striped = new StripedCounter();
+            double stripedMs = runContended(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    striped.increment();
+                }
+            });
+
+            long expected = (long) perThread * threads;
+            boolean correct = atomic.get() == expected && locked.get() == expected
+                    && adder.sum() == expected && striped.sum() == expected;
+            System.out.printf("%-8d %11.2f ms %11.2f ms %11.2f ms %11.2f ms  (%d stripes, correct: %b)%n",
+                    threads, atomicMs, lockedMs, adderMs, stripedMs, striped.stripes(), correct);
+        }
+    }
+
+    private static double runContended(int threadCount, Runnable work) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(Thread.ofPlatform().start(work));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private static final class SynchronizedCounter {
+        private long count;
+
+        synchronized void increment() {
+            count++;
+        }
+
+        synchronized long get() {
+            return count;
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package com.jsamkt.learn.concurrency.atomic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link StripedCounter} per key, e.g. request counts per endpoint.
+ * <p>
+ * The hot path is a plain {@code ConcurrentHashMap.get} followed by a striped increment, so
+ * threads counting the same key do not serialize on one {@code AtomicLong} and threads counting
+ * different keys share nothing. {@code computeIfAbsent} only runs the first time a key is seen.
+ *
+ * @param <K> the key type
+ */
+public final class KeyedStripedCounter<K> {
+    private final ConcurrentHashMap<K, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    public void increment(K key) {
+        counter(key).increment();
+    }
+
+    public void add(K key, long delta) {
+        counter(key).add(delta);
+    }
+
+    private StripedCounter counter(K key) {
+        StripedCounter counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> new StripedCounter());
+    }
+
+    /**
+     * @return the count for {@code key}, or {@code 0} if it was never counted
+     */
+    public long sum(K key) {
+        StripedCounter counter = counters.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long total() {
+        long total = 0;
+        for (StripedCounter counter : counters.values()) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return an unmodifiable copy of the current counts; each count is read separately
+     */
+    public Map<K, Long> snapshot() {
+        Map<K, Long> snapshot = new HashMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * Like {@link #snapshot()}, but drains each counter so the next call reports only new counts.
+     * Keys stay registered, so steady-state reporting allocates nothing per key but the snapshot.
+     */
+    public Map<K, Long> snapshotThenReset() {
+        Map<K, Long> snapshot = new HashMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sumThenReset()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public void reset() {
+        counters.values().forEach(StripedCounter::reset);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+}
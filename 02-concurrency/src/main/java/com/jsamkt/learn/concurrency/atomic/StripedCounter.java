@@ -0,0 +1,168 @@
+package com.jsamkt.learn.concurrency.atomic;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@code long} counter that spreads contended updates over cache-line padded cells,
+ * in the style of {@link java.util.concurrent.atomic.LongAdder}.
+ * <p>
+ * Uncontended updates CAS a single base value. Once a CAS fails the counter switches to an array
+ * of cells: each thread hashes to one cell, moves to another on a collision and the array doubles
+ * on repeated collisions, up to the number of processors. Writers on different cores then hit
+ * different cache lines instead of fighting over one. {@link #sum()} adds up the base and all
+ * cells, so it is not an atomic snapshot while updates are in flight.
+ */
+public final class StripedCounter {
+    private static final int MAX_CELLS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Per-thread cell index, shared by all counters; changed after a collision
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> {
+        long id = Thread.currentThread().threadId();
+        return new int[]{(int) (id * 0x9E3779B97F4A7C15L >>> 32) | 1};
+    });
+
+    private final PaddedSequence base = new PaddedSequence();
+    private final AtomicBoolean resizing = new AtomicBoolean();
+    private volatile PaddedSequence[] cells;
+
+    public void increment() {
+        add(1);
+    }
+
+    public void decrement() {
+        add(-1);
+    }
+
+    public void add(long delta) {
+        if (cells == null) {
+            long current = base.get();
+            if (base.compareAndSet(current, current + delta)) {
+                return;
+            }
+        }
+        addContended(delta);
+    }
+
+    private void addContended(long delta) {
+        int[] probe = PROBE.get();
+        boolean collided = false;
+        while (true) {
+            PaddedSequence[] current = cells;
+            if (current == null) {
+                if (!tryGrow(null)) {
+                    long value = base.get();
+                    if (base.compareAndSet(value, value + delta)) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            PaddedSequence cell = current[probe[0] & (current.length - 1)];
+            long value = cell.get();
+            if (cell.compareAndSet(value, value + delta)) {
+                return;
+            }
+            if (collided && current.length < MAX_CELLS) {
+                tryGrow(current);
+                collided = false;
+            } else {
+                collided = true;
+            }
+            // xorshift to a different cell
+            int h = probe[0];
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            probe[0] = h;
+        }
+    }
+
+    /**
+     * @return {@code true} if this thread held the resize lock, whether or not it had to grow
+     */
+    private boolean tryGrow(PaddedSequence[] expected) {
+        if (!resizing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (cells == expected) {
+                int length = expected == null ? Math.min(2, MAX_CELLS) : expected.length * 2;
+                PaddedSequence[] grown = new PaddedSequence[length];
+                int copied = expected == null ? 0 : expected.length;
+                if (copied > 0) {
+                    System.arraycopy(expected, 0, grown, 0, copied);
+                }
+                for (int i = copied; i < length; i++) {
+                    grown[i] = new PaddedSequence();
+                }
+                cells = grown;
+            }
+            return true;
+        } finally {
+            resizing.set(false);
+        }
+    }
+
+    public long sum() {
+        long sum = base.get();
+        PaddedSequence[] current = cells;
+        if (current != null) {
+            for (PaddedSequence cell : current) {
+                sum += cell.get();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sets the count back to zero. Updates racing with the reset may be lost;
+     * use {@link #sumThenReset()} to drain a counter that is still being written.
+     */
+    public void reset() {
+        base.set(0);
+        PaddedSequence[] current = cells;
+        if (current != null) {
+            for (PaddedSequence cell : current) {
+                cell.set(0);
+            }
+        }
+    }
+
+    /**
+     * Returns the count and subtracts exactly that amount from each cell, so increments that land
+     * during the call are kept for the next interval rather than lost.
+     */
+    public long sumThenReset() {
+        long sum = drain(base);
+        PaddedSequence[] current = cells;
+        if (current != null) {
+            for (PaddedSequence cell : current) {
+                sum += drain(cell);
+            }
+        }
+        return sum;
+    }
+
+    private static long drain(PaddedSequence cell) {
+        long value = cell.get();
+        if (value != 0) {
+            cell.getAndAdd(-value);
+        }
+        return value;
+    }
+
+    /**
+     * Number of cells in use; {@code 0} while the counter has never been contended.
+     */
+    public int stripes() {
+        PaddedSequence[] current = cells;
+        return current == null ? 0 : current.length;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+}
@@ -0,0 +1,229 @@
+package com.jsamkt.learn.concurrency.completablefuture;
+
+import com.jsamkt.learn.concurrency.metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@code CompletableFuture} stages on two dedicated, bounded pools instead of the common pool:
+ * one sized to the cores for CPU work, one larger for stages that block on I/O or sleep.
+ * Blocking work on the common pool would otherwise starve parallel streams and every other
+ * {@code *Async} call in the JVM.
+ * <p>
+ * Every stage is named. Its tasks go through an instrumented view of the pool that records how
+ * long each task waited in the queue and how long it ran, and counts the tasks currently waiting
+ * and running, so a slow pipeline shows whether a stage is slow itself or stuck behind others.
+ * <pre>{@code
+ * CompletableFuture<Page> page = pipeline.supplyBlocking("fetch", () -> http.get(url))
+ *         .thenApplyAsync(Parser::parse, pipeline.cpu("parse"))
+ *         .thenApplyAsync(Renderer::render, pipeline.cpu("render"));
+ * }</pre>
+ * Both pools reject work when their queue is full; the rejected stage completes exceptionally
+ * with a {@link RejectedExecutionException}.
+ */
+public class AsyncPipeline implements AutoCloseable {
+
+    /**
+     * A supplier for blocking stages, allowed to throw checked exceptions.
+     */
+    @FunctionalInterface
+    public interface BlockingSupplier<T> {
+        T get() throws Exception;
+    }
+
+    private final ThreadPoolExecutor cpuPool;
+    private final ThreadPoolExecutor blockingPool;
+    private final Map<String, StageStats> stages = new ConcurrentHashMap<>();
+
+    /**
+     * CPU pool with one thread per core, blocking pool with {@code blockingThreads}; both queues
+     * hold {@code queueCapacity} tasks.
+     */
+    public AsyncPipeline(String name, int blockingThreads, int queueCapacity) {
+        this(name, Runtime.getRuntime().availableProcessors(), blockingThreads, queueCapacity);
+    }
+
+    public AsyncPipeline(String name, int cpuThreads, int blockingThreads, int queueCapacity) {
+        this.cpuPool = newPool(name + "-cpu-", cpuThreads, queueCapacity);
+        this.blockingPool = newPool(name + "-blocking-", blockingThreads, queueCapacity);
+    }
+
+    private static ThreadPoolExecutor newPool(String prefix, int threads, int queueCapacity) {
+        ThreadFactory factory = Thread.ofPlatform().name(prefix, 0).daemon().factory();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return an executor for a CPU-bound stage, to pass to {@code thenApplyAsync} and friends
+     */
+    public Executor cpu(String stage) {
+        return stageExecutor(stage, cpuPool);
+    }
+
+    /**
+     * @return an executor for a stage that blocks
+     */
+    public Executor blocking(String stage) {
+        return stageExecutor(stage, blockingPool);
+    }
+
+    public <T> CompletableFuture<T> supplyCpu(String stage, Supplier<T> supplier) {
+        return submit(() -> CompletableFuture.supplyAsync(supplier, cpu(stage)));
+    }
+
+    public <T> CompletableFuture<T> supplyBlocking(String stage, BlockingSupplier<T> supplier) {
+        return submit(() -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, blocking(stage)));
+    }
+
+    // supplyAsync throws straight to the caller when the executor rejects; turn that into a failed future
+    private static <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> start) {
+        try {
+            return start.get();
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Executor stageExecutor(String stage, ThreadPoolExecutor pool) {
+        StageStats stats = stages.computeIfAbsent(stage, StageStats::new);
+        return command -> {
+            long enqueued = System.nanoTime();
+            stats.waiting.incrementAndGet();
+            try {
+                pool.execute(() -> {
+                    long started = System.nanoTime();
+                    stats.waiting.decrementAndGet();
+                    stats.running.incrementAndGet();
+                    stats.queueWait.record(started - enqueued);
+                    try {
+                        command.run();
+                    } finally {
+                        stats.runTime.record(System.nanoTime() - started);
+                        stats.running.decrementAndGet();
+                        stats.completed.increment();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                stats.waiting.decrementAndGet();
+                stats.rejected.increment();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * @return statistics per stage name, in no particular order
+     */
+    public Map<String, StageStats> stageStats() {
+        return Map.copyOf(stages);
+    }
+
+    /**
+     * Tasks waiting or running across all stages.
+     */
+    public int inFlight() {
+        int total = 0;
+        for (StageStats stats : stages.values()) {
+            total += stats.waiting() + stats.running();
+        }
+        return total;
+    }
+
+    /**
+     * @return one line per stage: in-flight counts and queue-wait / run-time percentiles
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-10s %8s %8s %9s %11s %11s %11s %11s%n",
+                "stage", "waiting", "running", "completed", "wait p50", "wait p99", "run p50", "run p99"));
+        stages.values().stream()
+                .sorted((a, b) -> a.name.compareTo(b.name))
+                .forEach(stats -> report.append(String.format("%-10s %8d %8d %9d %8.2f ms %8.2f ms %8.2f ms %8.2f ms%n",
+                        stats.name, stats.waiting(), stats.running(), stats.completed(),
+                        stats.queueWait.percentileNanos(50) / 1e6, stats.queueWait.percentileNanos(99) / 1e6,
+                        stats.runTime.percentileNanos(50) / 1e6, stats.runTime.percentileNanos(99) / 1e6)));
+        return report.toString();
+    }
+
+    @Override
+    public void close() {
+        cpuPool.shutdown();
+        blockingPool.shutdown();
+        try {
+            if (!cpuPool.awaitTermination(5, TimeUnit.SECONDS) || !blockingPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                cpuPool.shutdownNow();
+                blockingPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            cpuPool.shutdownNow();
+            blockingPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Live counters and latency histograms of one named stage.
+     */
+    public static final class StageStats {
+        private final String name;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram runTime = new LatencyHistogram();
+
+        private StageStats(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int waiting() {
+            return waiting.get();
+        }
+
+        public int running() {
+            return running.get();
+        }
+
+        public long completed() {
+            return completed.sum();
+        }
+
+        public long rejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * Time from being handed to the pool until a thread picked the task up.
+         */
+        public LatencyHistogram queueWait() {
+            return queueWait;
+        }
+
+        public LatencyHistogram runTime() {
+            return runTime;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": waiting=" + waiting() + " running=" + running() + " completed=" + completed()
+                    + " rejected=" + rejected() + "\n  queue wait: " + queueWait + "\n  run time:   " + runTime;
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.jsamkt.learn.concurrency.completablefuture;
 
+import com.jsamkt.learn.concurrency.structured.TaskScope;
+import com.jsamkt.learn.concurrency.structured.TaskScope.Subtask;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CompletableFutureDemo {
 
     public static void demo()  {
         try {
             demonstrateCompletableFuture();
+            demonstrateStructuredConcurrency();
+            demonstrateAsyncPipeline();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -73,5 +85,114 @@ public class CompletableFutureDemo {
         } catch (TimeoutException e) {
             System.out.println("Operation timed out!");
         }
+        // get() gave up, but nothing told the task: it keeps its thread busy for another second
+        System.out.println("Timed-out future still running: " + !timeoutFuture.isDone());
+    }
+
+    private static void demonstrateStructuredConcurrency() throws InterruptedException {
+        System.out.println("\n--- Structured Concurrency (TaskScope) ---");
+
+        AtomicInteger cancelled = new AtomicInteger();
+
+        // Fan-out/fan-in: both results are needed, so the first failure cancels the other call
+        long start = System.nanoTime();
+        try (var scope = new TaskScope.ShutdownOnFailure("profile")) {
+            Subtask<String> user = scope.fork(() -> slowCall("user", 200, cancelled));
+            Subtask<String> orders = scope.fork(() -> {
+                Thread.sleep(50);
+                throw new IllegalStateException("order service unavailable");
+            });
+            scope.join().throwIfFailed();
+            System.out.println("Profile: " + user.get() + ", " + orders.get());
+        } catch (ExecutionException e) {
+            System.out.printf("Profile failed after %.0f ms: %s%n",
+                    (System.nanoTime() - start) / 1_000_000.0, e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            System.out.println("Profile timed out");
+        }
+
+        // Hedged request: the fastest replica wins, the slower ones are interrupted
+        start = System.nanoTime();
+        try (var scope = new TaskScope.ShutdownOnSuccess<String>("replicas")) {
+            scope.fork(() -> slowCall("replica-a", 300, cancelled));
+            scope.fork(() -> slowCall("replica-b", 80, cancelled));
+            scope.fork(() -> slowCall("replica-c", 500, cancelled));
+            String fastest = scope.join().result();
+            System.out.printf("Fastest replica: %s after %.0f ms%n", fastest, (System.nanoTime() - start) / 1_000_000.0);
+        } catch (ExecutionException | TimeoutException e) {
+            System.out.println("All replicas failed: " + e);
+        }
+
+        // Deadline propagation: the nested scope inherits the 150 ms budget of the outer one
+        start = System.nanoTime();
+        try (var scope = new TaskScope.ShutdownOnFailure("request", Duration.ofMillis(150))) {
+            scope.fork(() -> {
+                try (var inner = new TaskScope.ShutdownOnFailure("lookup", Duration.ofSeconds(10))) {
+                    System.out.println("Inner scope deadline in ~" + inner.deadline()
+                            .map(d -> Duration.between(Instant.now(), d).toMillis()).orElse(-1L) + " ms");
+                    inner.fork(() -> slowCall("inventory", 2_000, cancelled));
+                    inner.join().throwIfFailed();
+                }
+                return null;
+            });
+            scope.join().throwIfFailed();
+        } catch (TimeoutException e) {
+            System.out.printf("Request timed out after %.0f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+        } catch (ExecutionException e) {
+            System.out.println("Request failed: " + e.getCause());
+        }
+
+        // close() has waited for every subtask, so these are final counts, not a snapshot
+        System.out.println("Subtasks cancelled mid-call: " + cancelled.get() + " (user, replica-a, replica-c, inventory)");
+    }
+
+    private static String slowCall(String name, long millis, AtomicInteger cancelled) throws InterruptedException {
+        try {
+            Thread.sleep(millis);
+            return name;
+        } catch (InterruptedException e) {
+            cancelled.incrementAndGet();
+            throw e;
+        }
+    }
+
+    private static void demonstrateAsyncPipeline() throws Exception {
+        System.out.println("\n--- Async Pipeline with Dedicated Executors ---");
+
+        // fetch (blocking, occasionally very slow) -> parse (CPU) -> store (blocking) -> render (CPU)
+        try (AsyncPipeline pipeline = new AsyncPipeline("orders", 16, 1_000)) {
+            List<CompletableFuture<String>> pages = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                final int orderId = i;
+                CompletableFuture<String> page = pipeline
+                        .supplyBlocking("fetch", () -> {
+                            // One request in 50 hits a slow replica
+                            Thread.sleep(ThreadLocalRandom.current().nextInt(50) == 0 ? 80 : 5);
+                            return "order-" + orderId;
+                        })
+                        .thenApplyAsync(raw -> raw.repeat(200).hashCode(), pipeline.cpu("parse"))
+                        .thenApplyAsync(parsed -> {
+                            sleepQuietly(10);
+                            return parsed;
+                        }, pipeline.blocking("store"))
+                        .thenApplyAsync(stored -> "page " + orderId + " (" + stored + ")", pipeline.cpu("render"));
+                pages.add(page);
+            }
+
+            Thread.sleep(50);
+            System.out.println("In flight after 50 ms: " + pipeline.inFlight());
+            CompletableFuture.allOf(pages.toArray(new CompletableFuture<?>[0])).get();
+            System.out.println("Completed " + pages.size() + " pages, e.g. " + pages.get(0).get());
+            System.out.print(pipeline.report());
+            System.out.println(pipeline.stageStats().get("fetch"));
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,152 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the bounded, array-backed ring-buffer queues.
+ * <p>
+ * Elements live in a pre-allocated power-of-two array indexed by ever-increasing producer and
+ * consumer counters ({@code index & mask}), so unlike {@code ConcurrentLinkedQueue} or
+ * {@code LinkedBlockingQueue} nothing is allocated per element and consecutive elements share
+ * cache lines. The two counters are {@link PaddedSequence}s, so producers and consumers do not
+ * falsely share a cache line.
+ * <p>
+ * Each subclass is safe only for the number of producer and consumer threads in its name.
+ * Null elements are not permitted. Iteration is weakly consistent (see {@link #iterator()}) and
+ * cannot remove elements, so neither can {@link #remove(Object)}.
+ *
+ * @param <E> the element type
+ */
+public abstract class ArrayRingQueue<E> extends AbstractQueue<E> {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    protected final Object[] buffer;
+    protected final int mask;
+    protected final PaddedSequence producerIndex = new PaddedSequence();
+    protected final PaddedSequence consumerIndex = new PaddedSequence();
+
+    protected ArrayRingQueue(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+        }
+        int actualCapacity = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[actualCapacity];
+        this.mask = actualCapacity - 1;
+    }
+
+    /**
+     * Like {@link #offer}, but with weaker memory ordering: the element is published with a release
+     * store and no full fence, and multi-producer queues claim the slot with a plain CAS. Use it when
+     * consumers spin or poll rather than wait to be woken based on what they observe.
+     *
+     * @return {@code false} if the queue was full
+     */
+    public abstract boolean relaxedOffer(E e);
+
+    /**
+     * Like {@link #poll}, but may return {@code null} while an element is being published
+     * instead of waiting for it.
+     */
+    public abstract E relaxedPoll();
+
+    /**
+     * Removes up to {@code limit} available elements and passes them to {@code consumer}, updating
+     * the shared consumer counter once per batch where the queue allows it.
+     *
+     * @return the number of elements removed
+     */
+    public abstract int drainTo(Consumer<? super E> consumer, int limit);
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public int size() {
+        // Re-read until the consumer index is stable so the difference is a real snapshot
+        long after = consumerIndex.get();
+        while (true) {
+            long before = after;
+            long produced = producerIndex.get();
+            after = consumerIndex.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(produced - after, capacity()));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() >= producerIndex.get();
+    }
+
+    /**
+     * Returns a weakly consistent iterator, like those of the {@code java.util.concurrent} queues: it
+     * walks from the consumer index to the producer index read when it was created, skips elements
+     * consumed meanwhile, and never throws {@code ConcurrentModificationException}.
+     * {@link Iterator#remove()} is not supported.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Reads the slot of {@code index} with acquire semantics.
+     *
+     * @return the element, or {@code null} if the slot is empty or not yet published
+     */
+    @SuppressWarnings("unchecked")
+    protected E elementAt(long index) {
+        return (E) SLOT.getAcquire(buffer, (int) index & mask);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", capacity=" + capacity() + "]";
+    }
+
+    private final class Itr implements Iterator<E> {
+        // Elements below the producer index are published, so reading it first makes their slots visible
+        private final long end = producerIndex.getAcquire();
+        private long index = consumerIndex.getAcquire();
+        private E next;
+
+        Itr() {
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && index < end) {
+                E e = elementAt(index);
+                long consumed = consumerIndex.getAcquire();
+                // Only trust the element if no consumer took the slot meanwhile, or it may be from a later lap
+                if (e != null && consumed <= index) {
+                    next = e;
+                }
+                index = Math.max(index + 1, consumed);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            E e = next;
+            if (e == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return e;
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package com.jsamkt.learn.concurrency.concurrentcollection;
 
+import com.jsamkt.learn.concurrency.disruptor.EventPipeline;
+import com.jsamkt.learn.concurrency.disruptor.WaitStrategy;
+
+import java.util.Queue;
 import java.util.concurrent.*;
 
 public class ConcurrentCollectionDemo {
 
     public static void demo() {
         demonstrateConcurrentCollections();
+        demonstrateRingBufferQueues();
+        demonstrateEventPipeline();
     }
 
     private static void demonstrateConcurrentCollections() {
@@ -53,4 +59,211 @@ public class ConcurrentCollectionDemo {
             Thread.currentThread().interrupt();
         }
     }
+
+    private static void demonstrateRingBufferQueues() {
+        System.out.println("\n--- Array Ring-Buffer Queues ---");
+
+        SpscArrayQueue<String> spsc = new SpscArrayQueue<>(4);
+        spsc.offer("Event 1");
+        spsc.relaxedOffer("Event 2");
+        spsc.offer("Event 3");
+        System.out.println("SPSC queue: " + spsc + ", poll: " + spsc.poll());
+        int drained = spsc.drainTo(event -> System.out.println("Drained: " + event), 10);
+        System.out.println("Drained " + drained + " events in one batch");
+
+        // One producer thread and one consumer thread moving the same messages through each queue
+        int messages = 2_000_000;
+        Integer[] payloads = new Integer[1024];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = i;
+        }
+
+        runPipeline("ConcurrentLinkedQueue", new ConcurrentLinkedQueue<>(), Queue::offer, messages, payloads);
+        runPipeline("LinkedBlockingQueue", new LinkedBlockingQueue<>(1024), Queue::offer, messages, payloads);
+        runPipeline("ArrayBlockingQueue", new ArrayBlockingQueue<>(1024), Queue::offer, messages, payloads);
+        runPipeline("SpscArrayQueue offer", new SpscArrayQueue<>(1024), Queue::offer, messages, payloads);
+        runPipeline("SpscArrayQueue relaxedOffer", new SpscArrayQueue<>(1024),
+                (queue, value) -> ((SpscArrayQueue<Integer>) queue).relaxedOffer(value), messages, payloads);
+        runPipeline("MpscArrayQueue", new MpscArrayQueue<>(1024), Queue::offer, messages, payloads);
+        runPipeline("MpmcArrayQueue", new MpmcArrayQueue<>(1024), Queue::offer, messages, payloads);
+
+        // Batch draining: one consumer index update per batch instead of per message
+        SpscArrayQueue<Integer> batched = new SpscArrayQueue<>(1024);
+        long[] sum = {0};
+        long start = System.nanoTime();
+        Thread producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < messages; i++) {
+                while (!batched.relaxedOffer(payloads[i & 1023])) {
+                    Thread.yield();
+                }
+            }
+        });
+        int received = 0;
+        while (received < messages) {
+            int n = batched.drainTo(value -> sum[0] += value, 256);
+            if (n == 0) {
+                Thread.yield();
+            }
+            received += n;
+        }
+        joinQuietly(producer);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-30s %8.2f ms (%.1f M msgs/s)%n", "SpscArrayQueue drainTo(256)",
+                elapsed / 1_000_000.0, messages * 1_000.0 / elapsed);
+    }
+
+    private static void demonstrateEventPipeline() {
+        System.out.println("\n--- Disruptor-Style Event Pipeline ---");
+
+        int messages = 1_000_000;
+
+        // Baseline: a new Order per message, handed over with put/take
+        BlockingQueue<Order> queue = new LinkedBlockingQueue<>(1024);
+        long[] queueSum = {0};
+        long start = System.nanoTime();
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            try {
+                for (int i = 0; i < messages; i++) {
+                    Order order = queue.take();
+                    queueSum[0] += order.price * order.quantity;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            for (int i = 0; i < messages; i++) {
+                Order order = new Order();
+                order.set(i, 100 + (i & 63), 1 + (i & 7));
+                queue.put(order);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        joinQuietly(consumer);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-36s %8.2f ms (%.1f M msgs/s, checksum %d)%n", "LinkedBlockingQueue put/take",
+                elapsed / 1_000_000.0, messages * 1_000.0 / elapsed, queueSum[0]);
+
+        // Same hand-off through pre-allocated events, once per wait strategy
+        runEventPipeline("EventPipeline blocking", WaitStrategy.blocking(), messages);
+        runEventPipeline("EventPipeline parking(50us)", WaitStrategy.parking(50_000), messages);
+        runEventPipeline("EventPipeline yielding", WaitStrategy.yielding(), messages);
+        if (Runtime.getRuntime().availableProcessors() >= 4) {
+            runEventPipeline("EventPipeline busy-spin", WaitStrategy.busySpin(), messages);
+        } else {
+            // A spinning stage never gives its core away; without spare cores the publisher starves
+            System.out.printf("%-36s skipped, needs a dedicated core per thread%n", "EventPipeline busy-spin");
+        }
+
+        // Dependency graph: journal and risk check run in parallel, matching waits for both
+        EventPipeline<Order> pipeline = new EventPipeline<>(Order::new, 1024, WaitStrategy.yielding());
+        long[] journaled = {0};
+        long[] journalBatches = {0};
+        long[] matched = {0};
+        long[] rejected = {0};
+        var journal = pipeline.handleEventsWith((order, sequence, endOfBatch) -> {
+            journaled[0]++;
+            if (endOfBatch) {
+                journalBatches[0]++; // A real journal would flush to disk once here
+            }
+        });
+        var risk = pipeline.handleEventsWith((order, sequence, endOfBatch) ->
+                order.approved = order.price * order.quantity <= 1_000);
+        pipeline.after(journal, risk).then((order, sequence, endOfBatch) -> {
+            if (order.approved) {
+                matched[0]++;
+            } else {
+                rejected[0]++;
+            }
+        });
+        pipeline.start();
+        start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            int id = i;
+            pipeline.publishEvent((order, sequence) -> order.set(id, 100 + (id & 63), 1 + (id & 7)));
+        }
+        try {
+            pipeline.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        elapsed = System.nanoTime() - start;
+        System.out.printf("%-36s %8.2f ms (%.1f M msgs/s)%n", "Journal + risk -> matcher (yielding)",
+                elapsed / 1_000_000.0, messages * 1_000.0 / elapsed);
+        System.out.printf("Journaled %d orders in %d batches (avg %.1f per batch), matched %d, rejected %d%n",
+                journaled[0], journalBatches[0], (double) journaled[0] / journalBatches[0], matched[0], rejected[0]);
+    }
+
+    private static void runEventPipeline(String name, WaitStrategy waitStrategy, int messages) {
+        EventPipeline<Order> pipeline = new EventPipeline<>(Order::new, 1024, waitStrategy);
+        long[] sum = {0};
+        pipeline.handleEventsWith((order, sequence, endOfBatch) -> sum[0] += order.price * order.quantity);
+        pipeline.start();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            int id = i;
+            pipeline.publishEvent((order, sequence) -> order.set(id, 100 + (id & 63), 1 + (id & 7)));
+        }
+        try {
+            pipeline.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-36s %8.2f ms (%.1f M msgs/s, checksum %d)%n",
+                name, elapsed / 1_000_000.0, messages * 1_000.0 / elapsed, sum[0]);
+    }
+
+    // Mutable event: the pipeline allocates 1024 of these up front and reuses them
+    private static final class Order {
+        long id;
+        long price;
+        long quantity;
+        boolean approved;
+
+        void set(long id, long price, long quantity) {
+            this.id = id;
+            this.price = price;
+            this.quantity = quantity;
+            this.approved = false;
+        }
+    }
+
+    private interface Offer {
+        boolean offer(Queue<Integer> queue, Integer value);
+    }
+
+    private static void runPipeline(String name, Queue<Integer> queue, Offer offer, int messages, Integer[] payloads) {
+        long start = System.nanoTime();
+        Thread producer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < messages; i++) {
+                while (!offer.offer(queue, payloads[i & 1023])) {
+                    Thread.yield();
+                }
+            }
+        });
+        long sum = 0;
+        for (int received = 0; received < messages; ) {
+            Integer value = queue.poll();
+            if (value == null) {
+                Thread.yield(); // Spinning politely keeps the demo usable on machines with few cores
+                continue;
+            }
+            sum += value;
+            received++;
+        }
+        joinQuietly(producer);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-30s %8.2f ms (%.1f M msgs/s, checksum %d)%n",
+                name, elapsed / 1_000_000.0, messages * 1_000.0 / elapsed, sum);
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
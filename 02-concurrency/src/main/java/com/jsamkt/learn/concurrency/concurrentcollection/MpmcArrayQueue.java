@@ -0,0 +1,134 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Multi-producer, multi-consumer bounded queue (Dmitry Vyukov's bounded MPMC design).
+ * <p>
+ * Every slot carries a sequence number next to the element. A producer may fill slot
+ * {@code i & mask} when its sequence equals {@code i}, and sets it to {@code i + 1} afterwards;
+ * a consumer may empty it when the sequence is {@code i + 1}, and sets it to {@code i + capacity}
+ * for the next lap. Both sides claim indices by CAS, and the per-slot sequence tells them whether
+ * the queue is full or empty without reading the other side's counter.
+ *
+ * @param <E> the element type
+ */
+public class MpmcArrayQueue<E> extends ArrayRingQueue<E> {
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] sequences;
+
+    public MpmcArrayQueue(int capacity) {
+        super(capacity);
+        sequences = new long[buffer.length];
+        for (int i = 0; i < sequences.length; i++) {
+            SEQUENCE.setRelease(sequences, i, (long) i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offer(e, true);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        return offer(e, false);
+    }
+
+    private boolean offer(E e, boolean strong) {
+        Objects.requireNonNull(e, "element");
+        while (true) {
+            long produced = producerIndex.get();
+            int slot = (int) produced & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, slot);
+            if (sequence < produced) {
+                // Slot still holds the element from the previous lap
+                return false;
+            }
+            if (sequence == produced && (strong
+                    ? producerIndex.compareAndSet(produced, produced + 1)
+                    : producerIndex.weakCompareAndSetPlain(produced, produced + 1))) {
+                buffer[slot] = e;
+                SEQUENCE.setRelease(sequences, slot, produced + 1);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public E poll() {
+        return poll(true);
+    }
+
+    @Override
+    public E relaxedPoll() {
+        return poll(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E poll(boolean strong) {
+        while (true) {
+            long consumed = consumerIndex.get();
+            int slot = (int) consumed & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, slot);
+            if (sequence < consumed + 1) {
+                // Not yet published for this lap: empty, or a producer is mid-write
+                if (!strong || consumed == producerIndex.get()) {
+                    return null;
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            if (sequence == consumed + 1 && (strong
+                    ? consumerIndex.compareAndSet(consumed, consumed + 1)
+                    : consumerIndex.weakCompareAndSetPlain(consumed, consumed + 1))) {
+                E e = (E) buffer[slot];
+                buffer[slot] = null;
+                SEQUENCE.setRelease(sequences, slot, consumed + buffer.length);
+                return e;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        while (true) {
+            long consumed = consumerIndex.get();
+            int slot = (int) consumed & mask;
+            long sequence = (long) SEQUENCE.getAcquire(sequences, slot);
+            if (sequence < consumed + 1) {
+                return null;
+            }
+            E e = (E) buffer[slot];
+            // Only trust the element if no consumer took the slot meanwhile
+            if (sequence == consumed + 1 && e != null && consumerIndex.get() == consumed) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E elementAt(long index) {
+        int slot = (int) index & mask;
+        // The slot is written before its sequence is released, so check the sequence first
+        return (long) SEQUENCE.getAcquire(sequences, slot) == index + 1 ? (E) buffer[slot] : null;
+    }
+
+    @Override
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        // Consumers compete for every slot, so each element still needs its own CAS
+        int taken = 0;
+        E e;
+        while (taken < limit && (e = relaxedPoll()) != null) {
+            taken++;
+            consumer.accept(e);
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,126 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Multi-producer, single-consumer bounded queue.
+ * <p>
+ * Producers claim a slot by CAS on the producer index and then publish the element into the slot
+ * with a release store; the single consumer treats a non-null slot as "ready". Producers share a
+ * cached capacity limit and only read the consumer index when the cache says the queue is full.
+ * A claimed but not yet written slot makes {@link #poll} spin briefly, while {@link #relaxedPoll}
+ * returns {@code null} instead.
+ *
+ * @param <E> the element type
+ */
+public class MpscArrayQueue<E> extends ArrayRingQueue<E> {
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final PaddedSequence producerLimit = new PaddedSequence();
+
+    public MpscArrayQueue(int capacity) {
+        super(capacity);
+        producerLimit.set(buffer.length);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offer(e, true);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        return offer(e, false);
+    }
+
+    private boolean offer(E e, boolean strong) {
+        Objects.requireNonNull(e, "element");
+        long limit = producerLimit.getAcquire();
+        long produced;
+        do {
+            produced = producerIndex.get();
+            if (produced >= limit) {
+                limit = consumerIndex.getAcquire() + buffer.length;
+                if (produced >= limit) {
+                    return false;
+                }
+                // Racy update: a stale, lower limit only costs another refresh
+                producerLimit.setRelease(limit);
+            }
+        } while (!(strong
+                ? producerIndex.compareAndSet(produced, produced + 1)
+                : producerIndex.weakCompareAndSetPlain(produced, produced + 1)));
+        SLOT.setRelease(buffer, (int) produced & mask, e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        return poll(true);
+    }
+
+    @Override
+    public E relaxedPoll() {
+        return poll(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E poll(boolean waitForClaimedSlot) {
+        long consumed = consumerIndex.getPlain();
+        int slot = (int) consumed & mask;
+        E e = (E) SLOT.getAcquire(buffer, slot);
+        if (e == null) {
+            if (!waitForClaimedSlot || consumed == producerIndex.get()) {
+                return null;
+            }
+            // A producer has claimed the slot but not written it yet
+            do {
+                Thread.onSpinWait();
+                e = (E) SLOT.getAcquire(buffer, slot);
+            } while (e == null);
+        }
+        buffer[slot] = null;
+        consumerIndex.setRelease(consumed + 1);
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long consumed = consumerIndex.getPlain();
+        int slot = (int) consumed & mask;
+        E e = (E) SLOT.getAcquire(buffer, slot);
+        if (e == null && consumed != producerIndex.get()) {
+            do {
+                Thread.onSpinWait();
+                e = (E) SLOT.getAcquire(buffer, slot);
+            } while (e == null);
+        }
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        long consumed = consumerIndex.getPlain();
+        int taken = 0;
+        try {
+            while (taken < limit) {
+                int slot = (int) (consumed + taken) & mask;
+                E e = (E) SLOT.getAcquire(buffer, slot);
+                if (e == null) {
+                    break;
+                }
+                buffer[slot] = null;
+                taken++;
+                consumer.accept(e);
+            }
+        } finally {
+            consumerIndex.setRelease(consumed + taken);
+        }
+        return taken;
+    }
+}
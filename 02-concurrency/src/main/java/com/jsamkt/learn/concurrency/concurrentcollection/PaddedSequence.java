@@ -0,0 +1,99 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A {@code long} counter padded to occupy its own cache line.
+ * <p>
+ * A producer index and a consumer index written by different threads must not share a 64-byte
+ * cache line, or every write by one core invalidates the line in the other core's cache
+ * (false sharing). HotSpot may reorder fields within a class but lays out superclass fields
+ * before subclass fields, so the value is surrounded by 7 longs of padding declared in the
+ * superclass and the subclass. {@code @Contended} would do the same but needs
+ * {@code -XX:-RestrictContended} outside the JDK.
+ * <p>
+ * Besides plain and volatile access the counter exposes acquire/release and CAS variants, so each
+ * call site can pay for exactly the ordering it needs.
+ */
+public final class PaddedSequence extends SequenceRightPadding {
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public PaddedSequence() {
+        this(0);
+    }
+
+    public PaddedSequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    /** Volatile read. */
+    public long get() {
+        return value;
+    }
+
+    /** Plain read; only safe for the thread that owns all writes to this counter. */
+    public long getPlain() {
+        return (long) VALUE.get(this);
+    }
+
+    public long getAcquire() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /** Volatile write: includes a full (StoreLoad) fence. */
+    public void set(long newValue) {
+        value = newValue;
+    }
+
+    /** Release write ({@code lazySet}): earlier writes become visible first, but no StoreLoad fence. */
+    public void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    public void setPlain(long newValue) {
+        VALUE.set(this, newValue);
+    }
+
+    public boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+
+    /** CAS with no ordering guarantees beyond atomicity; may fail spuriously. */
+    public boolean weakCompareAndSetPlain(long expected, long newValue) {
+        return VALUE.weakCompareAndSetPlain(this, expected, newValue);
+    }
+
+    public long getAndAdd(long delta) {
+        return (long) VALUE.getAndAdd(this, delta);
+    }
+
+    public long addAndGet(long delta) {
+        return (long) VALUE.getAndAdd(this, delta) + delta;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
+
+abstract class SequenceLeftPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    volatile long value;
+}
+
+abstract class SequenceRightPadding extends SequenceValue {
+    long p11, p12, p13, p14, p15, p16, p17;
+}
@@ -0,0 +1,109 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Single-producer, single-consumer bounded queue.
+ * <p>
+ * Each side owns its counter, so no CAS is needed: the producer writes the slot and then publishes
+ * its index, the consumer reads the slot after seeing the index. Each side also caches the other
+ * side's index and only re-reads it (touching the other core's cache line) when the cached value
+ * says the queue is full or empty. {@link #offer} publishes with a volatile write, which includes a
+ * StoreLoad fence; {@link #relaxedOffer} uses a release store and no fence.
+ *
+ * @param <E> the element type
+ */
+public class SpscArrayQueue<E> extends ArrayRingQueue<E> {
+    private final PaddedSequence producerLimit = new PaddedSequence();
+    private final PaddedSequence consumerLimit = new PaddedSequence();
+
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offer(e, true);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e) {
+        return offer(e, false);
+    }
+
+    private boolean offer(E e, boolean fence) {
+        Objects.requireNonNull(e, "element");
+        long produced = producerIndex.getPlain();
+        if (produced >= producerLimit.getPlain()) {
+            long limit = consumerIndex.getAcquire() + buffer.length;
+            if (produced >= limit) {
+                return false;
+            }
+            producerLimit.setPlain(limit);
+        }
+        buffer[(int) produced & mask] = e;
+        if (fence) {
+            producerIndex.set(produced + 1);
+        } else {
+            producerIndex.setRelease(produced + 1);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long consumed = consumerIndex.getPlain();
+        if (!available(consumed)) {
+            return null;
+        }
+        int slot = (int) consumed & mask;
+        E e = (E) buffer[slot];
+        buffer[slot] = null;
+        consumerIndex.setRelease(consumed + 1);
+        return e;
+    }
+
+    @Override
+    public E relaxedPoll() {
+        return poll();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long consumed = consumerIndex.getPlain();
+        return available(consumed) ? (E) buffer[(int) consumed & mask] : null;
+    }
+
+    private boolean available(long consumed) {
+        if (consumed < consumerLimit.getPlain()) {
+            return true;
+        }
+        long limit = producerIndex.getAcquire();
+        consumerLimit.setPlain(limit);
+        return consumed < limit;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Consumer<? super E> consumer, int limit) {
+        long consumed = consumerIndex.getPlain();
+        long batch = Math.min(limit, producerIndex.getAcquire() - consumed);
+        int taken = 0;
+        try {
+            while (taken < batch) {
+                int slot = (int) (consumed + taken) & mask;
+                E e = (E) buffer[slot];
+                buffer[slot] = null;
+                taken++;
+                consumer.accept(e);
+            }
+        } finally {
+            // One release store frees the whole batch for the producer
+            consumerIndex.setRelease(consumed + taken);
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,15 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+/**
+ * Thrown out of a wait when the waiting stage has been asked to stop.
+ */
+public class AlertException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    static final AlertException INSTANCE = new AlertException();
+
+    private AlertException() {
+        // Thrown on every halt, so a shared instance without a stack trace
+        super("Sequence barrier alerted", null, false, false);
+    }
+}
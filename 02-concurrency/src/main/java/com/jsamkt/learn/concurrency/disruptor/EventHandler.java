@@ -0,0 +1,17 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+/**
+ * Callback of a pipeline stage, invoked on the stage's own thread for every event in order.
+ *
+ * @param <E> the event type
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * @param event      the event; only valid during this call, the slot is reused afterwards
+     * @param sequence   position of the event in the ring buffer
+     * @param endOfBatch {@code true} for the last event currently available, a good point to flush
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch) throws Exception;
+}
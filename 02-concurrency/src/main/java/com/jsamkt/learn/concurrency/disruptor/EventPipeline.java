@@ -0,0 +1,178 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Wires {@link EventHandler}s over a {@link RingBuffer} as a dependency graph, one thread per handler.
+ * <pre>{@code
+ * EventPipeline<Order> pipeline = new EventPipeline<>(Order::new, 1024, WaitStrategy.yielding());
+ * var journal = pipeline.handleEventsWith(journaler);
+ * var risk = pipeline.handleEventsWith(riskCheck);
+ * pipeline.after(journal, risk).then(matcher);   // matcher sees an order once both are done
+ * pipeline.start();
+ * pipeline.publishEvent((order, seq) -> order.set(...));
+ * }</pre>
+ * Handlers in one {@code handleEventsWith}/{@code then} call run in parallel on every event.
+ *
+ * @param <E> the event type
+ */
+public final class EventPipeline<E> {
+    private final RingBuffer<E> ringBuffer;
+    private final List<BatchEventProcessor<E>> processors = new ArrayList<>();
+    private final Set<PaddedSequence> upstreamSequences = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Thread> threads = new ArrayList<>();
+    private ExceptionHandler<? super E> exceptionHandler = ExceptionHandler.logAndSkip();
+    private boolean started;
+
+    public EventPipeline(Supplier<? extends E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+        this.ringBuffer = new RingBuffer<>(eventFactory, bufferSize, waitStrategy);
+    }
+
+    /**
+     * Adds stages that consume events straight from the publisher.
+     */
+    @SafeVarargs
+    public final HandlerGroup<E> handleEventsWith(EventHandler<? super E>... handlers) {
+        // Copied element by element: handing the generic varargs array on would risk heap pollution
+        List<EventHandler<? super E>> stages = new ArrayList<>(handlers.length);
+        for (EventHandler<? super E> handler : handlers) {
+            stages.add(handler);
+        }
+        return createStages(new PaddedSequence[0], stages);
+    }
+
+    /**
+     * Joins several groups, so that stages added with {@link HandlerGroup#then} wait for all of them.
+     */
+    @SafeVarargs
+    public final HandlerGroup<E> after(HandlerGroup<E>... groups) {
+        List<PaddedSequence> sequences = new ArrayList<>();
+        for (HandlerGroup<E> group : groups) {
+            sequences.addAll(Arrays.asList(group.sequences));
+        }
+        return new HandlerGroup<>(this, sequences.toArray(new PaddedSequence[0]));
+    }
+
+    /**
+     * Sets what every stage does when its handler throws; the default is {@link ExceptionHandler#logAndSkip()}.
+     */
+    public void setDefaultExceptionHandler(ExceptionHandler<? super E> exceptionHandler) {
+        if (started) {
+            throw new IllegalStateException("The exception handler must be set before start()");
+        }
+        this.exceptionHandler = Objects.requireNonNull(exceptionHandler, "exceptionHandler");
+        for (BatchEventProcessor<E> processor : processors) {
+            processor.setExceptionHandler(exceptionHandler);
+        }
+    }
+
+    private HandlerGroup<E> createStages(PaddedSequence[] dependencies, List<EventHandler<? super E>> handlers) {
+        if (started) {
+            throw new IllegalStateException("Stages must be added before start()");
+        }
+        SequenceBarrier barrier = ringBuffer.newBarrier(dependencies);
+        PaddedSequence[] sequences = new PaddedSequence[handlers.size()];
+        for (int i = 0; i < handlers.size(); i++) {
+            BatchEventProcessor<E> processor = new BatchEventProcessor<>(ringBuffer, barrier, handlers.get(i));
+            processor.setExceptionHandler(exceptionHandler);
+            processors.add(processor);
+            sequences[i] = processor.getSequence();
+        }
+        upstreamSequences.addAll(Arrays.asList(dependencies));
+        return new HandlerGroup<>(this, sequences);
+    }
+
+    /**
+     * Starts a thread per stage and gates the publisher on the stages nothing else depends on.
+     */
+    public RingBuffer<E> start() {
+        if (started) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        started = true;
+        for (BatchEventProcessor<E> processor : processors) {
+            if (!upstreamSequences.contains(processor.getSequence())) {
+                ringBuffer.addGatingSequences(processor.getSequence());
+            }
+        }
+        for (BatchEventProcessor<E> processor : processors) {
+            Thread thread = Thread.ofPlatform()
+                    .name("pipeline-stage-" + threads.size())
+                    .daemon()
+                    .start(processor);
+            threads.add(thread);
+        }
+        return ringBuffer;
+    }
+
+    public void publishEvent(EventTranslator<? super E> translator) {
+        ringBuffer.publishEvent(translator);
+    }
+
+    public RingBuffer<E> ringBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * Waits until every stage has handled every published event, then stops the stage threads.
+     * <p>
+     * A stage whose thread has died (its exception handler threw) never catches up, and neither do the
+     * stages behind it, so the wait gives up on the remaining events once any stage thread is dead.
+     *
+     * @return {@code false} if events were left unhandled because a stage thread had died
+     */
+    public boolean shutdown() throws InterruptedException {
+        long cursor = ringBuffer.getCursor();
+        boolean drained = true;
+        for (BatchEventProcessor<E> processor : processors) {
+            while (drained && processor.getSequence().get() < cursor) {
+                drained = allStagesAlive();
+                Thread.yield();
+            }
+        }
+        for (BatchEventProcessor<E> processor : processors) {
+            processor.halt();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return drained;
+    }
+
+    private boolean allStagesAlive() {
+        for (Thread thread : threads) {
+            if (!thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A set of stages that later stages can depend on.
+     */
+    public static final class HandlerGroup<E> {
+        private final EventPipeline<E> pipeline;
+        private final PaddedSequence[] sequences;
+
+        private HandlerGroup(EventPipeline<E> pipeline, PaddedSequence[] sequences) {
+            this.pipeline = pipeline;
+            this.sequences = sequences;
+        }
+
+        /**
+         * Adds stages that see an event only after every stage in this group has handled it.
+         */
+        @SafeVarargs
+        public final HandlerGroup<E> then(EventHandler<? super E>... handlers) {
+            List<EventHandler<? super E>> stages = new ArrayList<>(handlers.length);
+            for (EventHandler<? super E> handler : handlers) {
+                stages.add(handler);
+            }
+            return pipeline.createStages(sequences, stages);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+/**
+ * Fills a pre-allocated event in place before it is published.
+ *
+ * @param <E> the event type
+ */
+@FunctionalInterface
+public interface EventTranslator<E> {
+    void translateTo(E event, long sequence);
+}
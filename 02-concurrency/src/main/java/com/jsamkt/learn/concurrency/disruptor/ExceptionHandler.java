@@ -0,0 +1,23 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+/**
+ * Decides what happens when an {@link EventHandler} throws.
+ * <p>
+ * Returning normally skips the event: the stage marks it as handled and moves on, so stages
+ * behind it do not stall. Throwing from here stops the stage's thread instead.
+ *
+ * @param <E> the event type
+ */
+@FunctionalInterface
+public interface ExceptionHandler<E> {
+
+    void handleEventException(Exception exception, long sequence, E event);
+
+    /**
+     * The default: prints the failure and skips the event.
+     */
+    static <E> ExceptionHandler<E> logAndSkip() {
+        return (exception, sequence, event) ->
+                System.err.println("Skipping event " + sequence + " (" + event + "): " + exception);
+    }
+}
@@ -0,0 +1,143 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Pre-allocated ring of reusable events for a single publishing thread.
+ * <p>
+ * Every slot is filled once by the event factory; publishing claims a sequence, mutates the event
+ * in that slot and advances the cursor, so a hand-off allocates nothing. Slot {@code s} is
+ * {@code s & (bufferSize - 1)}. The publisher never laps the slowest final stage: before reusing a
+ * slot it waits on the gating sequences of the stages at the end of the pipeline.
+ * <p>
+ * {@link #next()} and {@link #publish(long)} must only be called from one thread.
+ *
+ * @param <E> the event type
+ */
+public final class RingBuffer<E> {
+    private final Object[] entries;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final PaddedSequence cursor = new PaddedSequence(-1);
+    private PaddedSequence[] gatingSequences = new PaddedSequence[0];
+
+    // Publisher-local state, never read by the stages
+    private long nextValue = -1;
+    private long cachedGatingSequence = -1;
+
+    public RingBuffer(Supplier<? extends E> eventFactory, int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of two: " + bufferSize);
+        }
+        this.entries = new Object[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = eventFactory.get();
+        }
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int bufferSize() {
+        return entries.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Claims the next slot, waiting while the slowest final stage is a whole ring behind.
+     */
+    public long next() {
+        long next = nextValue + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum;
+            while (wrapPoint > (minimum = SequenceBarrier.minimumSequence(gatingSequences, nextValue))) {
+                LockSupport.parkNanos(1);
+            }
+            cachedGatingSequence = minimum;
+        }
+        nextValue = next;
+        return next;
+    }
+
+    /**
+     * Claims the next slot only if it is free.
+     *
+     * @return the claimed sequence, or {@code -1} if the ring is full
+     */
+    public long tryNext() {
+        long next = nextValue + 1;
+        long wrapPoint = next - entries.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long minimum = SequenceBarrier.minimumSequence(gatingSequences, nextValue);
+            cachedGatingSequence = minimum;
+            if (wrapPoint > minimum) {
+                return -1;
+            }
+        }
+        nextValue = next;
+        return next;
+    }
+
+    /**
+     * Makes the event at {@code sequence}, and with it every earlier one, visible to the stages.
+     */
+    public void publish(long sequence) {
+        cursor.setRelease(sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    public void publishEvent(EventTranslator<? super E> translator) {
+        long sequence = next();
+        try {
+            translator.translateTo(get(sequence), sequence);
+        } finally {
+            publish(sequence);
+        }
+    }
+
+    public boolean tryPublishEvent(EventTranslator<? super E> translator) {
+        long sequence = tryNext();
+        if (sequence < 0) {
+            return false;
+        }
+        try {
+            translator.translateTo(get(sequence), sequence);
+        } finally {
+            publish(sequence);
+        }
+        return true;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public long remainingCapacity() {
+        long consumed = SequenceBarrier.minimumSequence(gatingSequences, nextValue);
+        return entries.length - (nextValue - consumed);
+    }
+
+    /**
+     * @param dependencies sequences of the stages that must see an event first; none for a first stage
+     */
+    public SequenceBarrier newBarrier(PaddedSequence... dependencies) {
+        return new SequenceBarrier(cursor, dependencies, waitStrategy);
+    }
+
+    /**
+     * Registers the sequences of the final stages. Call before the first publish.
+     */
+    public void addGatingSequences(PaddedSequence... sequences) {
+        PaddedSequence[] combined = Arrays.copyOf(gatingSequences, gatingSequences.length + sequences.length);
+        System.arraycopy(sequences, 0, combined, gatingSequences.length, sequences.length);
+        gatingSequences = combined;
+    }
+}
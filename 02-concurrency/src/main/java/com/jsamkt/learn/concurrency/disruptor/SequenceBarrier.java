@@ -0,0 +1,55 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+/**
+ * What a stage waits on: the ring buffer's cursor and, for later stages, the sequences of the
+ * stages it depends on. An event is available to the stage once all of them have passed it.
+ */
+public final class SequenceBarrier {
+    private final PaddedSequence cursor;
+    private final PaddedSequence[] dependencies;
+    private final WaitStrategy waitStrategy;
+    private volatile boolean alerted;
+
+    SequenceBarrier(PaddedSequence cursor, PaddedSequence[] dependencies, WaitStrategy waitStrategy) {
+        this.cursor = cursor;
+        // Stages without upstream stages depend on the publisher directly
+        this.dependencies = dependencies.length == 0 ? new PaddedSequence[]{cursor} : dependencies.clone();
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Waits until {@code sequence} is available.
+     *
+     * @return the highest available sequence, which may be well past {@code sequence}: the caller
+     * can process everything up to it as one batch
+     */
+    public long waitFor(long sequence) throws AlertException, InterruptedException {
+        checkAlert();
+        return waitStrategy.waitFor(sequence, cursor, dependencies, this);
+    }
+
+    public void alert() {
+        alerted = true;
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    public void clearAlert() {
+        alerted = false;
+    }
+
+    public void checkAlert() throws AlertException {
+        if (alerted) {
+            throw AlertException.INSTANCE;
+        }
+    }
+
+    static long minimumSequence(PaddedSequence[] sequences, long defaultValue) {
+        long minimum = defaultValue;
+        for (PaddedSequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
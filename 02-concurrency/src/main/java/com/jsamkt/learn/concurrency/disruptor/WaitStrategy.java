@@ -0,0 +1,132 @@
+package com.jsamkt.learn.concurrency.disruptor;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * How a stage waits for the next event. The choice trades latency against CPU use:
+ * <ul>
+ *     <li>{@link #busySpin()} - lowest latency, burns a whole core per stage; needs dedicated cores</li>
+ *     <li>{@link #yielding()} - spins briefly, then yields; low latency while leaving the core to others</li>
+ *     <li>{@link #parking(long)} - spins, yields, then parks for a fixed time; low CPU when idle</li>
+ *     <li>{@link #blocking()} - lock and condition like a {@code BlockingQueue}; highest latency, no idle CPU</li>
+ * </ul>
+ */
+public interface WaitStrategy {
+
+    /**
+     * @return the highest sequence that all {@code dependencies} have reached, at least {@code sequence}
+     */
+    long waitFor(long sequence, PaddedSequence cursor, PaddedSequence[] dependencies, SequenceBarrier barrier)
+            throws AlertException, InterruptedException;
+
+    /**
+     * Called after every publish and on alert; wakes stages that block instead of spinning.
+     */
+    void signalAllWhenBlocking();
+
+    static WaitStrategy busySpin() {
+        return new SpinningWaitStrategy(Integer.MAX_VALUE, 0, 0);
+    }
+
+    static WaitStrategy yielding() {
+        return new SpinningWaitStrategy(100, Integer.MAX_VALUE, 0);
+    }
+
+    static WaitStrategy parking(long parkNanos) {
+        return new SpinningWaitStrategy(100, 100, parkNanos);
+    }
+
+    static WaitStrategy blocking() {
+        return new BlockingWaitStrategy();
+    }
+
+    /**
+     * Spins, then yields, then parks, with a budget of attempts for each phase.
+     */
+    final class SpinningWaitStrategy implements WaitStrategy {
+        private final int spinTries;
+        private final int yieldTries;
+        private final long parkNanos;
+
+        SpinningWaitStrategy(int spinTries, int yieldTries, long parkNanos) {
+            this.spinTries = spinTries;
+            this.yieldTries = yieldTries;
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public long waitFor(long sequence, PaddedSequence cursor, PaddedSequence[] dependencies,
+                            SequenceBarrier barrier) throws AlertException {
+            long available;
+            int attempts = 0;
+            while ((available = SequenceBarrier.minimumSequence(dependencies, Long.MAX_VALUE)) < sequence) {
+                barrier.checkAlert();
+                if (attempts < spinTries) {
+                    Thread.onSpinWait();
+                } else if (attempts - spinTries < yieldTries) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                }
+                if (attempts < Integer.MAX_VALUE) {
+                    attempts++;
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            // Spinning waiters notice on their own
+        }
+    }
+
+    final class BlockingWaitStrategy implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+
+        @Override
+        public long waitFor(long sequence, PaddedSequence cursor, PaddedSequence[] dependencies,
+                            SequenceBarrier barrier) throws AlertException, InterruptedException {
+            if (cursor.get() < sequence) {
+                lock.lock();
+                try {
+                    while (cursor.get() < sequence) {
+                        barrier.checkAlert();
+                        // publish() and alert() signal under this lock after their write, so no wake-up is lost
+                        published.await();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            // Upstream stages do not signal; they are usually only just behind the publisher.
+            // Yield after a short spin so they get the core when there are fewer cores than stages.
+            long available;
+            int spins = 0;
+            while ((available = SequenceBarrier.minimumSequence(dependencies, Long.MAX_VALUE)) < sequence) {
+                barrier.checkAlert();
+                if (++spins < 100) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return available;
+        }
+
+        @Override
+        public void signalAllWhenBlocking() {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
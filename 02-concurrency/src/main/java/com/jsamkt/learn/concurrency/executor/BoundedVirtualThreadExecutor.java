@@ -0,0 +1,108 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a virtual thread per task and limits how many run at once with a {@link Semaphore}.
+ * <p>
+ * With platform threads the pool size is the concurrency limit, and each thread costs a
+ * megabyte-sized stack, so it cannot grow to thousands of blocking calls. Virtual threads are
+ * cheap enough to create one per task, but then nothing stops 10,000 tasks from hitting a
+ * database with 50 connections at once. The semaphore restores that limit: a task that cannot
+ * get a permit parks its virtual thread, which frees the carrier thread for others.
+ * <p>
+ * Virtual threads only unmount when they block outside {@code synchronized}; see
+ * {@link PinningMonitor} to find tasks that pin their carrier.
+ */
+public class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedVirtualThreadExecutor(int maxConcurrency) {
+        this(maxConcurrency, "virtual-");
+    }
+
+    public BoundedVirtualThreadExecutor(int maxConcurrency, String namePrefix) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix, 0).factory());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // Interrupted by shutdownNow() before it got a permit
+                if (command instanceof Future<?> future) {
+                    // submit()ted: cancel so callers blocked in get() are released
+                    future.cancel(false);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                // A plain Runnable has no other way to report this, so still run it, with the flag set
+                permits.acquireUninterruptibly();
+                Thread.currentThread().interrupt();
+            }
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Tasks currently holding a permit.
+     */
+    public int runningCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Tasks whose virtual thread has started but is still waiting for a permit (an estimate).
+     */
+    public int waitingCount() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,35 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How blocking tasks are run.
+ */
+public enum ExecutionMode {
+
+    /**
+     * A fixed pool of platform threads: concurrency is the pool size, extra tasks wait in the queue.
+     */
+    PLATFORM_POOL {
+        @Override
+        public ExecutorService newExecutor(int maxConcurrency) {
+            return Executors.newFixedThreadPool(maxConcurrency);
+        }
+    },
+
+    /**
+     * A virtual thread per task: concurrency is a semaphore, extra tasks wait as parked virtual threads.
+     */
+    VIRTUAL_THREADS {
+        @Override
+        public ExecutorService newExecutor(int maxConcurrency) {
+            return new BoundedVirtualThreadExecutor(maxConcurrency);
+        }
+    };
+
+    /**
+     * @param maxConcurrency how many tasks may run at the same time
+     */
+    public abstract ExecutorService newExecutor(int maxConcurrency);
+}
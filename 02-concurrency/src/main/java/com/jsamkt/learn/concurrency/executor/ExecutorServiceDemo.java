@@ -1,12 +1,25 @@
 package com.jsamkt.learn.concurrency.executor;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ExecutorServiceDemo {
 
     public static void demo(){
         try {
             demonstrateExecutorService();
+            demonstrateExecutionModes();
+            demonstratePinningDetection();
+            demonstrateCoalescingAndBatching();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -55,4 +68,181 @@ public class ExecutorServiceDemo {
 
         executorWithResult.shutdown();
     }
+
+    private static void demonstrateExecutionModes() throws InterruptedException {
+        System.out.println("\n--- Execution Modes: Platform Pool vs Virtual Threads ---");
+
+        // Blocking fan-out: 10,000 calls that each wait 50 ms on "I/O", at most 1,000 at a time
+        int tasks = 10_000;
+        int maxConcurrency = 1_000;
+        runBlockingFanOut(ExecutionMode.VIRTUAL_THREADS, tasks, maxConcurrency);
+        // Without a downstream limit, virtual threads can simply run everything at once
+        runBlockingFanOut(ExecutionMode.VIRTUAL_THREADS, tasks, tasks);
+        // Last, so its 1,000 exiting platform threads do not show up in the other peaks
+        runBlockingFanOut(ExecutionMode.PLATFORM_POOL, tasks, maxConcurrency);
+    }
+
+    private static void runBlockingFanOut(ExecutionMode mode, int tasks, int maxConcurrency) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        ExecutorService executor = mode.newExecutor(maxConcurrency);
+        List<Future<Integer>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            final int taskId = i;
+            futures.add(executor.submit(() -> {
+                Thread.sleep(50);
+                return taskId;
+            }));
+        }
+        long sum = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                sum += future.get();
+            } catch (ExecutionException e) {
+                System.out.println("Task failed: " + e.getCause());
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        System.out.printf("%-15s limit %5d: %d tasks in %.2f ms, peak platform threads %d (checksum %d)%n",
+                mode, maxConcurrency, tasks, (System.nanoTime() - start) / 1_000_000.0,
+                threads.getPeakThreadCount(), sum);
+    }
+
+    private static void demonstratePinningDetection() throws InterruptedException {
+        System.out.println("\n--- Virtual Thread Pinning Detection ---");
+
+        // Blocking inside synchronized pins the carrier; a ReentrantLock lets the virtual thread unmount
+        int tasks = 16;
+        PinningMonitor monitor = new PinningMonitor(Duration.ofMillis(10));
+        try {
+            long start = System.nanoTime();
+            try (ExecutorService executor = new BoundedVirtualThreadExecutor(tasks)) {
+                for (int i = 0; i < tasks; i++) {
+                    Object connection = new Object();
+                    executor.submit(() -> {
+                        synchronized (connection) {
+                            Thread.sleep(50);
+                        }
+                        return null;
+                    });
+                }
+            }
+            System.out.printf("%d tasks sleeping in synchronized: %.2f ms%n", tasks, (System.nanoTime() - start) / 1_000_000.0);
+
+            start = System.nanoTime();
+            try (ExecutorService executor = new BoundedVirtualThreadExecutor(tasks)) {
+                for (int i = 0; i < tasks; i++) {
+                    ReentrantLock connection = new ReentrantLock();
+                    executor.submit(() -> {
+                        connection.lock();
+                        try {
+                            Thread.sleep(50);
+                        } finally {
+                            connection.unlock();
+                        }
+                        return null;
+                    });
+                }
+            }
+            System.out.printf("%d tasks sleeping under ReentrantLock: %.2f ms%n", tasks, (System.nanoTime() - start) / 1_000_000.0);
+        } finally {
+            // Closing drains the event stream, so the counts below are complete
+            monitor.close();
+        }
+        System.out.println("Pinned waits detected: " + monitor.pinnedCount());
+        monitor.pinnedSites().forEach((site, count) -> System.out.println("  " + count + " x " + site));
+    }
+
+    private static void demonstrateCoalescingAndBatching() throws InterruptedException {
+        System.out.println("\n--- Single-Flight and Micro-Batching ---");
+
+        // Downstream service: 5 ms per call, plus 0.1 ms per key when looking up many at once
+        AtomicInteger calls = new AtomicInteger();
+        Callable<String> lookupHotKey = () -> {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(5_000_000);
+            return "profile-42";
+        };
+
+        // 500 concurrent requests for the same hot key
+        int callers = 500;
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                executor.submit(lookupHotKey);
+            }
+        }
+        System.out.printf("Hot key, every caller goes downstream: %d calls, %.2f ms%n",
+                calls.getAndSet(0), (System.nanoTime() - start) / 1_000_000.0);
+
+        ExecutorService loaders = Executors.newFixedThreadPool(16);
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(loaders);
+        start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                executor.submit(() -> singleFlight.execute("user:42", lookupHotKey).join());
+            }
+        }
+        System.out.printf("Hot key through SingleFlight:          %d calls, %.2f ms (%d requests coalesced)%n",
+                calls.getAndSet(0), (System.nanoTime() - start) / 1_000_000.0, singleFlight.coalescedCount());
+
+        // 4,000 lookups over 1,000 keys, through the same 16 downstream connections
+        int lookups = 4_000;
+        int keys = 1_000;
+        long[] checksum = {0};
+        start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(lookups);
+            for (int i = 0; i < lookups; i++) {
+                int key = i % keys;
+                results.add(executor.submit(() -> loaders.submit(() -> {
+                    calls.incrementAndGet();
+                    LockSupport.parkNanos(5_000_000);
+                    return key * 2;
+                }).get()));
+            }
+            for (Future<Integer> result : results) {
+                checksum[0] += getQuietly(result);
+            }
+        }
+        System.out.printf("One call per lookup:   %4d calls, %8.2f ms (checksum %d)%n",
+                calls.getAndSet(0), (System.nanoTime() - start) / 1_000_000.0, checksum[0]);
+
+        checksum[0] = 0;
+        MicroBatcher.BatchLoader<Integer, Integer> batchLookup = batch -> {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(5_000_000 + batch.size() * 100_000L);
+            Map<Integer, Integer> values = new HashMap<>();
+            for (Integer key : batch) {
+                values.put(key, key * 2);
+            }
+            return values;
+        };
+        start = System.nanoTime();
+        try (MicroBatcher<Integer, Integer> batcher = new MicroBatcher<>(batchLookup, 64, Duration.ofNanos(500_000), loaders);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>(lookups);
+            for (int i = 0; i < lookups; i++) {
+                int key = i % keys;
+                results.add(executor.submit(() -> batcher.submit(key).join()));
+            }
+            for (Future<Integer> result : results) {
+                checksum[0] += getQuietly(result);
+            }
+            System.out.printf("MicroBatcher(64, 500us): %4d calls, %8.2f ms (checksum %d, avg batch %.1f keys)%n",
+                    calls.getAndSet(0), (System.nanoTime() - start) / 1_000_000.0, checksum[0], batcher.averageBatchSize());
+        }
+        loaders.shutdown();
+    }
+
+    private static int getQuietly(Future<Integer> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            System.out.println("Lookup failed: " + e.getCause());
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,351 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+
+/**
+ * {@link ThreadPoolExecutor} that measures what pool sizing decisions need: how long tasks wait in
+ * the queue, how long they run, and how many are completed, failed and rejected, both over the
+ * whole pool and per task type.
+ * <p>
+ * Each task is wrapped on submission to remember when it was enqueued; recording into the
+ * {@link com.jsamkt.learn.concurrency.metrics.LatencyHistogram}s is lock- and allocation-free.
+ * Because of the wrapping, {@link #getQueue()} holds wrappers and {@link #remove(Runnable)} does not
+ * find tasks passed to {@code execute}; {@link #shutdownNow()} unwraps the tasks it returns.
+ * <p>
+ * After {@link #registerMBeans()} the pool and every task type show up in JConsole under
+ * {@code com.jsamkt.learn.concurrency:type=ThreadPool}; they are unregistered when the pool terminates.
+ * Task types should come from a small fixed set, since each one keeps its own histograms.
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor implements ThreadPoolMetricsMXBean {
+    public static final String DEFAULT_TASK_TYPE = "default";
+    /**
+     * Name of the totals row in {@link #report()}; reserved, so tasks cannot be submitted under it.
+     */
+    public static final String TOTAL_TASK_TYPE = "all";
+    private static final String JMX_DOMAIN = "com.jsamkt.learn.concurrency";
+
+    private final String name;
+    private final TaskTypeMetrics total = new TaskTypeMetrics(TOTAL_TASK_TYPE);
+    private final ConcurrentHashMap<String, TaskTypeMetrics> taskTypes = new ConcurrentHashMap<>();
+    private boolean registered;
+
+    public InstrumentedThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime,
+                                          TimeUnit unit, BlockingQueue<Runnable> workQueue) {
+        this(name, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, new AbortPolicy());
+    }
+
+    /**
+     * @param name used for the thread names and the JMX object names
+     */
+    public InstrumentedThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, long keepAliveTime,
+                                          TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                          RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Thread.ofPlatform().name(name + "-", 1).factory(), new CountingRejectionHandler(handler));
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        execute(DEFAULT_TASK_TYPE, command);
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code taskType} is the reserved {@link #TOTAL_TASK_TYPE}
+     */
+    public void execute(String taskType, Runnable command) {
+        Objects.requireNonNull(taskType, "taskType");
+        Objects.requireNonNull(command, "command");
+        if (taskType.equals(TOTAL_TASK_TYPE)) {
+            throw new IllegalArgumentException("Task type '" + TOTAL_TASK_TYPE + "' is reserved for the totals");
+        }
+        super.execute(new TimedTask(metricsFor(taskType), command));
+    }
+
+    public <T> Future<T> submit(String taskType, Callable<T> task) {
+        RunnableFuture<T> future = newTaskFor(task);
+        execute(taskType, future);
+        return future;
+    }
+
+    public Future<?> submit(String taskType, Runnable task) {
+        RunnableFuture<Void> future = newTaskFor(task, null);
+        execute(taskType, future);
+        return future;
+    }
+
+    private TaskTypeMetrics metricsFor(String taskType) {
+        TaskTypeMetrics metrics = taskTypes.get(taskType);
+        if (metrics == null) {
+            TaskTypeMetrics created = new TaskTypeMetrics(taskType);
+            metrics = taskTypes.putIfAbsent(taskType, created);
+            if (metrics == null) {
+                metrics = created;
+                registerTaskType(created);
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = super.shutdownNow();
+        pending.replaceAll(task -> task instanceof TimedTask timed ? timed.task : task);
+        return pending;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(new CountingRejectionHandler(handler));
+    }
+
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return ((CountingRejectionHandler) super.getRejectedExecutionHandler()).delegate;
+    }
+
+    @Override
+    protected void terminated() {
+        super.terminated();
+        try {
+            unregisterMBeans();
+        } catch (RuntimeException e) {
+            // Thrown here it would escape into whichever worker or shutdown() call terminated the pool
+            System.err.println("Could not unregister the MBeans of thread pool " + name + ": " + e);
+        }
+    }
+
+    /**
+     * Registers the pool and its task types with the platform MBean server.
+     *
+     * @throws IllegalStateException if a pool with the same name is already registered
+     */
+    public synchronized InstrumentedThreadPoolExecutor registerMBeans() {
+        if (registered) {
+            return this;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, poolObjectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register thread pool " + name, e);
+        }
+        registered = true;
+        taskTypes.values().forEach(this::registerTaskType);
+        return this;
+    }
+
+    private synchronized void registerTaskType(TaskTypeMetrics metrics) {
+        if (!registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = taskTypeObjectName(metrics.getTaskType());
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metrics, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register task type " + metrics.getTaskType(), e);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        if (!registered) {
+            return;
+        }
+        registered = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(poolObjectName());
+            for (String taskType : taskTypes.keySet()) {
+                ObjectName objectName = taskTypeObjectName(taskType);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister thread pool " + name, e);
+        }
+    }
+
+    public ObjectName poolObjectName() throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=ThreadPool,name=" + quoteIfNeeded(name));
+    }
+
+    private ObjectName taskTypeObjectName(String taskType) throws JMException {
+        return new ObjectName(poolObjectName() + ",taskType=" + quoteIfNeeded(taskType));
+    }
+
+    private static String quoteIfNeeded(String value) {
+        return value.matches("[\\w.-]+") ? value : ObjectName.quote(value);
+    }
+
+    /**
+     * Counters and histograms over all task types.
+     */
+    public TaskTypeMetrics totals() {
+        return total;
+    }
+
+    /**
+     * @return metrics per task type, sorted by type
+     */
+    public Map<String, TaskTypeMetrics> taskTypeMetrics() {
+        return new TreeMap<>(taskTypes);
+    }
+
+    /**
+     * @return pool occupancy, then one line per task type and a total line
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format(
+                "%s: pool=%d/%d active=%d queued=%d (%d free)%n%-10s %9s %6s %8s %11s %11s %11s %11s%n",
+                name, getPoolSize(), getMaximumPoolSize(), getActiveCount(), getQueuedCount(), getQueueRemainingCapacity(),
+                "type", "completed", "failed", "rejected", "wait p50", "wait p99", "run p50", "run p99"));
+        taskTypeMetrics().values().forEach(metrics -> appendRow(report, metrics));
+        appendRow(report, total);
+        return report.toString();
+    }
+
+    private static void appendRow(StringBuilder report, TaskTypeMetrics metrics) {
+        report.append(String.format("%-10s %9d %6d %8d %8.2f ms %8.2f ms %8.2f ms %8.2f ms%n",
+                metrics.getTaskType(), metrics.getCompletedCount(), metrics.getFailedCount(), metrics.getRejectedCount(),
+                metrics.getQueueWaitP50Millis(), metrics.getQueueWaitP99Millis(),
+                metrics.getRunTimeP50Millis(), metrics.getRunTimeP99Millis()));
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    @Override
+    public int getQueueRemainingCapacity() {
+        return getQueue().remainingCapacity();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return total.getCompletedCount();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return total.getFailedCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return total.getRejectedCount();
+    }
+
+    @Override
+    public double getQueueWaitP50Millis() {
+        return total.getQueueWaitP50Millis();
+    }
+
+    @Override
+    public double getQueueWaitP99Millis() {
+        return total.getQueueWaitP99Millis();
+    }
+
+    @Override
+    public double getQueueWaitMaxMillis() {
+        return total.getQueueWaitMaxMillis();
+    }
+
+    @Override
+    public double getRunTimeP50Millis() {
+        return total.getRunTimeP50Millis();
+    }
+
+    @Override
+    public double getRunTimeP99Millis() {
+        return total.getRunTimeP99Millis();
+    }
+
+    @Override
+    public double getRunTimeMaxMillis() {
+        return total.getRunTimeMaxMillis();
+    }
+
+    @Override
+    public String[] getTaskTypes() {
+        return taskTypeMetrics().keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void resetStatistics() {
+        total.resetStatistics();
+        taskTypes.values().forEach(TaskTypeMetrics::resetStatistics);
+    }
+
+    // Also measures tasks that a CallerRunsPolicy runs on the submitting thread
+    private final class TimedTask implements Runnable {
+        private final TaskTypeMetrics metrics;
+        private final Runnable task;
+        private final long enqueuedNanos = System.nanoTime();
+
+        TimedTask(TaskTypeMetrics metrics, Runnable task) {
+            this.metrics = metrics;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long started = System.nanoTime();
+            metrics.recordStart(started - enqueuedNanos);
+            total.recordStart(started - enqueuedNanos);
+            boolean failure = true;
+            try {
+                task.run();
+                // submit() wraps tasks in a FutureTask, which keeps the exception instead of throwing it
+                failure = task instanceof Future<?> future && future.isDone() && future.state() == Future.State.FAILED;
+            } finally {
+                long runNanos = System.nanoTime() - started;
+                metrics.recordEnd(runNanos, failure);
+                total.recordEnd(runNanos, failure);
+            }
+        }
+
+        void rejected() {
+            metrics.recordRejection();
+            total.recordRejection();
+        }
+
+        // Shows up in rejection messages
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
+
+    private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler delegate;
+
+        CountingRejectionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (task instanceof TimedTask timed) {
+                timed.rejected();
+            }
+            delegate.rejectedExecution(task, executor);
+        }
+    }
+}
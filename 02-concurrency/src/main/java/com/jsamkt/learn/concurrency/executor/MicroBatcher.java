@@ -0,0 +1,157 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects individual lookups into batches and answers each caller from the batch result.
+ * <p>
+ * A batch is sent as soon as it holds {@code maxBatchSize} distinct keys, or {@code maxDelay}
+ * after its first key arrived, whichever comes first: under load the batches fill up and the
+ * delay never applies; when traffic is light a lookup waits at most {@code maxDelay}. Keys
+ * requested several times while a batch is open are sent once. Worth it when the downstream
+ * call has a large fixed cost per request and a small cost per key.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class MicroBatcher<K, V> implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface BatchLoader<K, V> {
+        /**
+         * @return results by key; keys without an entry complete with {@code null}
+         */
+        Map<K, V> load(List<K> keys) throws Exception;
+    }
+
+    private final BatchLoader<K, V> loader;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private LinkedHashMap<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+    // Bumped on every flush, so a timer armed for an earlier batch cannot flush a later one
+    private long generation;
+    private boolean closed;
+
+    /**
+     * @param executor runs the batch calls
+     */
+    public MicroBatcher(BatchLoader<K, V> loader, int maxBatchSize, Duration maxDelay, Executor executor) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.loader = loader;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("micro-batcher-timer").daemon().factory());
+    }
+
+    public CompletableFuture<V> submit(K key) {
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> full = null;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("MicroBatcher is closed");
+            }
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(key, future);
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                } else if (pending.size() == 1) {
+                    // Armed under the lock, so close() cannot shut the timer down in between
+                    long expected = generation;
+                    timer.schedule(() -> flush(expected), maxDelayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future.copy();
+    }
+
+    private Map<K, CompletableFuture<V>> takePending() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void flush(long expectedGeneration) {
+        Map<K, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            if (generation != expectedGeneration || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        batches.increment();
+        batchedKeys.add(batch.size());
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<K, V> results = loader.load(List.copyOf(batch.keySet()));
+                    batch.forEach((key, future) -> future.complete(results.get(key)));
+                } catch (Throwable e) {
+                    batch.values().forEach(future -> future.completeExceptionally(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public double averageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchedKeys.sum() / count;
+    }
+
+    /**
+     * Sends whatever is pending and stops accepting keys. Batches already sent still complete.
+     */
+    @Override
+    public void close() {
+        Map<K, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            batch = pending.isEmpty() ? null : takePending();
+        } finally {
+            lock.unlock();
+        }
+        if (batch != null) {
+            dispatch(batch);
+        }
+        timer.shutdownNow();
+    }
+}
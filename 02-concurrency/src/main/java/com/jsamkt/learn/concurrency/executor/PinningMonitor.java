@@ -0,0 +1,82 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread.
+ * <p>
+ * In JDK 21 a virtual thread that blocks inside a {@code synchronized} block or method (or in
+ * native code) cannot unmount, so it holds its carrier thread - one of only about as many as
+ * there are cores - for the whole wait. A few such tasks are enough to stall every other virtual
+ * thread. The JVM records each such wait as a {@code jdk.VirtualThreadPinned} JFR event; this class
+ * streams those events in-process and groups them by the first application frame of the stack.
+ * The same information is printed by running with {@code -Djdk.tracePinnedThreads=short}.
+ */
+public class PinningMonitor implements AutoCloseable {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final RecordingStream stream = new RecordingStream();
+    private final LongAdder pinnedCount = new LongAdder();
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    /**
+     * @param threshold shortest pinned wait to report; the JDK default for the event is 20 ms
+     */
+    public PinningMonitor(Duration threshold) {
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, event -> {
+            pinnedCount.increment();
+            pinnedSites.computeIfAbsent(applicationFrame(event.getStackTrace()), site -> new LongAdder()).increment();
+        });
+        stream.startAsync();
+    }
+
+    private static String applicationFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "unknown";
+    }
+
+    public long pinnedCount() {
+        return pinnedCount.sum();
+    }
+
+    /**
+     * @return pinned waits per application frame, sorted by frame
+     */
+    public Map<String, Long> pinnedSites() {
+        Map<String, Long> sites = new TreeMap<>();
+        pinnedSites.forEach((site, count) -> sites.put(site, count.sum()));
+        return sites;
+    }
+
+    /**
+     * Flushes the events recorded so far, so the counts cover everything up to this call, and stops.
+     * Calling it again has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stream.stop();
+        stream.close();
+    }
+}
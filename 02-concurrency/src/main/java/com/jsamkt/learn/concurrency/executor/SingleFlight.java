@@ -0,0 +1,80 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent requests for the same key into a single computation ("single-flight").
+ * <p>
+ * The first caller for a key starts the computation on the executor; callers arriving while it
+ * runs get the same result instead of starting their own. Once it completes the key is forgotten,
+ * so this is not a cache: the next request computes a fresh value. A hot key requested by hundreds
+ * of threads at once thus costs one downstream call instead of hundreds.
+ * <p>
+ * Each caller gets its own copy of the shared future, so one caller cancelling or completing it
+ * does not affect the others.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+    private final Executor executor;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(Executor executor) {
+        this.executor = executor;
+    }
+
+    public CompletableFuture<V> execute(K key, Callable<? extends V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.copy();
+        }
+        executions.increment();
+        try {
+            executor.execute(() -> {
+                V value;
+                try {
+                    value = loader.call();
+                } catch (Throwable e) {
+                    inFlight.remove(key, created);
+                    created.completeExceptionally(e);
+                    return;
+                }
+                // Forget the key before completing, so no one joins a computation that is already over
+                inFlight.remove(key, created);
+                created.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
+
+    /**
+     * Keys with a computation currently running.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    public long executionCount() {
+        return executions.sum();
+    }
+
+    /**
+     * Requests that joined a running computation instead of starting one.
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,117 @@
+package com.jsamkt.learn.concurrency.executor;
+
+import com.jsamkt.learn.concurrency.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for one task type of an {@link InstrumentedThreadPoolExecutor}.
+ */
+public final class TaskTypeMetrics implements TaskTypeMetricsMXBean {
+    private final String taskType;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    TaskTypeMetrics(String taskType) {
+        this.taskType = taskType;
+    }
+
+    void recordStart(long queueWaitNanos) {
+        queueWait.record(queueWaitNanos);
+    }
+
+    void recordEnd(long runNanos, boolean failure) {
+        runTime.record(runNanos);
+        completed.increment();
+        if (failure) {
+            failed.increment();
+        }
+    }
+
+    void recordRejection() {
+        rejected.increment();
+    }
+
+    @Override
+    public String getTaskType() {
+        return taskType;
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Time from being handed to the pool until a thread started the task.
+     */
+    public LatencyHistogram queueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram runTime() {
+        return runTime;
+    }
+
+    @Override
+    public double getQueueWaitP50Millis() {
+        return millis(queueWait.percentileNanos(50));
+    }
+
+    @Override
+    public double getQueueWaitP99Millis() {
+        return millis(queueWait.percentileNanos(99));
+    }
+
+    @Override
+    public double getQueueWaitMaxMillis() {
+        return millis(queueWait.maxNanos());
+    }
+
+    @Override
+    public double getRunTimeP50Millis() {
+        return millis(runTime.percentileNanos(50));
+    }
+
+    @Override
+    public double getRunTimeP99Millis() {
+        return millis(runTime.percentileNanos(99));
+    }
+
+    @Override
+    public double getRunTimeMaxMillis() {
+        return millis(runTime.maxNanos());
+    }
+
+    @Override
+    public void resetStatistics() {
+        completed.reset();
+        failed.reset();
+        rejected.reset();
+        queueWait.reset();
+        runTime.reset();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return taskType + ": completed=" + getCompletedCount() + " failed=" + getFailedCount()
+                + " rejected=" + getRejectedCount() + "\n  queue wait: " + queueWait + "\n  run time:   " + runTime;
+    }
+}
@@ -0,0 +1,33 @@
+package com.jsamkt.learn.concurrency.executor;
+
+/**
+ * JMX view of the tasks of one type run by an {@link InstrumentedThreadPoolExecutor}.
+ * Durations are in milliseconds; percentiles are upper bounds with about 6% resolution.
+ */
+public interface TaskTypeMetricsMXBean {
+
+    String getTaskType();
+
+    long getCompletedCount();
+
+    /**
+     * Tasks that threw; cancelled tasks are not counted.
+     */
+    long getFailedCount();
+
+    long getRejectedCount();
+
+    double getQueueWaitP50Millis();
+
+    double getQueueWaitP99Millis();
+
+    double getQueueWaitMaxMillis();
+
+    double getRunTimeP50Millis();
+
+    double getRunTimeP99Millis();
+
+    double getRunTimeMaxMillis();
+
+    void resetStatistics();
+}
@@ -0,0 +1,49 @@
+package com.jsamkt.learn.concurrency.executor;
+
+/**
+ * JMX view of an {@link InstrumentedThreadPoolExecutor}: pool sizing, queue depth, task counts and
+ * queue-wait / run-time percentiles over all task types. Pool sizes are writable, so a pool can be
+ * resized from JConsole while watching the effect on queue wait.
+ */
+public interface ThreadPoolMetricsMXBean {
+
+    int getPoolSize();
+
+    int getLargestPoolSize();
+
+    int getCorePoolSize();
+
+    void setCorePoolSize(int corePoolSize);
+
+    int getMaximumPoolSize();
+
+    void setMaximumPoolSize(int maximumPoolSize);
+
+    int getActiveCount();
+
+    int getQueuedCount();
+
+    int getQueueRemainingCapacity();
+
+    long getCompletedCount();
+
+    long getFailedCount();
+
+    long getRejectedCount();
+
+    double getQueueWaitP50Millis();
+
+    double getQueueWaitP99Millis();
+
+    double getQueueWaitMaxMillis();
+
+    double getRunTimeP50Millis();
+
+    double getRunTimeP99Millis();
+
+    double getRunTimeMaxMillis();
+
+    String[] getTaskTypes();
+
+    void resetStatistics();
+}
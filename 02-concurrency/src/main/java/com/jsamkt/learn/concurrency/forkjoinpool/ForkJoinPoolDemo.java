@@ -1,11 +1,20 @@
 package com.jsamkt.learn.concurrency.forkjoinpool;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 public class ForkJoinPoolDemo {
 
     public static void demo() {
         demonstrateForkJoin();
+        demonstrateParallelReduction();
+        demonstrateParallelArrayOperations();
     }
 
     private static void demonstrateForkJoin() {
@@ -19,4 +28,105 @@ public class ForkJoinPoolDemo {
         System.out.println("Sum of numbers from 1 to 1000: " + result);
         System.out.println("Theoretically: " + (1000 * 1001 / 2));
     }
+
+    private static void demonstrateParallelReduction() {
+        System.out.println("\n--- Parallel Reduction: Thresholds and ParallelReducer ---");
+        System.out.println("Common pool parallelism: " + ForkJoinPool.getCommonPoolParallelism());
+
+        // Summing a range: the old fixed threshold of 100 creates ~1M tasks for 100M numbers
+        long n = 100_000_000;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        time("SumTask, threshold 100", () -> pool.invoke(new SumTask(1, n, 100)));
+        time("SumTask, adaptive threshold", () -> pool.invoke(new SumTask(1, n)));
+        time("LongStream.rangeClosed().parallel()", () -> LongStream.rangeClosed(1, n).parallel().sum());
+
+        // Summing arrays
+        int size = 20_000_000;
+        long[] longs = LongStream.range(0, size).toArray();
+        int[] ints = IntStream.range(0, size).toArray();
+        double[] doubles = LongStream.range(0, size).asDoubleStream().toArray();
+        ParallelReducer sized = new ParallelReducer();
+        ParallelReducer surplus = new ParallelReducer(pool, ParallelReducer.SplitPolicy.SURPLUS);
+
+        time("LongStream.of(long[]).parallel().sum()", () -> LongStream.of(longs).parallel().sum());
+        time("ParallelReducer.sum(long[]), SIZED", () -> sized.sum(longs));
+        time("ParallelReducer.sum(long[]), SURPLUS", () -> surplus.sum(longs));
+        time("IntStream.of(int[]).parallel() as long", () -> IntStream.of(ints).parallel().asLongStream().sum());
+        time("ParallelReducer.sum(int[])", () -> sized.sum(ints));
+        time("ParallelReducer max of squares (int[])",
+                () -> sized.reduce(ints, Long.MIN_VALUE, value -> (long) value * value, Math::max));
+        time("ParallelReducer.sum(double[])", () -> (long) sized.sum(doubles));
+
+        // Lists of boxed values still pay for unboxing, but not for a Long per task
+        List<Integer> list = new ArrayList<>(IntStream.range(0, 2_000_000).boxed().toList());
+        time("list.parallelStream().mapToLong().sum()",
+                () -> list.parallelStream().mapToLong(Integer::longValue).sum());
+        time("ParallelReducer.reduceToLong(List)",
+                () -> sized.reduceToLong(list, Integer::longValue, 0L, Long::sum));
+        time("ParallelReducer.reduce(List) max",
+                () -> sized.reduce(list, Integer.MIN_VALUE, Math::max, Math::max));
+    }
+
+    // Best of five runs, the first ones double as JIT warm-up
+    private static void time(String name, LongSupplier reduction) {
+        long best = Long.MAX_VALUE;
+        long result = 0;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            result = reduction.getAsLong();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-42s %8.2f ms (result %d)%n", name, best / 1_000_000.0, result);
+    }
+
+    private static void demonstrateParallelArrayOperations() {
+        System.out.println("\n--- Parallel Scan, Sort, Merge and Compaction ---");
+
+        int size = 4_000_000;
+        long[] column = new Random(42).longs(size, 0, 1_000_000).toArray();
+        long[] sorted = column.clone();
+        Arrays.sort(sorted);
+        int runs = 8;
+        int[] runStarts = new int[runs];
+        long[] sortedRuns = column.clone();
+        for (int r = 0; r < runs; r++) {
+            runStarts[r] = (int) ((long) size * r / runs);
+            Arrays.sort(sortedRuns, runStarts[r], (int) ((long) size * (r + 1) / runs));
+        }
+
+        // Same work on pools of 1 to 16 workers; more workers than cores cannot help
+        System.out.println("Available processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %10s %10s %12s %10s %10s%n", "workers", "scan", "sort", "merge runs", "filter", "partition");
+        boolean correct = true;
+        for (int workers : new int[]{1, 2, 4, 8, 16}) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            ParallelArrays arrays = new ParallelArrays(pool);
+
+            long[] check = column.clone();
+            arrays.sort(check);
+            correct &= Arrays.equals(check, sorted);
+
+            double scan = bestOf(() -> arrays.prefixSum(column.clone()));
+            double sort = bestOf(() -> arrays.sort(column.clone()));
+            double mergeRuns = bestOf(() -> arrays.mergeSortedRuns(sortedRuns.clone(), runStarts));
+            double filter = bestOf(() -> arrays.filter(column, value -> value < 100_000));
+            double partition = bestOf(() -> arrays.partition(column.clone(), value -> value % 2 == 0));
+            pool.shutdown();
+
+            System.out.printf("%-8d %7.2f ms %7.2f ms %9.2f ms %7.2f ms %7.2f ms%n",
+                    workers, scan, sort, mergeRuns, filter, partition);
+        }
+        System.out.println("Sort matches Arrays.sort: " + correct + ", rows with value < 100000: "
+                + new ParallelArrays().selectIndices(column, value -> value < 100_000).length);
+    }
+
+    private static double bestOf(Runnable operation) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            operation.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
 }
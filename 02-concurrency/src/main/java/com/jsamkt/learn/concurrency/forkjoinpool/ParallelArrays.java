@@ -0,0 +1,379 @@
+package com.jsamkt.learn.concurrency.forkjoinpool;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Fork/Join building blocks for batch work over {@code long[]} columns: prefix sum, merge sort,
+ * merge of sorted runs, and filter/partition compaction.
+ * <p>
+ * Scan and compaction split the array into a few blocks per worker and make two passes: one that
+ * computes a per-block total (sum, or number of matches), a tiny sequential scan over those totals
+ * to get each block's starting offset, and one that does the real work at that offset. Sort and
+ * merge recurse down to a sequential cutoff and split merges by binary search, so the final merges
+ * run in parallel too instead of on a single thread.
+ */
+public class ParallelArrays {
+    // Below these sizes the sequential algorithm beats the task overhead
+    private static final int SORT_CUTOFF = 1 << 13;
+    private static final int MERGE_CUTOFF = 1 << 13;
+    private static final int MIN_BLOCK_SIZE = 1 << 14;
+
+    private final ForkJoinPool pool;
+
+    public ParallelArrays() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelArrays(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Replaces every element with the sum of itself and all elements before it.
+     *
+     * @return the total, i.e. the last element afterwards
+     */
+    public long prefixSum(long[] array) {
+        int n = array.length;
+        int blocks = blockCount(n);
+        long[] blockSums = new long[blocks];
+        forEachBlock(blocks, block -> {
+            long sum = 0;
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                sum += array[i];
+            }
+            blockSums[block] = sum;
+        });
+        long total = exclusiveScan(blockSums);
+        forEachBlock(blocks, block -> {
+            long sum = blockSums[block];
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                sum += array[i];
+                array[i] = sum;
+            }
+        });
+        return total;
+    }
+
+    /**
+     * Sorts in ascending order with a parallel merge sort; runs below the cutoff use {@code Arrays.sort}.
+     * Needs a buffer as large as the array.
+     */
+    public void sort(long[] array) {
+        if (array.length <= SORT_CUTOFF) {
+            Arrays.sort(array);
+            return;
+        }
+        pool.invoke(new SortTask(array, new long[array.length], 0, array.length, false));
+    }
+
+    /**
+     * Merges two sorted arrays into a new sorted array.
+     */
+    public long[] merge(long[] left, long[] right) {
+        long[] out = new long[left.length + right.length];
+        pool.invoke(new MergeTask(left, 0, left.length, right, 0, right.length, out, 0));
+        return out;
+    }
+
+    /**
+     * Sorts an array made of consecutive sorted runs by merging adjacent runs pairwise, all pairs
+     * of a round in parallel, until one run is left.
+     *
+     * @param runStarts start index of each run, ascending, beginning with {@code 0}
+     */
+    public void mergeSortedRuns(long[] array, int[] runStarts) {
+        int[] bounds = Arrays.copyOf(runStarts, runStarts.length + 1);
+        bounds[runStarts.length] = array.length;
+        long[] source = array;
+        long[] target = new long[array.length];
+        while (bounds.length > 2) {
+            int runs = bounds.length - 1;
+            int[] merged = new int[(runs + 1) / 2 + 1];
+            MergeTask[] merges = new MergeTask[(runs + 1) / 2];
+            for (int r = 0, m = 0; r < runs; r += 2, m++) {
+                int lo = bounds[r];
+                int mid = bounds[r + 1];
+                int hi = r + 2 <= runs ? bounds[r + 2] : mid;
+                merged[m] = lo;
+                merges[m] = new MergeTask(source, lo, mid, source, mid, hi, target, lo);
+            }
+            merged[merged.length - 1] = array.length;
+            long[] from = source;
+            // Always inside the pool: a merge invoked on the caller thread would fork into the common pool
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(merges)));
+            bounds = merged;
+            source = target;
+            target = from;
+        }
+        if (source != array) {
+            long[] result = source;
+            int blocks = blockCount(array.length);
+            forEachBlock(blocks, block -> {
+                int start = blockStart(array.length, blocks, block);
+                System.arraycopy(result, start, array, start, blockStart(array.length, blocks, block + 1) - start);
+            });
+        }
+    }
+
+    /**
+     * @return the elements matching {@code predicate}, in their original order
+     */
+    public long[] filter(long[] array, LongPredicate predicate) {
+        int n = array.length;
+        int blocks = blockCount(n);
+        long[] offsets = countMatches(array, predicate, blocks);
+        long[] out = new long[(int) exclusiveScan(offsets)];
+        forEachBlock(blocks, block -> {
+            int position = (int) offsets[block];
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                if (predicate.test(array[i])) {
+                    out[position++] = array[i];
+                }
+            }
+        });
+        return out;
+    }
+
+    /**
+     * @return the positions of the matching elements, ascending: a selection vector over the column
+     */
+    public int[] selectIndices(long[] array, LongPredicate predicate) {
+        int n = array.length;
+        int blocks = blockCount(n);
+        long[] offsets = countMatches(array, predicate, blocks);
+        int[] out = new int[(int) exclusiveScan(offsets)];
+        forEachBlock(blocks, block -> {
+            int position = (int) offsets[block];
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                if (predicate.test(array[i])) {
+                    out[position++] = i;
+                }
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Stable partition: moves matching elements to the front and the rest behind them, each
+     * group keeping its original order.
+     *
+     * @return the number of matching elements
+     */
+    public int partition(long[] array, LongPredicate predicate) {
+        int n = array.length;
+        int blocks = blockCount(n);
+        long[] matchOffsets = countMatches(array, predicate, blocks);
+        long[] restOffsets = new long[blocks];
+        for (int block = 0; block < blocks; block++) {
+            restOffsets[block] = blockStart(n, blocks, block + 1) - blockStart(n, blocks, block) - matchOffsets[block];
+        }
+        int matches = (int) exclusiveScan(matchOffsets);
+        exclusiveScan(restOffsets);
+        long[] buffer = new long[n];
+        forEachBlock(blocks, block -> {
+            int match = (int) matchOffsets[block];
+            int rest = matches + (int) restOffsets[block];
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                if (predicate.test(array[i])) {
+                    buffer[match++] = array[i];
+                } else {
+                    buffer[rest++] = array[i];
+                }
+            }
+        });
+        forEachBlock(blocks, block -> {
+            int start = blockStart(n, blocks, block);
+            System.arraycopy(buffer, start, array, start, blockStart(n, blocks, block + 1) - start);
+        });
+        return matches;
+    }
+
+    private long[] countMatches(long[] array, LongPredicate predicate, int blocks) {
+        int n = array.length;
+        long[] counts = new long[blocks];
+        forEachBlock(blocks, block -> {
+            int count = 0;
+            for (int i = blockStart(n, blocks, block), end = blockStart(n, blocks, block + 1); i < end; i++) {
+                if (predicate.test(array[i])) {
+                    count++;
+                }
+            }
+            counts[block] = count;
+        });
+        return counts;
+    }
+
+    // In place; returns the total
+    private static long exclusiveScan(long[] values) {
+        long sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            long value = values[i];
+            values[i] = sum;
+            sum += value;
+        }
+        return sum;
+    }
+
+    private int blockCount(int size) {
+        int byParallelism = 4 * pool.getParallelism();
+        int bySize = (size + MIN_BLOCK_SIZE - 1) / MIN_BLOCK_SIZE;
+        return Math.max(1, Math.min(byParallelism, bySize));
+    }
+
+    private static int blockStart(int size, int blocks, int block) {
+        return (int) ((long) size * block / blocks);
+    }
+
+    private void forEachBlock(int blocks, IntConsumer body) {
+        if (blocks == 1) {
+            body.accept(0);
+        } else {
+            pool.invoke(new BlockTask(0, blocks, body));
+        }
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer body;
+
+        BlockTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                body.accept(from);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BlockTask(from, mid, body), new BlockTask(mid, to, body));
+            }
+        }
+    }
+
+    /**
+     * Sorts {@code array[from, to)}. The halves are sorted into the other array so that the final
+     * merge lands where requested, which saves copying back at every level.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] array;
+        private final long[] buffer;
+        private final int from;
+        private final int to;
+        private final boolean intoBuffer;
+
+        SortTask(long[] array, long[] buffer, int from, int to, boolean intoBuffer) {
+            this.array = array;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.intoBuffer = intoBuffer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SORT_CUTOFF) {
+                Arrays.sort(array, from, to);
+                if (intoBuffer) {
+                    System.arraycopy(array, from, buffer, from, to - from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(array, buffer, from, mid, !intoBuffer),
+                    new SortTask(array, buffer, mid, to, !intoBuffer));
+            long[] source = intoBuffer ? array : buffer;
+            long[] target = intoBuffer ? buffer : array;
+            new MergeTask(source, from, mid, source, mid, to, target, from).compute();
+        }
+    }
+
+    /**
+     * Merges {@code left[leftFrom, leftTo)} and {@code right[rightFrom, rightTo)} into {@code out}.
+     * Large merges take the middle of the longer run, binary-search its position in the other one
+     * and merge the two halves in parallel.
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] left;
+        private final int leftFrom;
+        private final int leftTo;
+        private final long[] right;
+        private final int rightFrom;
+        private final int rightTo;
+        private final long[] out;
+        private final int outFrom;
+
+        MergeTask(long[] left, int leftFrom, int leftTo, long[] right, int rightFrom, int rightTo,
+                  long[] out, int outFrom) {
+            this.left = left;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.right = right;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.out = out;
+            this.outFrom = outFrom;
+        }
+
+        @Override
+        protected void compute() {
+            int leftLength = leftTo - leftFrom;
+            int rightLength = rightTo - rightFrom;
+            if (leftLength + rightLength <= MERGE_CUTOFF) {
+                mergeSequential();
+                return;
+            }
+            if (leftLength < rightLength) {
+                // Always split the longer run; equal keys may swap sides, which is fine for primitives
+                new MergeTask(right, rightFrom, rightTo, left, leftFrom, leftTo, out, outFrom).compute();
+                return;
+            }
+            int leftMid = (leftFrom + leftTo) >>> 1;
+            int rightMid = lowerBound(right, rightFrom, rightTo, left[leftMid]);
+            int outMid = outFrom + (leftMid - leftFrom) + (rightMid - rightFrom);
+            invokeAll(new MergeTask(left, leftFrom, leftMid, right, rightFrom, rightMid, out, outFrom),
+                    new MergeTask(left, leftMid, leftTo, right, rightMid, rightTo, out, outMid));
+        }
+
+        private void mergeSequential() {
+            int i = leftFrom;
+            int j = rightFrom;
+            int k = outFrom;
+            while (i < leftTo && j < rightTo) {
+                out[k++] = left[i] <= right[j] ? left[i++] : right[j++];
+            }
+            System.arraycopy(left, i, out, k, leftTo - i);
+            System.arraycopy(right, j, out, k + leftTo - i, rightTo - j);
+        }
+
+        private static int lowerBound(long[] array, int from, int to, long key) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (array[mid] < key) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
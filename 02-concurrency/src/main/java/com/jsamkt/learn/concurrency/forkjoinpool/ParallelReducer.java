@@ -0,0 +1,346 @@
+package com.jsamkt.learn.concurrency.forkjoinpool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.*;
+
+/**
+ * Parallel reductions over {@code int[]}, {@code long[]}, {@code double[]} and {@code List}.
+ * <p>
+ * Each reduction is a tree of {@link CountedCompleter}s that keep their partial result in a
+ * primitive field and fold their children's results in as those complete, so there is no
+ * {@code Long} per node as with {@code RecursiveTask<Long>} and no thread blocked in {@code join()}.
+ * Results are combined left to right, so the combiner only has to be associative.
+ * <p>
+ * How far a range is split is decided by a {@link SplitPolicy}.
+ */
+public class ParallelReducer {
+
+    public enum SplitPolicy {
+        /**
+         * Split down to about four leaves per worker ({@code size / (4 * parallelism)}), like
+         * parallel streams do. Predictable, but blind to how busy the pool is.
+         */
+        SIZED,
+        /**
+         * Keep splitting only while this worker has at most a few surplus queued tasks, as
+         * suggested by {@link ForkJoinTask#getSurplusQueuedTaskCount()}: if the queue is already
+         * full of work that nobody is stealing, more splitting only adds overhead.
+         */
+        SURPLUS
+    }
+
+    // Leaves smaller than this cost more in task overhead than they save
+    private static final int MIN_LEAF_SIZE = 1 << 11;
+    private static final int MAX_SURPLUS = 3;
+
+    private final ForkJoinPool pool;
+    private final SplitPolicy policy;
+
+    public ParallelReducer() {
+        this(ForkJoinPool.commonPool(), SplitPolicy.SIZED);
+    }
+
+    public ParallelReducer(ForkJoinPool pool, SplitPolicy policy) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.policy = Objects.requireNonNull(policy, "policy");
+    }
+
+    public long sum(int[] array) {
+        return reduceLongRange(array.length, 0L, (from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    public long sum(long[] array) {
+        return reduceLongRange(array.length, 0L, (from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    /**
+     * Floating-point addition is not associative, so the result may differ from a sequential
+     * sum in the last bits, and between policies.
+     */
+    public double sum(double[] array) {
+        return reduceDoubleRange(array.length, 0.0, (from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += array[i];
+            }
+            return sum;
+        }, Double::sum);
+    }
+
+    /**
+     * @param identity identity of {@code combiner}; every leaf starts from it
+     */
+    public long reduce(int[] array, long identity, IntToLongFunction mapper, LongBinaryOperator combiner) {
+        return reduceLongRange(array.length, identity, (from, to) -> {
+            long result = identity;
+            for (int i = from; i < to; i++) {
+                result = combiner.applyAsLong(result, mapper.applyAsLong(array[i]));
+            }
+            return result;
+        }, combiner);
+    }
+
+    public long reduce(long[] array, long identity, LongBinaryOperator combiner) {
+        return reduceLongRange(array.length, identity, (from, to) -> {
+            long result = identity;
+            for (int i = from; i < to; i++) {
+                result = combiner.applyAsLong(result, array[i]);
+            }
+            return result;
+        }, combiner);
+    }
+
+    public double reduce(double[] array, double identity, DoubleBinaryOperator combiner) {
+        return reduceDoubleRange(array.length, identity, (from, to) -> {
+            double result = identity;
+            for (int i = from; i < to; i++) {
+                result = combiner.applyAsDouble(result, array[i]);
+            }
+            return result;
+        }, combiner);
+    }
+
+    /**
+     * Maps each element to a {@code long} and reduces the results. Lists without
+     * {@link RandomAccess} are copied first.
+     */
+    public <T> long reduceToLong(List<T> list, ToLongFunction<? super T> mapper, long identity,
+                                 LongBinaryOperator combiner) {
+        List<T> elements = randomAccess(list);
+        return reduceLongRange(elements.size(), identity, (from, to) -> {
+            long result = identity;
+            for (int i = from; i < to; i++) {
+                result = combiner.applyAsLong(result, mapper.applyAsLong(elements.get(i)));
+            }
+            return result;
+        }, combiner);
+    }
+
+    /**
+     * General reduction with the same contract as {@code Stream.reduce(identity, accumulator, combiner)}.
+     */
+    public <T, R> R reduce(List<T> list, R identity, BiFunction<R, ? super T, R> accumulator,
+                           BinaryOperator<R> combiner) {
+        List<T> elements = randomAccess(list);
+        ObjectReduceTask<R> root = new ObjectReduceTask<>(null, (from, to) -> {
+            R result = identity;
+            for (int i = from; i < to; i++) {
+                result = accumulator.apply(result, elements.get(i));
+            }
+            return result;
+        }, combiner, 0, elements.size(), leafSize(elements.size()), policy, null);
+        pool.invoke(root);
+        return elements.isEmpty() ? identity : root.result;
+    }
+
+    private static <T> List<T> randomAccess(List<T> list) {
+        return list instanceof RandomAccess ? list : new ArrayList<>(list);
+    }
+
+    private int leafSize(int size) {
+        return Math.max(MIN_LEAF_SIZE, size / (4 * pool.getParallelism()));
+    }
+
+    private long reduceLongRange(int size, long identity, LongRangeReducer leaf, LongBinaryOperator combiner) {
+        if (size == 0) {
+            return identity;
+        }
+        LongReduceTask root = new LongReduceTask(null, leaf, combiner, 0, size, leafSize(size), policy, null);
+        pool.invoke(root);
+        return root.result;
+    }
+
+    private double reduceDoubleRange(int size, double identity, DoubleRangeReducer leaf, DoubleBinaryOperator combiner) {
+        if (size == 0) {
+            return identity;
+        }
+        DoubleReduceTask root = new DoubleReduceTask(null, leaf, combiner, 0, size, leafSize(size), policy, null);
+        pool.invoke(root);
+        return root.result;
+    }
+
+    private static boolean shouldSplit(int from, int to, int leafSize, SplitPolicy policy) {
+        int length = to - from;
+        if (length <= MIN_LEAF_SIZE) {
+            return false;
+        }
+        return policy == SplitPolicy.SIZED
+                ? length > leafSize
+                : ForkJoinTask.getSurplusQueuedTaskCount() <= MAX_SURPLUS;
+    }
+
+    @FunctionalInterface
+    private interface LongRangeReducer {
+        long reduce(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface DoubleRangeReducer {
+        double reduce(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface RangeReducer<R> {
+        R reduce(int from, int to);
+    }
+
+    /*
+     * All three tasks follow the CountedCompleter map-reduce pattern: a task forks the right half
+     * of its range repeatedly, keeping the forked tasks in a linked list, reduces what is left, and
+     * then walks up the completion chain folding each finished task's forks into its result.
+     */
+
+    private static final class LongReduceTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient LongRangeReducer leaf;
+        private final transient LongBinaryOperator combiner;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final SplitPolicy policy;
+        private final LongReduceTask next;
+        private LongReduceTask forks;
+        long result;
+
+        LongReduceTask(CountedCompleter<?> parent, LongRangeReducer leaf, LongBinaryOperator combiner,
+                       int from, int to, int leafSize, SplitPolicy policy, LongReduceTask next) {
+            super(parent);
+            this.leaf = leaf;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.policy = policy;
+            this.next = next;
+        }
+
+        @Override
+        public void compute() {
+            int l = from;
+            int h = to;
+            while (shouldSplit(l, h, leafSize, policy)) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                (forks = new LongReduceTask(this, leaf, combiner, mid, h, leafSize, policy, forks)).fork();
+                h = mid;
+            }
+            result = leaf.reduce(l, h);
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                LongReduceTask task = (LongReduceTask) c;
+                for (LongReduceTask fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = task.combiner.applyAsLong(task.result, fork.result);
+                }
+            }
+        }
+    }
+
+    private static final class DoubleReduceTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DoubleRangeReducer leaf;
+        private final transient DoubleBinaryOperator combiner;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final SplitPolicy policy;
+        private final DoubleReduceTask next;
+        private DoubleReduceTask forks;
+        double result;
+
+        DoubleReduceTask(CountedCompleter<?> parent, DoubleRangeReducer leaf, DoubleBinaryOperator combiner,
+                         int from, int to, int leafSize, SplitPolicy policy, DoubleReduceTask next) {
+            super(parent);
+            this.leaf = leaf;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.policy = policy;
+            this.next = next;
+        }
+
+        @Override
+        public void compute() {
+            int l = from;
+            int h = to;
+            while (shouldSplit(l, h, leafSize, policy)) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                (forks = new DoubleReduceTask(this, leaf, combiner, mid, h, leafSize, policy, forks)).fork();
+                h = mid;
+            }
+            result = leaf.reduce(l, h);
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                DoubleReduceTask task = (DoubleReduceTask) c;
+                for (DoubleReduceTask fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = task.combiner.applyAsDouble(task.result, fork.result);
+                }
+            }
+        }
+    }
+
+    private static final class ObjectReduceTask<R> extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeReducer<R> leaf;
+        private final transient BinaryOperator<R> combiner;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final SplitPolicy policy;
+        private final ObjectReduceTask<R> next;
+        private ObjectReduceTask<R> forks;
+        transient R result;
+
+        ObjectReduceTask(CountedCompleter<?> parent, RangeReducer<R> leaf, BinaryOperator<R> combiner,
+                         int from, int to, int leafSize, SplitPolicy policy, ObjectReduceTask<R> next) {
+            super(parent);
+            this.leaf = leaf;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.policy = policy;
+            this.next = next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void compute() {
+            int l = from;
+            int h = to;
+            while (shouldSplit(l, h, leafSize, policy)) {
+                int mid = (l + h) >>> 1;
+                addToPendingCount(1);
+                (forks = new ObjectReduceTask<>(this, leaf, combiner, mid, h, leafSize, policy, forks)).fork();
+                h = mid;
+            }
+            result = leaf.reduce(l, h);
+            for (CountedCompleter<?> c = firstComplete(); c != null; c = c.nextComplete()) {
+                ObjectReduceTask<R> task = (ObjectReduceTask<R>) c;
+                for (ObjectReduceTask<R> fork = task.forks; fork != null; fork = task.forks = fork.next) {
+                    task.result = task.combiner.apply(task.result, fork.result);
+                }
+            }
+        }
+    }
+}
@@ -1,21 +1,37 @@
 package com.jsamkt.learn.concurrency.forkjoinpool;
 
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
 
 public class SumTask extends RecursiveTask<Long> {
     private static final long serialVersionUID = 1L;
-    private static final int THRESHOLD = 100;
+    // Below this a leaf is too cheap to be worth a task of its own
+    private static final long MIN_THRESHOLD = 10_000;
     private final long start;
     private final long end;
+    private final long threshold;
 
+    /**
+     * Splits into about four leaves per worker of the common pool, so each leaf does enough work
+     * to pay for its task while idle workers can still steal the remainder.
+     */
     SumTask(long start, long end) {
+        this(start, end, adaptiveThreshold(end - start + 1, ForkJoinPool.getCommonPoolParallelism()));
+    }
+
+    SumTask(long start, long end, long threshold) {
         this.start = start;
         this.end = end;
+        this.threshold = threshold;
+    }
+
+    static long adaptiveThreshold(long size, int parallelism) {
+        return Math.max(MIN_THRESHOLD, size / (4L * parallelism));
     }
 
     @Override
     protected Long compute() {
-        if (end - start <= THRESHOLD) {
+        if (end - start <= threshold) {
             // Base case: compute directly
             long sum = 0;
             for (long i = start; i <= end; i++) {
@@ -25,8 +41,8 @@ public class SumTask extends RecursiveTask<Long> {
         } else {
             // Recursive case: split the task
             long mid = start + (end - start) / 2;
-            SumTask leftTask = new SumTask(start, mid);
-            SumTask rightTask = new SumTask(mid + 1, end);
+            SumTask leftTask = new SumTask(start, mid, threshold);
+            SumTask rightTask = new SumTask(mid + 1, end, threshold);
 
             leftTask.fork(); // Submit left task
             long rightResult = rightTask.compute(); // Compute right task
@@ -1,7 +1,9 @@
 package com.jsamkt.learn.concurrency.lock;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -15,6 +17,8 @@ public class LockApiDemo {
     public static void demo()  {
         try {
             demonstrateLockAPI();
+            demonstrateOptimisticReads();
+            demonstrateReadWriteRatios();
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -101,4 +105,132 @@ public class LockApiDemo {
             writeLock.unlock();
         }
     }
+
+    private static void demonstrateOptimisticReads() {
+        System.out.println("\n--- StampedLock Optimistic Reads and SeqLock ---");
+
+        OptimisticReadStore<String> store = new OptimisticReadStore<>();
+        store.add("Data 0-0");
+        store.add("Data 1-0");
+        store.set(1, "Data 1-1");
+        System.out.println("OptimisticReadStore: " + store + ", get(0): " + store.get(0));
+
+        // Bid, ask, bid size, ask size: always read together, never torn
+        SeqLockedLongs quote = new SeqLockedLongs(4);
+        quote.write(9_995, 10_005, 300, 200);
+        System.out.println("SeqLock quote: " + Arrays.toString(quote.read()) + " (version " + quote.version() + ")");
+    }
+
+    private interface Workload {
+        long run(boolean write, int index);
+    }
+
+    private static void demonstrateReadWriteRatios() throws InterruptedException {
+        System.out.println("\n--- Reader/Writer Ratio Benchmark ---");
+
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int operationsPerThread = 500_000;
+        int storeSize = 1024;
+        System.out.printf("%d threads x %d operations, list of %d elements and a 4-long snapshot%n",
+                threads, operationsPerThread, storeSize);
+        System.out.printf("%-10s %16s %16s %16s %16s%n",
+                "read:write", "RWLock list", "Stamped list", "RWLock snapshot", "SeqLock snapshot");
+
+        for (int writePercent : new int[]{1, 10, 50}) {
+            // ReentrantReadWriteLock around an ArrayList, as in demonstrateLockAPI
+            List<Integer> list = new ArrayList<>();
+            OptimisticReadStore<Integer> store = new OptimisticReadStore<>(storeSize);
+            for (int i = 0; i < storeSize; i++) {
+                list.add(i);
+                store.add(i);
+            }
+            ReentrantReadWriteLock listLock = new ReentrantReadWriteLock();
+            double rwList = runMix(threads, operationsPerThread, writePercent, (write, index) -> {
+                int slot = index & (storeSize - 1);
+                if (write) {
+                    listLock.writeLock().lock();
+                    try {
+                        list.set(slot, index);
+                    } finally {
+                        listLock.writeLock().unlock();
+                    }
+                    return 0;
+                }
+                listLock.readLock().lock();
+                try {
+                    return list.get(slot);
+                } finally {
+                    listLock.readLock().unlock();
+                }
+            });
+
+            double stampedList = runMix(threads, operationsPerThread, writePercent, (write, index) -> {
+                int slot = index & (storeSize - 1);
+                if (write) {
+                    store.set(slot, index);
+                    return 0;
+                }
+                return store.get(slot);
+            });
+
+            // Four longs that must be read together
+            long[] values = new long[4];
+            ReentrantReadWriteLock valuesLock = new ReentrantReadWriteLock();
+            double rwSnapshot = runMix(threads, operationsPerThread, writePercent, (write, index) -> {
+                if (write) {
+                    valuesLock.writeLock().lock();
+                    try {
+                        Arrays.fill(values, index);
+                    } finally {
+                        valuesLock.writeLock().unlock();
+                    }
+                    return 0;
+                }
+                valuesLock.readLock().lock();
+                try {
+                    return values[0] + values[1] + values[2] + values[3];
+                } finally {
+                    valuesLock.readLock().unlock();
+                }
+            });
+
+            SeqLockedLongs seqLocked = new SeqLockedLongs(4);
+            ThreadLocal<long[]> buffers = ThreadLocal.withInitial(() -> new long[4]);
+            double seqSnapshot = runMix(threads, operationsPerThread, writePercent, (write, index) -> {
+                if (write) {
+                    seqLocked.write(index, index, index, index);
+                    return 0;
+                }
+                long[] read = seqLocked.read(buffers.get());
+                return read[0] + read[1] + read[2] + read[3];
+            });
+
+            System.out.printf("%-10s %13.2f ms %13.2f ms %13.2f ms %13.2f ms%n",
+                    (100 - writePercent) + ":" + writePercent, rwList, stampedList, rwSnapshot, seqSnapshot);
+            System.out.printf("%-10s %d of the optimistic list reads fell back to the read lock%n",
+                    "", store.fallbackCount());
+        }
+    }
+
+    private static double runMix(int threadCount, int operations, int writePercent, Workload workload)
+            throws InterruptedException {
+        Thread[] threads = new Thread[threadCount];
+        long[] checksums = new long[threadCount];
+        long start = System.nanoTime();
+        for (int t = 0; t < threadCount; t++) {
+            final int id = t;
+            threads[t] = Thread.ofPlatform().start(() -> {
+                SplittableRandom random = new SplittableRandom(id);
+                long checksum = 0;
+                for (int i = 0; i < operations; i++) {
+                    checksum += workload.run(random.nextInt(100) < writePercent, i);
+                }
+                checksums[id] = checksum;
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
 }
@@ -0,0 +1,149 @@
+package com.jsamkt.learn.concurrency.lock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A read-mostly, index-addressed list guarded by a {@link StampedLock}.
+ * <p>
+ * A {@code ReentrantReadWriteLock} read lock is still a CAS on the lock's shared state, so every
+ * reader writes the same cache line and read-heavy workloads stop scaling with cores. Here reads
+ * take an optimistic stamp (a plain volatile read), read the fields into locals and then validate
+ * the stamp; only if a writer got in between do they retry under the real read lock. Reads must
+ * therefore never fail on a torn state: they copy the array reference and size once and
+ * bounds-check against the copied array. Writes take the exclusive lock as usual.
+ *
+ * @param <E> the element type
+ */
+public class OptimisticReadStore<E> {
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder fallbacks = new LongAdder();
+    private Object[] elements;
+    private int size;
+
+    public OptimisticReadStore() {
+        this(16);
+    }
+
+    public OptimisticReadStore(int initialCapacity) {
+        elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    public void add(E element) {
+        long stamp = lock.writeLock();
+        try {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the element previously at {@code index}
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        long stamp = lock.writeLock();
+        try {
+            checkIndex(index, size);
+            E previous = (E) elements[index];
+            elements[index] = element;
+            return previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(elements, 0, size, null);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Object[] snapshot = elements;
+            int currentSize = size;
+            Object element = index >= 0 && index < currentSize && index < snapshot.length ? snapshot[index] : null;
+            if (lock.validate(stamp)) {
+                checkIndex(index, currentSize);
+                return (E) element;
+            }
+        }
+        fallbacks.increment();
+        stamp = lock.readLock();
+        try {
+            checkIndex(index, size);
+            return (E) elements[index];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int currentSize = size;
+        if (stamp != 0 && lock.validate(stamp)) {
+            return currentSize;
+        }
+        fallbacks.increment();
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return a consistent copy of the whole list, taken without blocking writers when possible
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> snapshot() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Object[] array = elements;
+            Object[] copy = Arrays.copyOf(array, Math.min(size, array.length));
+            if (lock.validate(stamp)) {
+                return new ArrayList<>(Arrays.asList((E[]) copy));
+            }
+        }
+        fallbacks.increment();
+        stamp = lock.readLock();
+        try {
+            return new ArrayList<>(Arrays.asList((E[]) Arrays.copyOf(elements, size)));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Number of reads whose optimistic stamp was invalidated by a writer and had to take the read lock.
+     */
+    public long fallbackCount() {
+        return fallbacks.sum();
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.jsamkt.learn.concurrency.lock;
+
+import com.jsamkt.learn.concurrency.concurrentcollection.PaddedSequence;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A small group of {@code long}s that is read and written as one consistent snapshot using a
+ * sequence lock, e.g. bid/ask/size/timestamp of a quote.
+ * <p>
+ * A writer makes the sequence odd, writes the values and makes it even again. A reader reads the
+ * sequence, copies the values and re-reads the sequence; if it was odd or changed, the copy may
+ * be torn and the reader retries. Readers never write shared memory, so any number of them scale,
+ * but they can be starved by a constant stream of writes: use it for small values that are read
+ * far more often than written.
+ */
+public final class SeqLockedLongs {
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final PaddedSequence sequence = new PaddedSequence();
+    private final long[] values;
+
+    public SeqLockedLongs(int width) {
+        values = new long[width];
+    }
+
+    public int width() {
+        return values.length;
+    }
+
+    /**
+     * Replaces all values atomically with respect to {@link #read(long[])}. Concurrent writers are
+     * serialized by a CAS on the sequence.
+     */
+    public void write(long... newValues) {
+        if (newValues.length != values.length) {
+            throw new IllegalArgumentException("Expected " + values.length + " values, got " + newValues.length);
+        }
+        long current;
+        while (((current = sequence.get()) & 1) != 0 || !sequence.compareAndSet(current, current + 1)) {
+            Thread.onSpinWait();
+        }
+        // The odd sequence must be visible before any of the new values
+        VarHandle.storeStoreFence();
+        for (int i = 0; i < newValues.length; i++) {
+            VALUES.setOpaque(values, i, newValues[i]);
+        }
+        sequence.setRelease(current + 2);
+    }
+
+    /**
+     * Copies a consistent snapshot into {@code destination}.
+     *
+     * @return {@code destination}
+     */
+    public long[] read(long[] destination) {
+        int spins = 0;
+        while (true) {
+            long before = sequence.getAcquire();
+            if ((before & 1) == 0) {
+                for (int i = 0; i < values.length; i++) {
+                    destination[i] = (long) VALUES.getOpaque(values, i);
+                }
+                // The values must be read before the sequence is checked again
+                VarHandle.loadLoadFence();
+                if (sequence.getAcquire() == before) {
+                    return destination;
+                }
+            }
+            if (++spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield(); // The writer may be descheduled mid-write
+            }
+        }
+    }
+
+    public long[] read() {
+        return read(new long[values.length]);
+    }
+
+    /**
+     * Number of completed writes.
+     */
+    public long version() {
+        return sequence.get() >>> 1;
+    }
+}
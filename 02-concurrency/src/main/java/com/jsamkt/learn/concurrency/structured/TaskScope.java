@@ -0,0 +1,402 @@
+package com.jsamkt.learn.concurrency.structured;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A scope that runs subtasks on virtual threads and does not let them outlive it, modelled on
+ * {@code StructuredTaskScope} (a preview API in JDK 21).
+ * <pre>{@code
+ * try (var scope = new TaskScope.ShutdownOnFailure("checkout", Duration.ofMillis(500))) {
+ *     Subtask<User> user = scope.fork(() -> findUser(id));
+ *     Subtask<Cart> cart = scope.fork(() -> loadCart(id));
+ *     scope.join().throwIfFailed();
+ *     return new Checkout(user.get(), cart.get());
+ * }
+ * }</pre>
+ * Unlike a chain of {@code CompletableFuture}s, giving up on the result also stops the work:
+ * {@link #shutdown()} interrupts every unfinished subtask, {@link #join()} shuts the scope down
+ * when its deadline passes, and {@link #close()} waits until every subtask thread has exited.
+ * <p>
+ * Deadlines propagate: a scope opened inside a subtask never gets a later deadline than the
+ * scope that forked the subtask, and subtasks can read what is left with {@link #remainingTime()}
+ * to bound their own blocking calls.
+ * <p>
+ * {@code fork}, {@code join} and {@code close} may only be called by the thread that opened the scope.
+ *
+ * @param <T> the result type of the subtasks
+ */
+public class TaskScope<T> implements AutoCloseable {
+    private static final ThreadLocal<Instant> DEADLINE = new ThreadLocal<>();
+
+    private final Thread owner = Thread.currentThread();
+    private final ThreadFactory threadFactory;
+    private final Instant deadline;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int running;
+    private boolean closed;
+
+    public TaskScope(String name) {
+        this(name, null);
+    }
+
+    /**
+     * @param timeout how long {@link #join()} may wait, or {@code null} for no deadline of its own;
+     *                an earlier deadline inherited from an enclosing scope always wins
+     */
+    public TaskScope(String name, Duration timeout) {
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 0).factory();
+        Instant own = timeout == null ? null : Instant.now().plus(timeout);
+        Instant inherited = DEADLINE.get();
+        this.deadline = inherited == null || (own != null && own.isBefore(inherited)) ? own : inherited;
+    }
+
+    /**
+     * @return the deadline of the innermost scope the current thread runs a subtask of
+     */
+    public static Optional<Instant> currentDeadline() {
+        return Optional.ofNullable(DEADLINE.get());
+    }
+
+    /**
+     * @return time left until {@link #currentDeadline()}, never negative; empty if there is none
+     */
+    public static Optional<Duration> remainingTime() {
+        Instant current = DEADLINE.get();
+        if (current == null) {
+            return Optional.empty();
+        }
+        Duration remaining = Duration.between(Instant.now(), current);
+        return Optional.of(remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+
+    public Optional<Instant> deadline() {
+        return Optional.ofNullable(deadline);
+    }
+
+    /**
+     * Starts {@code task} on a new virtual thread. After shutdown the task is not started and the
+     * returned subtask stays {@link Subtask.State#UNAVAILABLE}.
+     */
+    public <U extends T> Subtask<U> fork(Callable<? extends U> task) {
+        ensureOwner();
+        if (closed) {
+            throw new IllegalStateException("Scope is closed");
+        }
+        Subtask<U> subtask = new Subtask<>();
+        if (isShutdown()) {
+            return subtask;
+        }
+        lock.lock();
+        try {
+            running++;
+        } finally {
+            lock.unlock();
+        }
+        Thread thread = threadFactory.newThread(() -> run(subtask, task));
+        threads.add(thread);
+        thread.start();
+        return subtask;
+    }
+
+    private <U extends T> void run(Subtask<U> subtask, Callable<? extends U> task) {
+        DEADLINE.set(deadline);
+        try {
+            if (!isShutdown()) {
+                U result = task.call();
+                publish(subtask, result, null);
+            }
+        } catch (Throwable e) {
+            publish(subtask, null, e);
+        } finally {
+            DEADLINE.remove();
+            // Subtasks finishing after shutdown were cancelled; their outcome no longer matters
+            if (subtask.state() != Subtask.State.UNAVAILABLE && !isShutdown()) {
+                handleComplete(subtask);
+            }
+            threads.remove(Thread.currentThread());
+            lock.lock();
+            try {
+                running--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Checked under the lock shutdown() sets its flag under, so once the owner sees the scope shut down
+    // no subtask can still change from UNAVAILABLE
+    private <U extends T> void publish(Subtask<U> subtask, U result, Throwable exception) {
+        lock.lock();
+        try {
+            if (isShutdown()) {
+                return;
+            }
+            if (exception == null) {
+                subtask.succeed(result);
+            } else {
+                subtask.fail(exception);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called on the subtask's thread when it completes before the scope is shut down.
+     * Policies override this to decide when enough is known and call {@link #shutdown()}.
+     */
+    protected void handleComplete(Subtask<? extends T> subtask) {
+    }
+
+    /**
+     * Waits until all subtasks have completed or the scope is shut down.
+     *
+     * @throws TimeoutException if the deadline passed first; the scope is shut down
+     */
+    public TaskScope<T> join() throws InterruptedException, TimeoutException {
+        ensureOwner();
+        lock.lock();
+        try {
+            while (running > 0 && !isShutdown()) {
+                if (deadline == null) {
+                    changed.await();
+                } else {
+                    long nanos = Duration.between(Instant.now(), deadline).toNanos();
+                    if (nanos <= 0) {
+                        shutdown();
+                        throw new TimeoutException("Deadline " + deadline + " passed with " + running + " subtasks running");
+                    }
+                    changed.awaitNanos(nanos);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Stops the scope: unfinished subtasks are interrupted and no new ones start. Subtasks that
+     * complete after this stay {@link Subtask.State#UNAVAILABLE}.
+     * Can be called from any thread, including subtasks.
+     */
+    public void shutdown() {
+        boolean first;
+        lock.lock();
+        try {
+            first = shutdown.compareAndSet(false, true);
+            if (first) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (first) {
+            for (Thread thread : threads) {
+                if (thread != Thread.currentThread()) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    /**
+     * Shuts the scope down and waits for every subtask thread to exit, so no work outlives the scope.
+     */
+    @Override
+    public void close() {
+        ensureOwner();
+        if (closed) {
+            return;
+        }
+        closed = true;
+        shutdown();
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            while (running > 0) {
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ensureOwner() {
+        if (Thread.currentThread() != owner) {
+            throw new WrongThreadException("Scope is owned by " + owner);
+        }
+    }
+
+    /**
+     * Handle to a forked task.
+     *
+     * @param <T> the result type
+     */
+    public static final class Subtask<T> implements Supplier<T> {
+
+        public enum State {
+            /** Not finished, or finished or never started after the scope was shut down. */
+            UNAVAILABLE,
+            SUCCESS,
+            FAILED
+        }
+
+        private volatile State state = State.UNAVAILABLE;
+        private T result;
+        private Throwable exception;
+
+        private void succeed(T value) {
+            result = value;
+            state = State.SUCCESS;
+        }
+
+        private void fail(Throwable e) {
+            exception = e;
+            state = State.FAILED;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        /**
+         * @throws IllegalStateException unless the subtask succeeded
+         */
+        @Override
+        public T get() {
+            if (state != State.SUCCESS) {
+                throw new IllegalStateException("Subtask has no result: " + state);
+            }
+            return result;
+        }
+
+        /**
+         * @throws IllegalStateException unless the subtask failed
+         */
+        public Throwable exception() {
+            if (state != State.FAILED) {
+                throw new IllegalStateException("Subtask did not fail: " + state);
+            }
+            return exception;
+        }
+    }
+
+    /**
+     * Shuts down as soon as one subtask fails: the remaining results are useless without it.
+     */
+    public static class ShutdownOnFailure extends TaskScope<Object> {
+        private final AtomicReference<Throwable> firstException = new AtomicReference<>();
+
+        public ShutdownOnFailure(String name) {
+            super(name);
+        }
+
+        public ShutdownOnFailure(String name, Duration timeout) {
+            super(name, timeout);
+        }
+
+        @Override
+        protected void handleComplete(Subtask<?> subtask) {
+            if (subtask.state() == Subtask.State.FAILED && firstException.compareAndSet(null, subtask.exception())) {
+                shutdown();
+            }
+        }
+
+        @Override
+        public ShutdownOnFailure join() throws InterruptedException, TimeoutException {
+            super.join();
+            return this;
+        }
+
+        /**
+         * @throws ExecutionException wrapping the first failure, if any subtask failed
+         */
+        public void throwIfFailed() throws ExecutionException {
+            Throwable exception = firstException.get();
+            if (exception != null) {
+                throw new ExecutionException(exception);
+            }
+        }
+    }
+
+    /**
+     * Shuts down as soon as one subtask succeeds, cancelling the others: for hedged or
+     * redundant requests where the first answer wins.
+     *
+     * @param <T> the result type
+     */
+    public static class ShutdownOnSuccess<T> extends TaskScope<T> {
+        private final AtomicReference<Subtask<? extends T>> winner = new AtomicReference<>();
+        private final AtomicReference<Throwable> firstException = new AtomicReference<>();
+
+        public ShutdownOnSuccess(String name) {
+            super(name);
+        }
+
+        public ShutdownOnSuccess(String name, Duration timeout) {
+            super(name, timeout);
+        }
+
+        @Override
+        protected void handleComplete(Subtask<? extends T> subtask) {
+            if (subtask.state() == Subtask.State.SUCCESS) {
+                if (winner.compareAndSet(null, subtask)) {
+                    shutdown();
+                }
+            } else {
+                firstException.compareAndSet(null, subtask.exception());
+            }
+        }
+
+        @Override
+        public ShutdownOnSuccess<T> join() throws InterruptedException, TimeoutException {
+            super.join();
+            return this;
+        }
+
+        /**
+         * @return the result of the first subtask to succeed
+         * @throws ExecutionException if every subtask failed
+         */
+        public T result() throws ExecutionException {
+            Subtask<? extends T> first = winner.get();
+            if (first != null) {
+                return first.get();
+            }
+            Throwable exception = firstException.get();
+            if (exception != null) {
+                throw new ExecutionException(exception);
+            }
+            throw new IllegalStateException("No subtask completed");
+        }
+    }
+}
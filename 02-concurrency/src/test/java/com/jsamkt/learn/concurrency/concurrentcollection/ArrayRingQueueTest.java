@@ -0,0 +1,120 @@
+package com.jsamkt.learn.concurrency.concurrentcollection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayRingQueueTest {
+
+    private static final List<IntFunction<ArrayRingQueue<Integer>>> QUEUES =
+            List.of(SpscArrayQueue::new, MpscArrayQueue::new, MpmcArrayQueue::new);
+
+    @Test
+    void testIteratorMatchesQueueContents() {
+        for (IntFunction<ArrayRingQueue<Integer>> factory : QUEUES) {
+            ArrayRingQueue<Integer> queue = factory.apply(8);
+            ArrayDeque<Integer> expected = new ArrayDeque<>();
+            Random random = new Random(42);
+            // Enough operations for the indices to wrap around the buffer many times
+            for (int i = 0; i < 1_000; i++) {
+                if (random.nextBoolean()) {
+                    if (queue.offer(i)) {
+                        expected.add(i);
+                    }
+                } else {
+                    assertEquals(expected.poll(), queue.poll());
+                }
+                assertEquals(new ArrayList<>(expected), new ArrayList<>(queue), queue.getClass().getSimpleName());
+            }
+            assertArrayEquals(expected.toArray(), queue.toArray());
+            if (!expected.isEmpty()) {
+                assertTrue(queue.contains(expected.peekLast()));
+            }
+            assertFalse(queue.contains(-1));
+        }
+    }
+
+    @Test
+    void testIteratorSkipsConsumedElements() {
+        for (IntFunction<ArrayRingQueue<Integer>> factory : QUEUES) {
+            ArrayRingQueue<Integer> queue = factory.apply(8);
+            for (int i = 0; i < 5; i++) {
+                queue.offer(i);
+            }
+            Iterator<Integer> iterator = queue.iterator();
+            assertEquals(0, iterator.next());
+            queue.poll();
+            queue.poll();
+            queue.poll();
+            // Added after the iterator was created, so it is not visited
+            queue.offer(5);
+
+            List<Integer> rest = new ArrayList<>();
+            iterator.forEachRemaining(rest::add);
+            // 1 was read ahead before it was polled, as the java.util.concurrent iterators do; 2 is skipped
+            assertEquals(List.of(1, 3, 4), rest);
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+    }
+
+    @Test
+    void testRemoveIsUnsupported() {
+        for (IntFunction<ArrayRingQueue<Integer>> factory : QUEUES) {
+            ArrayRingQueue<Integer> queue = factory.apply(4);
+            queue.offer(1);
+            Iterator<Integer> iterator = queue.iterator();
+            iterator.next();
+            assertThrows(UnsupportedOperationException.class, iterator::remove);
+            assertThrows(UnsupportedOperationException.class, () -> queue.remove(1));
+            assertEquals(1, queue.size());
+        }
+    }
+
+    @Test
+    void testIterationDuringConcurrentUse() throws InterruptedException {
+        for (IntFunction<ArrayRingQueue<Integer>> factory : QUEUES) {
+            ArrayRingQueue<Integer> queue = factory.apply(64);
+            AtomicBoolean running = new AtomicBoolean(true);
+            Thread producer = new Thread(() -> {
+                int next = 0;
+                while (running.get()) {
+                    if (queue.offer(next)) {
+                        next++;
+                    }
+                }
+            });
+            Thread consumer = new Thread(() -> {
+                while (running.get()) {
+                    queue.poll();
+                }
+            });
+            producer.start();
+            consumer.start();
+            try {
+                for (int round = 0; round < 20_000; round++) {
+                    // A single producer offers ascending values, so any snapshot must be strictly ascending
+                    int previous = -1;
+                    for (Integer value : queue) {
+                        assertNotNull(value);
+                        assertTrue(value > previous, queue.getClass().getSimpleName() + ": " + value
+                                + " after " + previous);
+                        previous = value;
+                    }
+                }
+            } finally {
+                running.set(false);
+                producer.join();
+                consumer.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jsamkt.learn.concurrency.forkjoinpool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelArraysTest {
+
+    @Test
+    void testMergeSortedRunsMatchesSort() {
+        Random random = new Random(42);
+        long[] array = new long[200_000];
+        int[] runStarts = new int[7];
+        for (int r = 0; r < runStarts.length; r++) {
+            runStarts[r] = r * array.length / runStarts.length;
+        }
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt(1_000_000);
+        }
+        for (int r = 0; r < runStarts.length; r++) {
+            int end = r + 1 < runStarts.length ? runStarts[r + 1] : array.length;
+            Arrays.sort(array, runStarts[r], end);
+        }
+        long[] expected = array.clone();
+        Arrays.sort(expected);
+
+        runOutsideCommonPool(arrays -> arrays.mergeSortedRuns(array, runStarts));
+
+        assertArrayEquals(expected, array);
+    }
+
+    @Test
+    void testOperationsStayInConfiguredPool() {
+        long[] array = new Random(7).longs(500_000, 0, 1_000_000).toArray();
+        int[] runStarts = {0, 125_000, 250_000, 375_000};
+        for (int r = 0; r < runStarts.length; r++) {
+            int end = r + 1 < runStarts.length ? runStarts[r + 1] : array.length;
+            Arrays.sort(array, runStarts[r], end);
+        }
+
+        runOutsideCommonPool(arrays -> {
+            // The last round of a merge is a single merge, the case that used to leak into the common pool
+            arrays.mergeSortedRuns(array, runStarts);
+            arrays.sort(array.clone());
+            arrays.prefixSum(array.clone());
+        });
+    }
+
+    /**
+     * Runs {@code body} against a dedicated pool and checks that no common pool worker was started.
+     * Every test goes through here so that a leak is caught by whichever test runs first.
+     */
+    private static void runOutsideCommonPool(Consumer<ParallelArrays> body) {
+        int commonPoolSize = ForkJoinPool.commonPool().getPoolSize();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            body.accept(new ParallelArrays(pool));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(commonPoolSize, ForkJoinPool.commonPool().getPoolSize());
+    }
+}
@@ -0,0 +1,13 @@
+plugins {
+    id("java")
+    id("application")
+}
+
+dependencies {
+    // Execution modes and executors from the concurrency tutorial
+    implementation(project(":02-concurrency"))
+}
+
+application {
+    mainClass.set("com.jsamkt.learn.concurrencyissues.ConcurrencyIssuesDemo")
+}
@@ -1,5 +1,15 @@
 package com.jsamkt.learn.concurrencyissues.resourceexhaustion;
 
+import com.jsamkt.learn.concurrency.executor.ExecutionMode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 
 public class ResourceExhaustionDemo {
@@ -8,6 +18,7 @@ public class ResourceExhaustionDemo {
         try {
             demonstrateResourceExhaustion();
             demonstrateResourceExhaustionSolution();
+            demonstrateVirtualThreadSolution();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -26,6 +37,7 @@ public class ResourceExhaustionDemo {
         } catch (RejectedExecutionException e) {
             System.out.println("Task rejected: " + e.getMessage());
         }
+        System.out.print(hog.report());
 
         // Wait for some time
         Thread.sleep(1000);
@@ -51,10 +63,10 @@ public class ResourceExhaustionDemo {
         for (int i = 0; i < 10; i++) {
             final int taskId = i;
             try {
-                manager.submitTask(() -> {
+                manager.submitTask(i % 3 == 0 ? "write" : "read", () -> {
                     try {
                         System.out.println("Task " + taskId + " running");
-                        Thread.sleep(100);
+                        Thread.sleep(300);
                         return "Result " + taskId;
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -69,8 +81,56 @@ public class ResourceExhaustionDemo {
 
         // Wait for tasks to complete
         Thread.sleep(1000);
+        System.out.print(manager.report());
+        printThreadPoolMBeans();
 
         // Shut down properly
         manager.shutdown();
     }
+
+    // The same numbers as the reports, as JConsole or any JMX client sees them
+    private static void printThreadPoolMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName("com.jsamkt.learn.concurrency:type=ThreadPool,*"), null)) {
+                System.out.printf("JMX %s: completed=%s rejected=%s queue wait p99=%.2f ms%n", name,
+                        server.getAttribute(name, "CompletedCount"), server.getAttribute(name, "RejectedCount"),
+                        (Double) server.getAttribute(name, "QueueWaitP99Millis"));
+            }
+        } catch (JMException e) {
+            System.out.println("Could not read thread pool MBeans: " + e);
+        }
+    }
+
+    private static void demonstrateVirtualThreadSolution() throws InterruptedException {
+        System.out.println("\n7. Solution to Resource Exhaustion: Virtual Threads with a Semaphore Limit");
+
+        // 10,000 blocking tasks, at most 500 inside the guarded resource, no pool of 500 platform threads;
+        // nothing is rejected, the tasks over the limit just park until a permit frees up
+        ResourceManager manager = new ResourceManager(ExecutionMode.VIRTUAL_THREADS, 500);
+        int tasks = 10_000;
+        List<Future<Integer>> results = new ArrayList<>(tasks);
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            final int taskId = i;
+            results.add(manager.submitTask(() -> {
+                Thread.sleep(20);
+                return taskId;
+            }));
+        }
+        System.out.print(manager.report());
+
+        long completed = 0;
+        for (Future<Integer> result : results) {
+            try {
+                result.get();
+                completed++;
+            } catch (ExecutionException e) {
+                System.out.println("Task failed: " + e.getCause());
+            }
+        }
+        System.out.printf("Completed %d tasks in %.2f ms%n", completed, (System.nanoTime() - start) / 1_000_000.0);
+
+        manager.shutdown();
+    }
 }
@@ -1,28 +1,33 @@
 package com.jsamkt.learn.concurrencyissues.resourceexhaustion;
 
+import com.jsamkt.learn.concurrency.executor.InstrumentedThreadPoolExecutor;
+
 import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ResourceHog {
-    private final ExecutorService executor;
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
+    private final InstrumentedThreadPoolExecutor executor;
 
     public ResourceHog() {
         // Create a thread pool with a small number of threads
-        this.executor = new ThreadPoolExecutor(
+        this.executor = new InstrumentedThreadPoolExecutor(
+                "resource-hog-" + POOL_IDS.incrementAndGet(),
                 2, // Core pool size
                 2, // Max pool size
                 60, TimeUnit.SECONDS, // Keep alive time for excess threads
                 new ArrayBlockingQueue<>(1), // Very small queue - will reject quickly
                 new ThreadPoolExecutor.AbortPolicy() // Reject policy
-        );
+        ).registerMBeans();
     }
 
     public void startResourceIntensiveTasks(int numTasks) {
         for (int i = 0; i < numTasks; i++) {
             final int taskId = i;
-            executor.submit(() -> {
+            executor.submit("intensive", () -> {
                 System.out.println("Task " + taskId + " started");
                 try {
                     // Simulate intensive work
@@ -35,6 +40,13 @@ public class ResourceHog {
         }
     }
 
+    /**
+     * @return queue depth, task counts and latency percentiles of the pool
+     */
+    public String report() {
+        return executor.report();
+    }
+
     public void shutdown() {
         executor.shutdown();
     }
@@ -1,39 +1,96 @@
 package com.jsamkt.learn.concurrencyissues.resourceexhaustion;
 
+import com.jsamkt.learn.concurrency.executor.BoundedVirtualThreadExecutor;
+import com.jsamkt.learn.concurrency.executor.ExecutionMode;
+import com.jsamkt.learn.concurrency.executor.InstrumentedThreadPoolExecutor;
+
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ResourceManager {
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
     private final ExecutorService executor;
     private final Semaphore semaphore;
+    private final LongAdder semaphoreRejections = new LongAdder();
 
     public ResourceManager() {
-        // Create a bounded thread pool
-        this.executor = new ThreadPoolExecutor(
-                2, // Core pool size
-                4, // Max pool size
-                60, TimeUnit.SECONDS, // Thread keep-alive time
-                new ArrayBlockingQueue<>(4), // Bounded queue
-                new ThreadPoolExecutor.CallerRunsPolicy() // Run in caller's thread if rejected
-        );
-
-        // Also use a semaphore to limit concurrent tasks
-        this.semaphore = new Semaphore(5);
+        this(ExecutionMode.PLATFORM_POOL, 5);
+    }
+
+    /**
+     * @param mode               {@code PLATFORM_POOL} runs tasks on a bounded pool of platform threads and rejects
+     *                           callers that cannot get a permit in time; {@code VIRTUAL_THREADS} runs every task on
+     *                           its own virtual thread and parks the ones over the limit instead of rejecting them
+     * @param maxConcurrentTasks how many tasks may run at the same time, in either mode
+     */
+    public ResourceManager(ExecutionMode mode, int maxConcurrentTasks) {
+        if (mode == ExecutionMode.PLATFORM_POOL) {
+            // A pool of exactly maxConcurrentTasks threads, visible in JConsole while it runs
+            this.executor = new InstrumentedThreadPoolExecutor(
+                    "resource-manager-" + POOL_IDS.incrementAndGet(),
+                    maxConcurrentTasks, // Core pool size
+                    maxConcurrentTasks, // Max pool size
+                    60, TimeUnit.SECONDS, // Thread keep-alive time
+                    new ArrayBlockingQueue<>(maxConcurrentTasks), // Bounded queue
+                    new ThreadPoolExecutor.CallerRunsPolicy() // Run in caller's thread if rejected
+            ).registerMBeans();
+            // Platform threads are expensive, so callers over the limit are turned away rather than queued
+            this.semaphore = new Semaphore(maxConcurrentTasks);
+        } else {
+            // The executor limits concurrency itself; extra tasks wait as parked virtual threads
+            this.executor = mode.newExecutor(maxConcurrentTasks);
+            this.semaphore = null;
+        }
     }
 
     public <T> Future<T> submitTask(Callable<T> task) throws InterruptedException {
+        return submitTask(InstrumentedThreadPoolExecutor.DEFAULT_TASK_TYPE, task);
+    }
+
+    /**
+     * @param taskType groups the task's queue-wait and run-time statistics in {@link #report()}
+     * @throws RejectedExecutionException on the platform pool, when no permit frees up within 100 ms
+     */
+    public <T> Future<T> submitTask(String taskType, Callable<T> task) throws InterruptedException {
+        if (semaphore == null) {
+            return executor.submit(task);
+        }
+
         // Try to acquire a permit from the semaphore
         if (!semaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            semaphoreRejections.increment();
             throw new RejectedExecutionException("Too many concurrent tasks");
         }
 
         // Wrap the task to release the semaphore when done
-        return executor.submit(() -> {
+        Callable<T> releasing = () -> {
             try {
                 return task.call();
             } finally {
                 semaphore.release();
             }
-        });
+        };
+        try {
+            return ((InstrumentedThreadPoolExecutor) executor).submit(taskType, releasing);
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the pool statistics and semaphore rejections on the platform pool, the running and
+     *         waiting tasks with virtual threads
+     */
+    public String report() {
+        if (executor instanceof BoundedVirtualThreadExecutor virtual) {
+            return "Running: " + virtual.runningCount() + ", waiting: " + virtual.waitingCount()
+                    + System.lineSeparator();
+        }
+        return ((InstrumentedThreadPoolExecutor) executor).report()
+                + "Rejected by semaphore: " + semaphoreRejections.sum() + System.lineSeparator();
     }
 
     public void shutdown() {
@@ -1,7 +1,10 @@
 package com.jsamkt.learn.functional.immutability;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -9,6 +12,7 @@ public class ImmutabilityDemo {
 
     public static void demo() {
         demonstrateImmutability();
+        demonstratePersistentCollections();
     }
 
     private static void demonstrateImmutability() {
@@ -69,4 +73,80 @@ public class ImmutabilityDemo {
         System.out.println(person);      // Unchanged
         System.out.println(olderPerson); // New instance with updated age
     }
+
+    private static void demonstratePersistentCollections() {
+        System.out.println("\n--- Persistent Collections with Structural Sharing ---");
+
+        PersistentVector<String> fruits = PersistentVector.of("apple", "banana", "cherry");
+        PersistentVector<String> withDate = fruits.plus("date");
+        PersistentVector<String> replaced = withDate.with(1, "blueberry");
+        System.out.println("Original: " + fruits);
+        System.out.println("After plus(\"date\"): " + withDate);
+        System.out.println("After with(1, \"blueberry\"): " + replaced);
+        System.out.println("After dropLast(): " + replaced.dropLast());
+
+        PersistentHashMap<String, Integer> ages = PersistentHashMap.<String, Integer>empty()
+                .plus("Alice", 30)
+                .plus("Bob", 25);
+        PersistentHashMap<String, Integer> updated = ages.plus("Bob", 26).minus("Alice");
+        System.out.println("\nMap: " + ages);
+        System.out.println("After plus(\"Bob\", 26).minus(\"Alice\"): " + updated);
+        System.out.println("Original map is still: " + ages);
+
+        // Repeated single-element updates: a full copy per update vs path copying
+        int size = 100_000;
+        int updates = 2_000;
+        List<Integer> copiedList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            copiedList.add(i);
+        }
+        PersistentVector<Integer> vector = copiedList.stream().collect(PersistentVector.toPersistentVector());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            List<Integer> next = new ArrayList<>(copiedList);
+            next.set((i * 31) % size, -i);
+            copiedList = List.copyOf(next);
+        }
+        long copyTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            vector = vector.with((i * 31) % size, -i);
+        }
+        long vectorTime = System.nanoTime() - start;
+
+        System.out.printf("%n%d updates of a %d element list:%n", updates, size);
+        System.out.printf("Copy-on-update list: %.2f ms%n", copyTime / 1_000_000.0);
+        System.out.printf("PersistentVector:    %.2f ms%n", vectorTime / 1_000_000.0);
+        System.out.println("Same contents: " + vector.equals(copiedList));
+
+        Map<Integer, Integer> copiedMap = new HashMap<>();
+        PersistentHashMap.TransientHashMap<Integer, Integer> builder = PersistentHashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < size; i++) {
+            copiedMap.put(i, i);
+            builder.put(i, i);
+        }
+        PersistentHashMap<Integer, Integer> map = builder.persistent();
+        updates = 200;
+
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            Map<Integer, Integer> next = new HashMap<>(copiedMap);
+            next.put((i * 31) % size, -i);
+            copiedMap = next;
+        }
+        copyTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            map = map.plus((i * 31) % size, -i);
+        }
+        long hamtTime = System.nanoTime() - start;
+
+        System.out.printf("%n%d updates of a %d entry map:%n", updates, size);
+        System.out.printf("Copy-on-update map:  %.2f ms%n", copyTime / 1_000_000.0);
+        System.out.printf("PersistentHashMap:   %.2f ms%n", hamtTime / 1_000_000.0);
+        System.out.println("Same contents: " + map.equals(copiedMap));
+    }
 }
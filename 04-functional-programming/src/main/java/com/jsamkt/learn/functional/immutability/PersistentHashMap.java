@@ -0,0 +1,495 @@
+package com.jsamkt.learn.functional.immutability;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map implemented as a hash array mapped trie (HAMT).
+ * <p>
+ * Each trie level consumes 5 bits of the key's hash. A node stores a 32-bit bitmap of occupied slots
+ * plus a compact array holding only those slots, so sparse nodes stay small. {@link #plus} and
+ * {@link #minus} copy just the nodes on the path to the key - at most 7 small arrays - and share the
+ * rest of the trie with the previous version. Keys with identical hashes end up in a collision node.
+ * <p>
+ * {@link #asTransient()} gives a builder that mutates the nodes it owns in place, for loading many
+ * entries at once. Null keys and values are not supported; the standard {@code Map} mutators throw
+ * {@link UnsupportedOperationException}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(0, null);
+
+    private final int size;
+    private final Node root;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    private PersistentHashMap(int size, Node root) {
+        this.size = size;
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> source) {
+        TransientHashMap<K, V> builder = PersistentHashMap.<K, V>empty().asTransient();
+        source.forEach(builder::put);
+        return builder.persistent();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null || root == null) {
+            return null;
+        }
+        Object value = root.find(0, hash(key), key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    /**
+     * @return a map with {@code key} mapped to {@code value}; {@code this} if it already was
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Box addedLeaf = new Box();
+        Node start = root == null ? BitmapIndexedNode.EMPTY : root;
+        Node newRoot = start.assoc(null, 0, hash(key), key, value, addedLeaf);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(addedLeaf.value ? size + 1 : size, newRoot);
+    }
+
+    /**
+     * @return a map without {@code key}; {@code this} if it was absent
+     */
+    public PersistentHashMap<K, V> minus(K key) {
+        if (key == null || root == null) {
+            return this;
+        }
+        Box removedLeaf = new Box();
+        Node newRoot = root.without(null, 0, hash(key), key, removedLeaf);
+        if (!removedLeaf.value) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(size - 1, newRoot);
+    }
+
+    /**
+     * Returns a mutable builder that starts with this map's entries; this map is not affected.
+     */
+    public TransientHashMap<K, V> asTransient() {
+        return new TransientHashMap<>(this);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static final class Box {
+        boolean value;
+    }
+
+    /**
+     * Both node types keep entries as consecutive (key, value) slots in one array. In a bitmap node a
+     * {@code null} key means the value slot holds a child node.
+     */
+    private abstract static class Node {
+        Object edit;
+        Object[] array;
+
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf);
+
+        abstract Node without(Object edit, int shift, int hash, Object key, Box removedLeaf);
+
+        boolean ownedBy(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+    }
+
+    private static final class BitmapIndexedNode extends Node {
+        static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(null, 0, new Object[0]);
+
+        int bitmap;
+
+        BitmapIndexedNode(Object edit, int bitmap, Object[] array) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bitFor(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int index = index(bit);
+            Object storedKey = array[2 * index];
+            Object storedValue = array[2 * index + 1];
+            if (storedKey == null) {
+                return ((Node) storedValue).find(shift + BITS, hash, key);
+            }
+            return key.equals(storedKey) ? storedValue : NOT_FOUND;
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf) {
+            int bit = bitFor(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object storedKey = array[2 * index];
+                Object storedValue = array[2 * index + 1];
+                if (storedKey == null) {
+                    Node child = ((Node) storedValue).assoc(edit, shift + BITS, hash, key, value, addedLeaf);
+                    return child == storedValue ? this : withSlot(edit, 2 * index + 1, child);
+                }
+                if (key.equals(storedKey)) {
+                    return storedValue == value ? this : withSlot(edit, 2 * index + 1, value);
+                }
+                // Two different keys share this slot: push both one level down
+                addedLeaf.value = true;
+                Node child = createNode(edit, shift + BITS, storedKey, storedValue, hash, key, value);
+                BitmapIndexedNode result = editable(edit);
+                result.array[2 * index] = null;
+                result.array[2 * index + 1] = child;
+                return result;
+            }
+            int entries = Integer.bitCount(bitmap);
+            Object[] newArray = new Object[2 * (entries + 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * index);
+            newArray[2 * index] = key;
+            newArray[2 * index + 1] = value;
+            System.arraycopy(array, 2 * index, newArray, 2 * (index + 1), 2 * (entries - index));
+            addedLeaf.value = true;
+            if (ownedBy(edit)) {
+                array = newArray;
+                bitmap |= bit;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap | bit, newArray);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Box removedLeaf) {
+            int bit = bitFor(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object storedKey = array[2 * index];
+            Object storedValue = array[2 * index + 1];
+            if (storedKey == null) {
+                Node child = ((Node) storedValue).without(edit, shift + BITS, hash, key, removedLeaf);
+                if (child == storedValue) {
+                    return this;
+                }
+                if (child != null) {
+                    return withSlot(edit, 2 * index + 1, child);
+                }
+                return removeSlot(edit, bit, index);
+            }
+            if (key.equals(storedKey)) {
+                removedLeaf.value = true;
+                return removeSlot(edit, bit, index);
+            }
+            return this;
+        }
+
+        private Node removeSlot(Object edit, int bit, int index) {
+            if (bitmap == bit) {
+                return null;
+            }
+            int entries = Integer.bitCount(bitmap);
+            Object[] newArray = new Object[2 * (entries - 1)];
+            System.arraycopy(array, 0, newArray, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), newArray, 2 * index, 2 * (entries - index - 1));
+            if (ownedBy(edit)) {
+                array = newArray;
+                bitmap ^= bit;
+                return this;
+            }
+            return new BitmapIndexedNode(edit, bitmap ^ bit, newArray);
+        }
+
+        private BitmapIndexedNode withSlot(Object edit, int slot, Object value) {
+            BitmapIndexedNode result = editable(edit);
+            result.array[slot] = value;
+            return result;
+        }
+
+        private BitmapIndexedNode editable(Object edit) {
+            return ownedBy(edit) ? this : new BitmapIndexedNode(edit, bitmap, array.clone());
+        }
+
+        private static Node createNode(Object edit, int shift, Object key1, Object value1,
+                                       int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1, new Object[]{key1, value1, key2, value2});
+            }
+            Box ignored = new Box();
+            return EMPTY.assoc(edit, shift, hash1, key1, value1, ignored)
+                    .assoc(edit, shift, hash2, key2, value2, ignored);
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            this.edit = edit;
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return NOT_FOUND;
+            }
+            int index = indexOf(key);
+            return index < 0 ? NOT_FOUND : array[index + 1];
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, Box addedLeaf) {
+            if (hash != this.hash) {
+                // Different hash: nest this collision node under a bitmap node and retry there
+                return new BitmapIndexedNode(null, bitFor(this.hash, shift), new Object[]{null, this})
+                        .assoc(edit, shift, hash, key, value, addedLeaf);
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                Object[] newArray = ownedBy(edit) ? array : array.clone();
+                newArray[index + 1] = value;
+                return ownedBy(edit) ? this : new CollisionNode(edit, hash, newArray);
+            }
+            Object[] newArray = new Object[array.length + 2];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            addedLeaf.value = true;
+            if (ownedBy(edit)) {
+                array = newArray;
+                return this;
+            }
+            return new CollisionNode(edit, hash, newArray);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, Box removedLeaf) {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            removedLeaf.value = true;
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+            if (ownedBy(edit)) {
+                array = newArray;
+                return this;
+            }
+            return new CollisionNode(edit, hash, newArray);
+        }
+    }
+
+    /**
+     * Depth-first walk over the node arrays using an explicit stack.
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Map.Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                arrays.push(root.array);
+                positions.push(0);
+            }
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int position = positions.pop();
+                if (position >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                positions.push(position + 2);
+                Object key = array[position];
+                Object value = array[position + 1];
+                if (key == null) {
+                    arrays.push(((Node) value).array);
+                    positions.push(0);
+                } else {
+                    next = new SimpleImmutableEntry<>((K) key, (V) value);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> result = next;
+            advance();
+            return result;
+        }
+    }
+
+    /**
+     * Mutable, single-threaded builder for a {@link PersistentHashMap}. Nodes it creates carry its edit
+     * token and are updated in place; nodes shared with the source map are copied on first write.
+     * After {@link #persistent()} the builder can no longer be used.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    public static final class TransientHashMap<K, V> {
+        private Object edit = new Object();
+        private final Box leaf = new Box();
+        private Node root;
+        private int size;
+
+        private TransientHashMap(PersistentHashMap<K, V> source) {
+            this.root = source.root;
+            this.size = source.size;
+        }
+
+        public TransientHashMap<K, V> put(K key, V value) {
+            ensureEditable();
+            Objects.requireNonNull(key, "key");
+            Objects.requireNonNull(value, "value");
+            leaf.value = false;
+            Node start = root == null ? BitmapIndexedNode.EMPTY : root;
+            root = start.assoc(edit, 0, hash(key), key, value, leaf);
+            if (leaf.value) {
+                size++;
+            }
+            return this;
+        }
+
+        public TransientHashMap<K, V> remove(K key) {
+            ensureEditable();
+            if (key == null || root == null) {
+                return this;
+            }
+            leaf.value = false;
+            root = root.without(edit, 0, hash(key), key, leaf);
+            if (leaf.value) {
+                size--;
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(K key) {
+            ensureEditable();
+            if (key == null || root == null) {
+                return null;
+            }
+            Object value = root.find(0, hash(key), key);
+            return value == NOT_FOUND ? null : (V) value;
+        }
+
+        public int size() {
+            ensureEditable();
+            return size;
+        }
+
+        public PersistentHashMap<K, V> persistent() {
+            ensureEditable();
+            edit = null;
+            return size == 0 ? empty() : new PersistentHashMap<>(size, root);
+        }
+
+        private void ensureEditable() {
+            if (edit == null) {
+                throw new IllegalStateException("Transient used after persistent()");
+            }
+        }
+    }
+}
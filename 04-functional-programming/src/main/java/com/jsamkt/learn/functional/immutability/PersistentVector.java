@@ -0,0 +1,346 @@
+package com.jsamkt.learn.functional.immutability;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.stream.Collector;
+
+/**
+ * Immutable list stored as a 32-way trie (bit-partitioned vector trie, as in Clojure and Scala).
+ * <p>
+ * Elements sit in the leaves of a tree whose nodes have 32 slots, so the tree is at most
+ * log32(n) levels deep - 4 levels hold a million elements. An update copies only the nodes on the
+ * path to the changed slot and shares everything else with the previous version, which makes
+ * {@link #plus}, {@link #with} and {@link #dropLast} O(log32 n) instead of the O(n) full copy
+ * that {@code Stream.concat(...).collect(...)} performs. The last (up to 32) elements are kept in a
+ * separate tail array, so appends usually copy just that array.
+ * <p>
+ * For building a vector from many elements use {@link #asTransient()}: the transient version
+ * mutates nodes it created itself in place and is turned back into a persistent vector in O(1).
+ * The standard {@code List} mutators throw {@link UnsupportedOperationException}.
+ *
+ * @param <E> the element type
+ */
+public final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int count;
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+
+    /**
+     * Trie node. {@code edit} identifies the transient that owns the node and may mutate it in place;
+     * nodes of persistent vectors are never mutated.
+     */
+    private static final class Node {
+        final Object edit;
+        final Object[] array;
+
+        Node(Object edit) {
+            this(edit, new Object[WIDTH]);
+        }
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+    }
+
+    private PersistentVector(int count, int shift, Node root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <E> PersistentVector<E> of(E... elements) {
+        TransientVector<E> builder = PersistentVector.<E>empty().asTransient();
+        for (E element : elements) {
+            builder.add(element);
+        }
+        return builder.persistent();
+    }
+
+    public static <E> Collector<E, ?, PersistentVector<E>> toPersistentVector() {
+        return Collector.of(
+                () -> PersistentVector.<E>empty().asTransient(),
+                TransientVector::add,
+                (left, right) -> {
+                    for (int i = 0; i < right.size(); i++) {
+                        left.add(right.get(i));
+                    }
+                    return left;
+                },
+                TransientVector::persistent);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, count);
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * @return a new vector with {@code element} appended
+     */
+    public PersistentVector<E> plus(E element) {
+        if (count - tailOffset(count) < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(count + 1, shift, root, newTail);
+        }
+        // Tail is full: push it into the trie and start a new one
+        Node tailNode = new Node(null, tail);
+        Node newRoot;
+        int newShift = shift;
+        if ((count >>> BITS) > (1 << shift)) {
+            // Root is full: grow the tree by one level
+            newRoot = new Node(null);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(null, shift, tailNode);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(count, shift, root, tailNode, null);
+        }
+        return new PersistentVector<>(count + 1, newShift, newRoot, new Object[]{element});
+    }
+
+    /**
+     * @return a new vector with the element at {@code index} replaced
+     */
+    public PersistentVector<E> with(int index, E element) {
+        checkIndex(index, count);
+        if (index >= tailOffset(count)) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(count, shift, root, newTail);
+        }
+        return new PersistentVector<>(count, shift, assoc(shift, root, index, element, null), tail);
+    }
+
+    /**
+     * @return a new vector without the last element
+     */
+    public PersistentVector<E> dropLast() {
+        if (count == 0) {
+            throw new IllegalStateException("Cannot drop from an empty vector");
+        }
+        if (count == 1) {
+            return empty();
+        }
+        if (count - tailOffset(count) > 1) {
+            return new PersistentVector<>(count - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail becomes empty: the last leaf of the trie becomes the new tail
+        Object[] newTail = arrayFor(count - 2);
+        Node newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot.array[1] == null) {
+            newRoot = (Node) newRoot.array[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(count - 1, newShift, newRoot, newTail);
+    }
+
+    /**
+     * Returns a mutable builder that starts with this vector's elements; this vector is not affected.
+     */
+    public TransientVector<E> asTransient() {
+        return new TransientVector<>(this);
+    }
+
+    private static int tailOffset(int count) {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index) {
+        if (index >= tailOffset(count)) {
+            return tail;
+        }
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(index >>> level) & MASK];
+        }
+        return node.array;
+    }
+
+    private Node popTail(int level, Node node) {
+        int subIndex = ((count - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Node newChild = popTail(level - BITS, (Node) node.array[subIndex]);
+            if (newChild == null && subIndex == 0) {
+                return null;
+            }
+            Node result = new Node(null, node.array.clone());
+            result.array[subIndex] = newChild;
+            return result;
+        }
+        if (subIndex == 0) {
+            return null;
+        }
+        Node result = new Node(null, node.array.clone());
+        result.array[subIndex] = null;
+        return result;
+    }
+
+    /**
+     * Path-copying helpers shared with the transient. With {@code edit == null} every node on the path is
+     * copied; otherwise nodes already owned by {@code edit} are mutated in place.
+     */
+    private static Node editable(Node node, Object edit) {
+        return edit != null && node.edit == edit ? node : new Node(edit, node.array.clone());
+    }
+
+    private static Node pushTail(int count, int level, Node parent, Node tailNode, Object edit) {
+        Node result = editable(parent, edit);
+        int subIndex = ((count - 1) >>> level) & MASK;
+        Node toInsert;
+        if (level == BITS) {
+            toInsert = tailNode;
+        } else {
+            Node child = (Node) parent.array[subIndex];
+            toInsert = child != null
+                    ? pushTail(count, level - BITS, child, tailNode, edit)
+                    : newPath(edit, level - BITS, tailNode);
+        }
+        result.array[subIndex] = toInsert;
+        return result;
+    }
+
+    private static Node newPath(Object edit, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+        Node result = new Node(edit);
+        result.array[0] = newPath(edit, level - BITS, node);
+        return result;
+    }
+
+    private static Node assoc(int level, Node node, int index, Object value, Object edit) {
+        Node result = editable(node, edit);
+        if (level == 0) {
+            result.array[index & MASK] = value;
+        } else {
+            int subIndex = (index >>> level) & MASK;
+            result.array[subIndex] = assoc(level - BITS, (Node) node.array[subIndex], index, value, edit);
+        }
+        return result;
+    }
+
+    private static void checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+    }
+
+    /**
+     * Mutable, single-threaded builder for a {@link PersistentVector}. Nodes it creates are tagged with
+     * its own edit token and updated in place; nodes shared with the source vector are copied once on
+     * first write. After {@link #persistent()} the builder can no longer be used.
+     *
+     * @param <E> the element type
+     */
+    public static final class TransientVector<E> {
+        private Object edit = new Object();
+        private int count;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        private TransientVector(PersistentVector<E> source) {
+            this.count = source.count;
+            this.shift = source.shift;
+            this.root = new Node(edit, source.root.array.clone());
+            this.tail = Arrays.copyOf(source.tail, WIDTH);
+        }
+
+        public int size() {
+            ensureEditable();
+            return count;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            ensureEditable();
+            checkIndex(index, count);
+            if (index >= tailOffset(count)) {
+                return (E) tail[index & MASK];
+            }
+            Node node = root;
+            for (int level = shift; level > 0; level -= BITS) {
+                node = (Node) node.array[(index >>> level) & MASK];
+            }
+            return (E) node.array[index & MASK];
+        }
+
+        public TransientVector<E> add(E element) {
+            ensureEditable();
+            if (count - tailOffset(count) < WIDTH) {
+                tail[count & MASK] = element;
+                count++;
+                return this;
+            }
+            Node tailNode = new Node(edit, tail);
+            tail = new Object[WIDTH];
+            tail[0] = element;
+            if ((count >>> BITS) > (1 << shift)) {
+                Node newRoot = new Node(edit);
+                newRoot.array[0] = root;
+                newRoot.array[1] = newPath(edit, shift, tailNode);
+                root = newRoot;
+                shift += BITS;
+            } else {
+                root = pushTail(count, shift, root, tailNode, edit);
+            }
+            count++;
+            return this;
+        }
+
+        public TransientVector<E> set(int index, E element) {
+            ensureEditable();
+            checkIndex(index, count);
+            if (index >= tailOffset(count)) {
+                tail[index & MASK] = element;
+            } else {
+                root = assoc(shift, root, index, element, edit);
+            }
+            return this;
+        }
+
+        /**
+         * Freezes the builder into a persistent vector in O(1) (plus trimming the tail).
+         */
+        public PersistentVector<E> persistent() {
+            ensureEditable();
+            edit = null;
+            return new PersistentVector<>(count, shift, root, Arrays.copyOf(tail, count - tailOffset(count)));
+        }
+
+        private void ensureEditable() {
+            if (edit == null) {
+                throw new IllegalStateException("Transient used after persistent()");
+            }
+        }
+    }
+}
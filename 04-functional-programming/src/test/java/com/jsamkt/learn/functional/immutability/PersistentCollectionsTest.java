@@ -0,0 +1,146 @@
+package com.jsamkt.learn.functional.immutability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentCollectionsTest {
+
+    @Test
+    void testVectorMatchesArrayList() {
+        Random random = new Random(42);
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 || expected.isEmpty()) {
+                vector = vector.plus(i);
+                expected.add(i);
+            } else if (op < 8) {
+                int index = random.nextInt(expected.size());
+                vector = vector.with(index, -i);
+                expected.set(index, -i);
+            } else {
+                vector = vector.dropLast();
+                expected.remove(expected.size() - 1);
+            }
+        }
+
+        assertEquals(expected, vector);
+    }
+
+    @Test
+    void testVectorUpdatesShareStructureWithoutChangingOriginal() {
+        PersistentVector<Integer> original = PersistentVector.empty();
+        for (int i = 0; i < 1_000; i++) {
+            original = original.plus(i);
+        }
+
+        PersistentVector<Integer> updated = original.with(500, -1).plus(1_000);
+
+        assertEquals(500, original.get(500));
+        assertEquals(1_000, original.size());
+        assertEquals(-1, updated.get(500));
+        assertEquals(1_001, updated.size());
+        assertThrows(UnsupportedOperationException.class, () -> original.add(1));
+    }
+
+    @Test
+    void testTransientVector() {
+        PersistentVector<String> base = PersistentVector.of("a", "b");
+        PersistentVector.TransientVector<String> builder = base.asTransient();
+        for (int i = 0; i < 100; i++) {
+            builder.add("x" + i);
+        }
+        builder.set(0, "z");
+        PersistentVector<String> built = builder.persistent();
+
+        assertEquals(List.of("a", "b"), base);
+        assertEquals(102, built.size());
+        assertEquals("z", built.get(0));
+        assertEquals("x99", built.get(101));
+        assertThrows(IllegalStateException.class, () -> builder.add("late"));
+    }
+
+    @Test
+    void testMapMatchesHashMapIncludingCollisions() {
+        Random random = new Random(7);
+        PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+        Map<CollidingKey, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            CollidingKey key = new CollidingKey(random.nextInt(500));
+            if (random.nextInt(3) < 2) {
+                map = map.plus(key, i);
+                expected.put(key, i);
+            } else {
+                map = map.minus(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(expected, map);
+    }
+
+    @Test
+    void testMapUpdatesLeaveOriginalUnchanged() {
+        PersistentHashMap<String, Integer> original = PersistentHashMap.<String, Integer>empty()
+                .plus("Alice", 30)
+                .plus("Bob", 25);
+
+        PersistentHashMap<String, Integer> updated = original.plus("Bob", 26).minus("Alice");
+
+        assertEquals(Map.of("Alice", 30, "Bob", 25), original);
+        assertEquals(Map.of("Bob", 26), updated);
+        assertSame(original, original.minus("Carol"));
+        assertSame(original, original.plus("Alice", 30));
+        assertThrows(UnsupportedOperationException.class, () -> original.put("Carol", 40));
+    }
+
+    @Test
+    void testTransientMap() {
+        PersistentHashMap<Integer, Integer> base = PersistentHashMap.<Integer, Integer>empty().plus(1, 1);
+        PersistentHashMap.TransientHashMap<Integer, Integer> builder = base.asTransient();
+        for (int i = 0; i < 1_000; i++) {
+            builder.put(i, i * 2);
+        }
+        builder.remove(999);
+        PersistentHashMap<Integer, Integer> built = builder.persistent();
+
+        assertEquals(Map.of(1, 1), base);
+        assertEquals(999, built.size());
+        assertEquals(2, built.get(1));
+        assertFalse(built.containsKey(999));
+        assertThrows(IllegalStateException.class, () -> builder.put(5, 5));
+    }
+
+    /**
+     * Key with a deliberately poor hash so that many keys land in collision nodes.
+     */
+    private static final class CollidingKey {
+        private final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey other && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id % 16);
+        }
+    }
+}
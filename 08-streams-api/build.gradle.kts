@@ -3,6 +3,11 @@ plugins {
     id("application")
 }
 
+dependencies {
+    // Sketch collectors used by the practical examples
+    implementation(project(":01-collections"))
+}
+
 application {
     mainClass.set("com.jsamkt.learn.streamsapi.StreamsApiDemo")
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.jsamkt.learn.streamsapi.practical;
 
+import com.jsamkt.learn.collections.sketch.CountMinSketch;
+import com.jsamkt.learn.collections.sketch.HyperLogLog;
 import com.jsamkt.learn.streamsapi.model.Product;
 
 import java.math.BigDecimal;
@@ -186,6 +188,20 @@ public class PracticalExamplesDemo {
         
         System.out.println("\nDistinct words (alphabetical):");
         System.out.println(distinctWords);
+        
+        // Approximate versions: memory stays fixed no matter how many distinct words the text has
+        CountMinSketch frequencySketch = Arrays.stream(text.toLowerCase().split("[\\s.,]+"))
+                .collect(CountMinSketch.toCountMinSketch(0.01, 0.99));
+        HyperLogLog distinctSketch = Arrays.stream(text.toLowerCase().split("[\\s.,]+"))
+                .collect(HyperLogLog.toHyperLogLog(10));
+        
+        System.out.println("\nEstimated frequency (Count-Min sketch, never below the exact count):");
+        for (String word : List.of("the", "fox", "dog", "cat")) {
+            System.out.printf("%-10s %2d (exact %d)%n", word,
+                    frequencySketch.estimateCount(word), wordFrequency.getOrDefault(word, 0L));
+        }
+        System.out.println("Estimated distinct words (HyperLogLog): " + distinctSketch.cardinality()
+                + " (exact " + distinctWords.size() + ")");
     }
     
     private static void batchProcessingExample() {
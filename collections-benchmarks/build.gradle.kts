@@ -0,0 +1,27 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+dependencies {
+    // Benchmarks exercise the tutorial collections as well as the JDK ones
+    jmh(project(":01-collections"))
+}
+
+jmh {
+    // Run a subset with: ./gradlew :collections-benchmarks:jmh -Pjmh.includes=ListBenchmark
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    fork.set(1)
+    jvmArgs.addAll("-Xms4g", "-Xmx4g")
+
+    // Equivalent to -prof gc: reports allocation rate (gc.alloc.rate.norm is bytes per operation)
+    profilers.add("gc")
+
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+}
@@ -0,0 +1,97 @@
+package com.jsamkt.learn.collections.benchmarks;
+
+import com.jsamkt.learn.collections.list.ChunkedArrayList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the ListDemo workloads: append, random get, middle insertion and iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ListBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"ArrayList", "LinkedList", "ChunkedArrayList"})
+    public String implementation;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private List<Integer> list;
+    private Integer[] values;
+    private int[] randomIndices;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        if (params.getBenchmark().endsWith(".randomGet") && "LinkedList".equals(implementation) && size > 100_000) {
+            // O(n) per lookup: a single iteration would take minutes without telling us anything new.
+            // Failing the trial shows up as an error in the report instead of a meaningless ~0 ns/op.
+            throw new IllegalStateException("LinkedList random access is only measured up to 100000 elements");
+        }
+        values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        list = newList();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        randomIndices = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            randomIndices[i] = random.nextInt(size);
+        }
+    }
+
+    private List<Integer> newList() {
+        return switch (implementation) {
+            case "ArrayList" -> new ArrayList<>();
+            case "LinkedList" -> new LinkedList<>();
+            case "ChunkedArrayList" -> new ChunkedArrayList<>();
+            default -> throw new IllegalArgumentException("Unknown list: " + implementation);
+        };
+    }
+
+    @Benchmark
+    public List<Integer> add() {
+        List<Integer> target = newList();
+        for (Integer value : values) {
+            target.add(value);
+        }
+        return target;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void randomGet(Blackhole blackhole) {
+        for (int index : randomIndices) {
+            blackhole.consume(list.get(index));
+        }
+    }
+
+    @Benchmark
+    public Integer middleInsert() {
+        // Insert and remove keep the size stable across invocations
+        int middle = list.size() / 2;
+        list.add(middle, values[0]);
+        return list.remove(middle);
+    }
+
+    @Benchmark
+    public long iterate() {
+        long sum = 0;
+        for (Integer value : list) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package com.jsamkt.learn.collections.benchmarks;
+
+import com.jsamkt.learn.collections.primitive.IntIntMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the MapDemo workloads: bulk put, random get and full iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MapBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"HashMap", "LinkedHashMap", "TreeMap", "IntIntMap"})
+    public String implementation;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private int[] keys;
+    private int[] lookupKeys;
+    private Map<Integer, Integer> boxedMap;
+    private IntIntMap primitiveMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt();
+        }
+        lookupKeys = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupKeys[i] = keys[random.nextInt(size)];
+        }
+        if ("IntIntMap".equals(implementation)) {
+            primitiveMap = fillPrimitive();
+        } else {
+            boxedMap = fillBoxed();
+        }
+    }
+
+    private Map<Integer, Integer> newBoxedMap() {
+        return switch (implementation) {
+            case "HashMap" -> new HashMap<>();
+            case "LinkedHashMap" -> new LinkedHashMap<>();
+            case "TreeMap" -> new TreeMap<>();
+            default -> throw new IllegalArgumentException("Unknown map: " + implementation);
+        };
+    }
+
+    private Map<Integer, Integer> fillBoxed() {
+        Map<Integer, Integer> map = newBoxedMap();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    private IntIntMap fillPrimitive() {
+        IntIntMap map = new IntIntMap();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Object put() {
+        return primitiveMap != null ? fillPrimitive() : fillBoxed();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void get(Blackhole blackhole) {
+        if (primitiveMap != null) {
+            for (int key : lookupKeys) {
+                blackhole.consume(primitiveMap.get(key));
+            }
+        } else {
+            for (int key : lookupKeys) {
+                blackhole.consume(boxedMap.get(key));
+            }
+        }
+    }
+
+    @Benchmark
+    public long iterate() {
+        long[] sum = new long[1];
+        if (primitiveMap != null) {
+            primitiveMap.forEach((key, value) -> sum[0] += value);
+        } else {
+            for (Map.Entry<Integer, Integer> entry : boxedMap.entrySet()) {
+                sum[0] += entry.getValue();
+            }
+        }
+        return sum[0];
+    }
+}
@@ -0,0 +1,43 @@
+package com.jsamkt.learn.collections.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the SpecialCollectionDemo priority queue: fill with random values, then poll until empty.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PriorityQueueBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Integer[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt();
+        }
+    }
+
+    @Benchmark
+    public long addAndPollAll() {
+        PriorityQueue<Integer> queue = new PriorityQueue<>();
+        for (Integer value : values) {
+            queue.add(value);
+        }
+        long checksum = 0;
+        while (!queue.isEmpty()) {
+            checksum += queue.poll();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jsamkt.learn.collections.benchmarks;
+
+import com.jsamkt.learn.collections.primitive.IntHashSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH version of the SetDemo set algebra: union, intersection and difference of two half-overlapping sets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SetBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private Set<Integer> boxedLeft;
+    private Set<Integer> boxedRight;
+    private IntHashSet primitiveLeft;
+    private IntHashSet primitiveRight;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        boxedLeft = new HashSet<>();
+        boxedRight = new HashSet<>();
+        primitiveLeft = new IntHashSet(size);
+        primitiveRight = new IntHashSet(size);
+        // Values drawn from [0, 2 * size) so the sets overlap by about half
+        for (int i = 0; i < size; i++) {
+            int left = random.nextInt(2 * size);
+            int right = random.nextInt(2 * size);
+            boxedLeft.add(left);
+            boxedRight.add(right);
+            primitiveLeft.add(left);
+            primitiveRight.add(right);
+        }
+    }
+
+    @Benchmark
+    public Set<Integer> hashSetUnion() {
+        Set<Integer> union = new HashSet<>(boxedLeft);
+        union.addAll(boxedRight);
+        return union;
+    }
+
+    @Benchmark
+    public Set<Integer> hashSetIntersection() {
+        Set<Integer> intersection = new HashSet<>(boxedLeft);
+        intersection.retainAll(boxedRight);
+        return intersection;
+    }
+
+    @Benchmark
+    public Set<Integer> hashSetDifference() {
+        Set<Integer> difference = new HashSet<>(boxedLeft);
+        difference.removeAll(boxedRight);
+        return difference;
+    }
+
+    @Benchmark
+    public IntHashSet intHashSetUnion() {
+        return IntHashSet.union(primitiveLeft, primitiveRight);
+    }
+
+    @Benchmark
+    public IntHashSet intHashSetIntersection() {
+        return IntHashSet.intersection(primitiveLeft, primitiveRight);
+    }
+
+    @Benchmark
+    public IntHashSet intHashSetDifference() {
+        return IntHashSet.difference(primitiveLeft, primitiveRight);
+    }
+}
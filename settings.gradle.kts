@@ -13,3 +13,6 @@ include("09-advanced-math")
 include("10-reactive-programming")
 //include("11-modern-java-features")
 
+// Benchmarks
+include("collections-benchmarks")
+